@@ -0,0 +1,61 @@
+package ru.mgubina.mashaschool.benchmark;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+import ru.mgubina.mashaschool.MashaSchoolApplication;
+
+/**
+ * Контекст приложения для бенчмарков сервисного слоя.
+ * Если задан -Dbenchmark.jdbc.url, используется эта БД, иначе поднимается PostgreSQL в Testcontainers.
+ */
+final class BenchmarkEnvironment implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+    private final PostgreSQLContainer<?> container;
+
+    private BenchmarkEnvironment(ConfigurableApplicationContext context, PostgreSQLContainer<?> container) {
+        this.context = context;
+        this.container = container;
+    }
+
+    static BenchmarkEnvironment start() {
+        String url = System.getProperty("benchmark.jdbc.url");
+        String username = System.getProperty("benchmark.jdbc.username", "postgres");
+        String password = System.getProperty("benchmark.jdbc.password", "postgres");
+
+        PostgreSQLContainer<?> container = null;
+        if (url == null) {
+            container = new PostgreSQLContainer<>("postgres:16-alpine");
+            container.start();
+            url = container.getJdbcUrl();
+            username = container.getUsername();
+            password = container.getPassword();
+        }
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(MashaSchoolApplication.class)
+                .profiles("benchmark")
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=" + url,
+                        "spring.datasource.username=" + username,
+                        "spring.datasource.password=" + password
+                )
+                .run();
+
+        return new BenchmarkEnvironment(context, container);
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+        if (container != null) {
+            container.stop();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package ru.mgubina.mashaschool.benchmark;
+
+import ru.mgubina.mashaschool.entity.Category;
+import ru.mgubina.mashaschool.entity.Role;
+import ru.mgubina.mashaschool.entity.User;
+import ru.mgubina.mashaschool.repository.CategoryRepository;
+import ru.mgubina.mashaschool.repository.UserRepository;
+import ru.mgubina.mashaschool.service.CourseService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Тестовые данные для бенчмарков. Имена уникальны в пределах запуска,
+ * поэтому одну и ту же локальную БД можно использовать повторно.
+ */
+final class BenchmarkFixtures {
+
+    private final BenchmarkEnvironment environment;
+    private final String runId = UUID.randomUUID().toString().substring(0, 8);
+    private int sequence;
+
+    BenchmarkFixtures(BenchmarkEnvironment environment) {
+        this.environment = environment;
+    }
+
+    long teacher() {
+        return user(Role.TEACHER);
+    }
+
+    long[] students(int count) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            users.add(newUser(Role.STUDENT));
+        }
+        return environment.bean(UserRepository.class).saveAll(users).stream()
+                .mapToLong(User::getId)
+                .toArray();
+    }
+
+    long category() {
+        Category category = Category.builder()
+                .name("Category " + runId + "-" + (++sequence))
+                .build();
+        return environment.bean(CategoryRepository.class).save(category).getId();
+    }
+
+    long course(long categoryId, long teacherId) {
+        return environment.bean(CourseService.class)
+                .createCourse("Course " + runId, "Benchmark course", categoryId, teacherId, null, null)
+                .getId();
+    }
+
+    private long user(Role role) {
+        return environment.bean(UserRepository.class).save(newUser(role)).getId();
+    }
+
+    private User newUser(Role role) {
+        int id = ++sequence;
+        return User.builder()
+                .name("User " + id)
+                .email("bench-" + runId + "-" + id + "@bench.local")
+                .role(role)
+                .build();
+    }
+}
@@ -0,0 +1,145 @@
+package ru.mgubina.mashaschool.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.mgubina.mashaschool.controller.CourseController;
+import ru.mgubina.mashaschool.dto.CourseCreateDto;
+import ru.mgubina.mashaschool.dto.CourseResponseDto;
+import ru.mgubina.mashaschool.entity.Tag;
+import ru.mgubina.mashaschool.repository.CourseSummaryRow;
+import ru.mgubina.mashaschool.repository.TagRepository;
+import ru.mgubina.mashaschool.service.CourseService;
+import ru.mgubina.mashaschool.service.ModuleService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GET /api/courses/{id}: чтение карточки курса из БД с маппингом в DTO и только маппинг
+ * карточки, уже собранной в памяти, тем же {@link CourseResponseDto#of}, что и в контроллере.
+ * Число модулей и уроков на чтение карточки влиять не должно.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class CourseReadBenchmark {
+
+    @Param({"5", "20"})
+    private int modules;
+
+    @Param({"10"})
+    private int lessonsPerModule;
+
+    @Param({"5"})
+    private int tags;
+
+    private BenchmarkEnvironment environment;
+    private CourseController courseController;
+    private long courseId;
+
+    private CourseService.CourseSummary inMemorySummary;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = BenchmarkEnvironment.start();
+        BenchmarkFixtures fixtures = new BenchmarkFixtures(environment);
+        courseController = environment.bean(CourseController.class);
+
+        String runId = UUID.randomUUID().toString().substring(0, 8);
+        Set<Long> tagIds = new HashSet<>();
+        for (int t = 0; t < tags; t++) {
+            Tag tag = Tag.builder().name("Tag " + runId + "-" + t).build();
+            tagIds.add(environment.bean(TagRepository.class).save(tag).getId());
+        }
+
+        CourseCreateDto dto = CourseCreateDto.builder()
+                .title("Course")
+                .description("Benchmark course")
+                .categoryId(fixtures.category())
+                .teacherId(fixtures.teacher())
+                .tagIds(tagIds)
+                .build();
+        courseId = courseController.createCourse(dto).getId();
+
+        CourseService courseService = environment.bean(CourseService.class);
+        ModuleService moduleService = environment.bean(ModuleService.class);
+        for (int m = 0; m < modules; m++) {
+            long moduleId = courseService.addModule(courseId, "Module " + m, null, m);
+            for (int l = 0; l < lessonsPerModule; l++) {
+                moduleService.addLesson(moduleId, "Lesson " + l, "Content " + l, null);
+            }
+        }
+
+        inMemorySummary = inMemorySummary();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.close();
+    }
+
+    @Benchmark
+    public CourseResponseDto getCourseFromDatabase() {
+        return courseController.getCourse(courseId);
+    }
+
+    @Benchmark
+    public CourseResponseDto getCourseInMemory() {
+        return CourseResponseDto.of(inMemorySummary.course(), inMemorySummary.tagNames());
+    }
+
+    private CourseService.CourseSummary inMemorySummary() {
+        CourseSummaryRow course = new SummaryRow(1L, "Course", "Benchmark course", null, null, "Category", "Teacher");
+        List<String> tagNames = new ArrayList<>();
+        for (int t = 0; t < tags; t++) {
+            tagNames.add("Tag " + t);
+        }
+        return new CourseService.CourseSummary(course, tagNames);
+    }
+
+    private record SummaryRow(Long id, String title, String description, String duration, LocalDate startDate,
+                              String categoryName, String teacherName) implements CourseSummaryRow {
+
+        @Override
+        public Long getId() {
+            return id;
+        }
+
+        @Override
+        public String getTitle() {
+            return title;
+        }
+
+        @Override
+        public String getDescription() {
+            return description;
+        }
+
+        @Override
+        public String getDuration() {
+            return duration;
+        }
+
+        @Override
+        public LocalDate getStartDate() {
+            return startDate;
+        }
+
+        @Override
+        public String getCategoryName() {
+            return categoryName;
+        }
+
+        @Override
+        public String getTeacherName() {
+            return teacherName;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package ru.mgubina.mashaschool.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.mgubina.mashaschool.entity.Course;
+import ru.mgubina.mashaschool.entity.Enrollment;
+import ru.mgubina.mashaschool.entity.User;
+import ru.mgubina.mashaschool.service.DuplicateGuard;
+import ru.mgubina.mashaschool.service.EnrollmentService;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EnrollmentService.enrollStudent и та же запись без БД: проверка по уже загруженному фильтру
+ * {@link DuplicateGuard} и сборка записи. Каждая итерация записывает пакет студентов на новый курс;
+ * existingEnrollments задаёт объём уже существующих записей в таблице.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, batchSize = EnrollmentServiceBenchmark.BATCH)
+@Measurement(iterations = 5, batchSize = EnrollmentServiceBenchmark.BATCH)
+@Fork(1)
+public class EnrollmentServiceBenchmark {
+
+    static final int BATCH = 500;
+
+    @Param({"0", "5000"})
+    private int existingEnrollments;
+
+    private BenchmarkEnvironment environment;
+    private BenchmarkFixtures fixtures;
+    private EnrollmentService enrollmentService;
+    private DuplicateGuard duplicateGuard;
+    private long categoryId;
+    private long teacherId;
+    private long[] studentIds;
+
+    private User[] students;
+    private long courseId;
+    private Course course;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = BenchmarkEnvironment.start();
+        fixtures = new BenchmarkFixtures(environment);
+        enrollmentService = environment.bean(EnrollmentService.class);
+        duplicateGuard = environment.bean(DuplicateGuard.class);
+
+        categoryId = fixtures.category();
+        teacherId = fixtures.teacher();
+        studentIds = fixtures.students(BATCH);
+
+        long[] otherStudents = fixtures.students(existingEnrollments);
+        long otherCourseId = fixtures.course(categoryId, teacherId);
+        for (long studentId : otherStudents) {
+            enrollmentService.enrollStudent(otherCourseId, studentId);
+        }
+
+        students = new User[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            students[i] = User.builder().id(studentIds[i]).build();
+        }
+        // Фильтр загружается из БД при первой проверке, в замер это попадать не должно
+        duplicateGuard.mayBeEnrolled(studentIds[0], otherCourseId);
+    }
+
+    @Setup(Level.Iteration)
+    public void newCourse() {
+        courseId = fixtures.course(categoryId, teacherId);
+        course = Course.builder().id(courseId).build();
+        cursor = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.close();
+    }
+
+    @Benchmark
+    public long enrollStudent() {
+        return enrollmentService.enrollStudent(courseId, studentIds[cursor++]);
+    }
+
+    @Benchmark
+    public Enrollment enrollStudentInMemory(Blackhole blackhole) {
+        int i = cursor++;
+        blackhole.consume(duplicateGuard.mayBeEnrolled(studentIds[i], courseId));
+        return Enrollment.builder()
+                .user(students[i])
+                .course(course)
+                .enrollDate(LocalDate.now())
+                .status("Active")
+                .build();
+    }
+}
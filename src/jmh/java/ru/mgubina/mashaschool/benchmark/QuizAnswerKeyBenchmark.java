@@ -0,0 +1,107 @@
+package ru.mgubina.mashaschool.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.mgubina.mashaschool.repository.AnswerKeyRow;
+import ru.mgubina.mashaschool.service.QuizAnswerKey;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Проверка теста в памяти: скомпилированный ключ против прежней проверки через HashSet.
+ * Аллокации на одну проверку смотреть по gc.alloc.rate.norm при запуске с -prof gc.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuizAnswerKeyBenchmark {
+
+    private static final int OPTIONS_PER_QUESTION = 4;
+
+    @Param({"10", "50", "200"})
+    private int questions;
+
+    private QuizAnswerKey answerKey;
+    private Map<Long, List<Long>> answersByQuestion;
+    private Map<Long, List<AnswerKeyRow>> rowsByQuestion;
+
+    @Setup
+    public void setUp() {
+        List<AnswerKeyRow> rows = new ArrayList<>();
+        answersByQuestion = new HashMap<>();
+
+        long optionId = 1;
+        for (long questionId = 1; questionId <= questions; questionId++) {
+            List<Long> selected = new ArrayList<>();
+            for (int i = 0; i < OPTIONS_PER_QUESTION; i++) {
+                boolean correct = i % 2 == 0;
+                rows.add(new Row(questionId, optionId, correct));
+                if (correct) {
+                    selected.add(optionId);
+                }
+                optionId++;
+            }
+            answersByQuestion.put(questionId, selected);
+        }
+
+        answerKey = QuizAnswerKey.fromRows(1L, rows);
+        rowsByQuestion = rows.stream().collect(Collectors.groupingBy(AnswerKeyRow::getQuestionId));
+    }
+
+    @Benchmark
+    public int compiledKey() {
+        return answerKey.grade(answersByQuestion);
+    }
+
+    @Benchmark
+    public int boxedSetBaseline() {
+        int correctAnswers = 0;
+        for (Map.Entry<Long, List<AnswerKeyRow>> question : rowsByQuestion.entrySet()) {
+            Set<Long> validOptionIds = question.getValue().stream()
+                    .map(AnswerKeyRow::getOptionId)
+                    .collect(Collectors.toSet());
+            for (Long selected : answersByQuestion.getOrDefault(question.getKey(), List.of())) {
+                if (!validOptionIds.contains(selected)) {
+                    throw new IllegalArgumentException("Unknown option " + selected);
+                }
+            }
+
+            Set<Long> correctOptionIds = question.getValue().stream()
+                    .filter(AnswerKeyRow::getIsCorrect)
+                    .map(AnswerKeyRow::getOptionId)
+                    .collect(Collectors.toSet());
+            Set<Long> selectedOptionIds = new HashSet<>(answersByQuestion.getOrDefault(question.getKey(), List.of()));
+            if (correctOptionIds.equals(selectedOptionIds)) {
+                correctAnswers++;
+            }
+        }
+        return correctAnswers;
+    }
+
+    private record Row(Long questionId, Long optionId, Boolean isCorrect) implements AnswerKeyRow {
+
+        @Override
+        public String getQuizTitle() {
+            return "Quiz";
+        }
+
+        @Override
+        public Long getQuestionId() {
+            return questionId;
+        }
+
+        @Override
+        public Long getOptionId() {
+            return optionId;
+        }
+
+        @Override
+        public Boolean getIsCorrect() {
+            return isCorrect;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package ru.mgubina.mashaschool.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.mgubina.mashaschool.service.CourseService;
+import ru.mgubina.mashaschool.service.QuizService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * QuizService.takeQuiz на реальной БД: проверка по кэшированному ключу и вставка попытки.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class QuizServiceBenchmark {
+
+    private static final int OPTIONS_PER_QUESTION = 4;
+
+    @Param({"10", "50"})
+    private int questions;
+
+    private BenchmarkEnvironment environment;
+    private QuizService quizService;
+    private long quizId;
+    private long studentId;
+    private Map<Long, List<Long>> answersByQuestion;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = BenchmarkEnvironment.start();
+        BenchmarkFixtures fixtures = new BenchmarkFixtures(environment);
+        quizService = environment.bean(QuizService.class);
+
+        long courseId = fixtures.course(fixtures.category(), fixtures.teacher());
+        long moduleId = environment.bean(CourseService.class).addModule(courseId, "Module", null, 1);
+        quizId = quizService.createQuiz(moduleId, "Quiz", 1800);
+        studentId = fixtures.students(1)[0];
+
+        answersByQuestion = new HashMap<>();
+        for (int q = 0; q < questions; q++) {
+            long questionId = quizService.addQuestion(quizId, "Question " + q);
+            List<Long> selected = new ArrayList<>();
+            for (int o = 0; o < OPTIONS_PER_QUESTION; o++) {
+                long optionId = quizService.addAnswerOption(questionId, "Option " + o, o == 0);
+                if (o == 0) {
+                    selected.add(optionId);
+                }
+            }
+            answersByQuestion.put(questionId, selected);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.close();
+    }
+
+    @Benchmark
+    public QuizService.TakenQuiz takeQuiz() {
+        return quizService.takeQuiz(studentId, quizId, answersByQuestion);
+    }
+}
@@ -0,0 +1,98 @@
+package ru.mgubina.mashaschool.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import ru.mgubina.mashaschool.entity.Assignment;
+import ru.mgubina.mashaschool.entity.Submission;
+import ru.mgubina.mashaschool.entity.User;
+import ru.mgubina.mashaschool.service.AssignmentService;
+import ru.mgubina.mashaschool.service.CourseService;
+import ru.mgubina.mashaschool.service.DuplicateGuard;
+import ru.mgubina.mashaschool.service.ModuleService;
+import ru.mgubina.mashaschool.service.SubmissionService;
+
+import java.time.OffsetDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SubmissionService.submit и та же отправка без БД: проверка по уже загруженному фильтру
+ * {@link DuplicateGuard} и сборка решения. Пара (студент, задание) уникальна, поэтому каждая итерация
+ * отправляет решения всех студентов пакета в новое задание.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, batchSize = SubmissionServiceBenchmark.BATCH)
+@Measurement(iterations = 5, batchSize = SubmissionServiceBenchmark.BATCH)
+@Fork(1)
+public class SubmissionServiceBenchmark {
+
+    static final int BATCH = 500;
+
+    @Param({"100", "10000"})
+    private int contentLength;
+
+    private BenchmarkEnvironment environment;
+    private SubmissionService submissionService;
+    private AssignmentService assignmentService;
+    private DuplicateGuard duplicateGuard;
+    private long lessonId;
+    private long[] studentIds;
+    private String content;
+
+    private User[] students;
+    private long assignmentId;
+    private Assignment assignment;
+    private int cursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        environment = BenchmarkEnvironment.start();
+        BenchmarkFixtures fixtures = new BenchmarkFixtures(environment);
+        submissionService = environment.bean(SubmissionService.class);
+        assignmentService = environment.bean(AssignmentService.class);
+        duplicateGuard = environment.bean(DuplicateGuard.class);
+
+        long courseId = fixtures.course(fixtures.category(), fixtures.teacher());
+        long moduleId = environment.bean(CourseService.class).addModule(courseId, "Module", null, 1);
+        lessonId = environment.bean(ModuleService.class).addLesson(moduleId, "Lesson", "Content", null);
+        studentIds = fixtures.students(BATCH);
+        content = "x".repeat(contentLength);
+
+        students = new User[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            students[i] = User.builder().id(studentIds[i]).build();
+        }
+        // Фильтр загружается из БД при первой проверке, в замер это попадать не должно
+        duplicateGuard.mayHaveSubmitted(studentIds[0], 0);
+    }
+
+    @Setup(Level.Iteration)
+    public void newAssignment() {
+        assignmentId = assignmentService.createAssignment(lessonId, "Assignment", null, 100);
+        assignment = Assignment.builder().id(assignmentId).build();
+        cursor = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.close();
+    }
+
+    @Benchmark
+    public long submit() {
+        return submissionService.submit(studentIds[cursor++], assignmentId, content);
+    }
+
+    @Benchmark
+    public Submission submitInMemory(Blackhole blackhole) {
+        int i = cursor++;
+        blackhole.consume(duplicateGuard.mayHaveSubmitted(studentIds[i], assignmentId));
+        return Submission.builder()
+                .student(students[i])
+                .assignment(assignment)
+                .content(content)
+                .submittedAt(OffsetDateTime.now())
+                .build();
+    }
+}
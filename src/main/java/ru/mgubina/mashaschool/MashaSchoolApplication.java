@@ -2,8 +2,10 @@ package ru.mgubina.mashaschool;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class MashaSchoolApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,134 @@
+package ru.mgubina.mashaschool.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Ограничение числа одновременно обрабатываемых запросов к API при работе на виртуальных потоках.
+ * Виртуальных потоков может быть тысячи, а соединений в пуле Hikari - единицы, поэтому запросы ждут
+ * в честной очереди семафора, размер которого по умолчанию равен размеру пула, а не в getConnection
+ * с его connection-timeout. Время ожидания допуска пишется в mashaschool.admission.wait,
+ * время ожидания соединения - в hikaricp.connections.acquire.
+ */
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+@Slf4j
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private final Semaphore permits;
+    private final long timeoutNanos;
+    private final Timer admittedTimer;
+    private final Timer rejectedTimer;
+
+    public AdmissionControlFilter(MeterRegistry meterRegistry,
+                                  @Value("${mashaschool.admission.permits:${spring.datasource.hikari.maximum-pool-size:10}}") int permits,
+                                  @Value("${mashaschool.admission.timeout:30s}") Duration timeout) {
+        this.permits = new Semaphore(permits, true);
+        this.timeoutNanos = timeout.toNanos();
+        this.admittedTimer = Timer.builder("mashaschool.admission.wait")
+                .description("Time spent waiting for an admission permit")
+                .tag("outcome", "admitted")
+                .register(meterRegistry);
+        this.rejectedTimer = Timer.builder("mashaschool.admission.wait")
+                .description("Time spent waiting for an admission permit")
+                .tag("outcome", "rejected")
+                .register(meterRegistry);
+        Gauge.builder("mashaschool.admission.queued", this.permits, Semaphore::getQueueLength)
+                .description("Requests waiting for an admission permit")
+                .register(meterRegistry);
+        Gauge.builder("mashaschool.admission.available", this.permits, Semaphore::availablePermits)
+                .description("Free admission permits")
+                .register(meterRegistry);
+        log.info("Admission control enabled: {} permits, timeout {}", permits, timeout);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        boolean admitted;
+        try {
+            admitted = permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServletException("Interrupted while waiting for admission", e);
+        }
+        long waited = System.nanoTime() - start;
+
+        if (!admitted) {
+            rejectedTimer.record(waited, TimeUnit.NANOSECONDS);
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Server is busy, retry later");
+            return;
+        }
+        admittedTimer.record(waited, TimeUnit.NANOSECONDS);
+
+        Permit permit = new Permit();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            // Потоковые ответы держат соединение и после выхода из фильтра - допуск отпускается по их завершении
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(permit);
+            } else {
+                permit.release();
+            }
+        }
+    }
+
+    private final class Permit implements AsyncListener {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
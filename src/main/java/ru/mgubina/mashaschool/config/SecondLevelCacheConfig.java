@@ -0,0 +1,36 @@
+package ru.mgubina.mashaschool.config;
+
+import org.ehcache.config.Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.ehcache.xml.XmlConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.io.ClassPathResource;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.io.IOException;
+import java.net.URI;
+import java.util.UUID;
+
+/**
+ * CacheManager кэша второго уровня Hibernate (регионы из ehcache.xml).
+ * Провайдер JCache хранит менеджеры по URI на всю JVM, поэтому каждому контексту приложения
+ * выдаётся свой URI: иначе два контекста с разными базами делили бы одни и те же записи.
+ */
+@org.springframework.context.annotation.Configuration
+public class SecondLevelCacheConfig {
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() throws IOException {
+        Configuration configuration = new XmlConfiguration(new ClassPathResource("ehcache.xml").getURL());
+        EhcacheCachingProvider provider = (EhcacheCachingProvider)
+                Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        return provider.getCacheManager(URI.create("urn:mashaschool:l2:" + UUID.randomUUID()), configuration);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put("hibernate.javax.cache.cache_manager", hibernateCacheManager);
+    }
+}
@@ -0,0 +1,87 @@
+package ru.mgubina.mashaschool.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время и ошибки публичных методов сервисов (@Service из пакета service): таймер mashaschool.service.calls
+ * с гистограммой для перцентилей и счётчик mashaschool.service.errors. Теги - только класс, метод,
+ * результат и класс исключения; аргументы (id курсов, тестов, студентов) в теги не попадают,
+ * поэтому число рядов ограничено числом методов.
+ * Аспект стоит снаружи транзакции: время включает получение соединения и коммит.
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 2)
+@ConditionalOnProperty(name = "mashaschool.service-metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class ServiceMetricsAspect {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Method, Timers> timers = new ConcurrentHashMap<>();
+
+    public ServiceMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("within(ru.mgubina.mashaschool.service..*) && @within(org.springframework.stereotype.Service) "
+            + "&& execution(public * *(..))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        Timers methodTimers = timers.computeIfAbsent(signature.getMethod(), this::timers);
+        long start = System.nanoTime();
+        try {
+            Object result = joinPoint.proceed();
+            methodTimers.success().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable e) {
+            methodTimers.error().record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            Counter.builder("mashaschool.service.errors")
+                    .description("Service method calls that ended with an exception")
+                    .tag("class", methodTimers.className())
+                    .tag("method", methodTimers.methodName())
+                    .tag("exception", e.getClass().getSimpleName())
+                    .register(meterRegistry)
+                    .increment();
+            throw e;
+        }
+    }
+
+    private Timers timers(Method method) {
+        String className = method.getDeclaringClass().getSimpleName();
+        return new Timers(className, method.getName(),
+                timer(className, method.getName(), "success"),
+                timer(className, method.getName(), "error"));
+    }
+
+    private Timer timer(String className, String methodName, String outcome) {
+        return Timer.builder("mashaschool.service.calls")
+                .description("Service method call latency")
+                .tag("class", className)
+                .tag("method", methodName)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                // Границы гистограммы: меньше корзин на каждый метод
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry);
+    }
+
+    private record Timers(String className, String methodName, Timer success, Timer error) {
+    }
+}
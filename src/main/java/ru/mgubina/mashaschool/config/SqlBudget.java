@@ -0,0 +1,19 @@
+package ru.mgubina.mashaschool.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Сколько SQL-запросов может выполнить транзакционный метод сервиса, включая коммит.
+ * Превышение проверяет {@link SqlStatisticsAspect}: пишет предупреждение и метрику
+ * mashaschool.sql.budget.exceeded, а с mashaschool.sql-stats.fail-on-budget-exceeded=true
+ * бросает {@link ru.mgubina.mashaschool.exception.SqlBudgetExceededException}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SqlBudget {
+
+    int statements();
+}
@@ -0,0 +1,43 @@
+package ru.mgubina.mashaschool.config;
+
+/**
+ * Счётчики работы с БД в текущем потоке: выполненные JDBC-запросы (включая JdbcTemplate),
+ * прочитанные строки и загруженные Hibernate сущности. Счётчики только растут; запрос или метод
+ * берёт снимок в начале и считает разницу в конце, поэтому вложенные измерения друг другу не мешают.
+ * Заполняются, только если включено mashaschool.sql-stats.enabled.
+ */
+public final class SqlStatistics {
+
+    public static final String STATEMENTS_HEADER = "X-SQL-Statements";
+    public static final String ROWS_HEADER = "X-SQL-Rows";
+    public static final String ENTITY_LOADS_HEADER = "X-Entity-Loads";
+
+    private static final ThreadLocal<long[]> COUNTERS = ThreadLocal.withInitial(() -> new long[3]);
+
+    private SqlStatistics() {
+    }
+
+    public static Snapshot snapshot() {
+        long[] counters = COUNTERS.get();
+        return new Snapshot(counters[0], counters[1], counters[2]);
+    }
+
+    static void statementsExecuted(int count) {
+        COUNTERS.get()[0] += count;
+    }
+
+    static void rowFetched() {
+        COUNTERS.get()[1]++;
+    }
+
+    static void entityLoaded() {
+        COUNTERS.get()[2]++;
+    }
+
+    public record Snapshot(long statements, long rows, long entityLoads) {
+
+        public Snapshot since(Snapshot start) {
+            return new Snapshot(statements - start.statements, rows - start.rows, entityLoads - start.entityLoads);
+        }
+    }
+}
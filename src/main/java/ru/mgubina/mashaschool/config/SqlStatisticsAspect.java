@@ -0,0 +1,75 @@
+package ru.mgubina.mashaschool.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import ru.mgubina.mashaschool.exception.SqlBudgetExceededException;
+
+/**
+ * Работа с БД за вызов транзакционного метода сервиса: те же метрики, что у {@link SqlStatisticsFilter},
+ * с тегами scope=method и name=Класс.метод, и проверка {@link SqlBudget}.
+ * Аспект стоит снаружи транзакции, поэтому в счёт попадают и запросы коммита (сброс изменений).
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+@ConditionalOnProperty(name = "mashaschool.sql-stats.enabled", havingValue = "true")
+@Slf4j
+public class SqlStatisticsAspect {
+
+    private final MeterRegistry meterRegistry;
+    private final boolean failOnBudgetExceeded;
+
+    public SqlStatisticsAspect(MeterRegistry meterRegistry,
+                               @Value("${mashaschool.sql-stats.fail-on-budget-exceeded:false}") boolean failOnBudgetExceeded) {
+        this.meterRegistry = meterRegistry;
+        this.failOnBudgetExceeded = failOnBudgetExceeded;
+    }
+
+    @Around("within(ru.mgubina.mashaschool.service..*) && execution(public * *(..)) && ("
+            + "@within(org.springframework.transaction.annotation.Transactional) || "
+            + "@annotation(org.springframework.transaction.annotation.Transactional))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        SqlStatistics.Snapshot start = SqlStatistics.snapshot();
+        boolean completed = false;
+        try {
+            Object result = joinPoint.proceed();
+            completed = true;
+            return result;
+        } finally {
+            SqlStatistics.Snapshot used = SqlStatistics.snapshot().since(start);
+            MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+            String name = signature.getDeclaringType().getSimpleName() + "." + signature.getName();
+            SqlStatisticsFilter.record(meterRegistry, "method", name, used);
+
+            SqlBudget budget = signature.getMethod().getAnnotation(SqlBudget.class);
+            if (budget != null && used.statements() > budget.statements()) {
+                budgetExceeded(name, budget, used, completed);
+            }
+        }
+    }
+
+    private void budgetExceeded(String name, SqlBudget budget, SqlStatistics.Snapshot used, boolean completed) {
+        Counter.builder("mashaschool.sql.budget.exceeded")
+                .description("Service method calls that executed more SQL statements than their budget")
+                .tag("name", name)
+                .register(meterRegistry)
+                .increment();
+        String message = String.format("%s executed %d SQL statements, budget is %d",
+                name, used.statements(), budget.statements());
+        log.warn(message);
+        // Исключение метода важнее превышения бюджета - его не подменяем
+        if (failOnBudgetExceeded && completed) {
+            throw new SqlBudgetExceededException(message);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package ru.mgubina.mashaschool.config;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.lifecycle.JdbcLifecycleEventListenerAdapter;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Оборачивает DataSource в datasource-proxy, чтобы {@link SqlStatistics} видел все запросы и строки,
+ * в том числе выполненные через JdbcTemplate в обход Hibernate.
+ */
+@Component
+@ConditionalOnProperty(name = "mashaschool.sql-stats.enabled", havingValue = "true")
+public class SqlStatisticsDataSourceProxy implements BeanPostProcessor {
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource dataSource)) {
+            return bean;
+        }
+        return ProxyDataSourceBuilder.create(dataSource)
+                .name(beanName)
+                .listener(new CountingListener())
+                .proxyResultSet()
+                .build();
+    }
+
+    private static final class CountingListener extends JdbcLifecycleEventListenerAdapter {
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            // Пакет из N вставок - одно обращение к БД
+            SqlStatistics.statementsExecuted(1);
+        }
+
+        @Override
+        public void afterNext(MethodExecutionContext executionContext) {
+            if (Boolean.TRUE.equals(executionContext.getResult())) {
+                SqlStatistics.rowFetched();
+            }
+        }
+    }
+}
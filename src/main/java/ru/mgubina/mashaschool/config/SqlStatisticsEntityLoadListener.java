@@ -0,0 +1,39 @@
+package ru.mgubina.mashaschool.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Считает сущности, загруженные Hibernate (из БД или кэша второго уровня), для {@link SqlStatistics}.
+ */
+@Component
+@ConditionalOnProperty(name = "mashaschool.sql-stats.enabled", havingValue = "true")
+public class SqlStatisticsEntityLoadListener implements PostLoadEventListener {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public SqlStatisticsEntityLoadListener(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    // Регистрация после конструктора: ссылка на ещё не построенный объект не уходит в Hibernate
+    @PostConstruct
+    void register() {
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .requireService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_LOAD, this);
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        SqlStatistics.entityLoaded();
+    }
+}
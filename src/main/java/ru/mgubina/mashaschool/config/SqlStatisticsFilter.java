@@ -0,0 +1,84 @@
+package ru.mgubina.mashaschool.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Работа с БД за HTTP-запрос: метрики mashaschool.sql.statements, mashaschool.sql.rows и
+ * mashaschool.hibernate.entity.loads с тегом шаблона пути, и те же числа в заголовках X-SQL-Statements,
+ * X-SQL-Rows, X-Entity-Loads. Заголовки ставит {@link SqlStatisticsResponseAdvice} перед записью тела,
+ * здесь - только если ответ ещё не отправлен (например, пустой ответ 204).
+ */
+@Component
+@ConditionalOnProperty(name = "mashaschool.sql-stats.enabled", havingValue = "true")
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+
+    static final String START_ATTRIBUTE = SqlStatisticsFilter.class.getName() + ".start";
+
+    private final MeterRegistry meterRegistry;
+
+    public SqlStatisticsFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatistics.Snapshot start = SqlStatistics.snapshot();
+        request.setAttribute(START_ATTRIBUTE, start);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            SqlStatistics.Snapshot used = SqlStatistics.snapshot().since(start);
+            if (!response.isCommitted()) {
+                setHeaders(response::setHeader, used);
+            }
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            record(meterRegistry, "request", pattern == null ? "UNKNOWN" : request.getMethod() + " " + pattern, used);
+        }
+    }
+
+    static void setHeaders(HeaderSetter headers, SqlStatistics.Snapshot used) {
+        headers.set(SqlStatistics.STATEMENTS_HEADER, Long.toString(used.statements()));
+        headers.set(SqlStatistics.ROWS_HEADER, Long.toString(used.rows()));
+        headers.set(SqlStatistics.ENTITY_LOADS_HEADER, Long.toString(used.entityLoads()));
+    }
+
+    static void record(MeterRegistry meterRegistry, String scope, String name, SqlStatistics.Snapshot used) {
+        summary(meterRegistry, "mashaschool.sql.statements", "SQL statements executed", scope, name)
+                .record(used.statements());
+        summary(meterRegistry, "mashaschool.sql.rows", "Rows read from result sets", scope, name)
+                .record(used.rows());
+        summary(meterRegistry, "mashaschool.hibernate.entity.loads", "Entities loaded by Hibernate", scope, name)
+                .record(used.entityLoads());
+    }
+
+    private static DistributionSummary summary(MeterRegistry meterRegistry, String metric, String description,
+                                               String scope, String name) {
+        return DistributionSummary.builder(metric)
+                .description(description)
+                .tag("scope", scope)
+                .tag("name", name)
+                .register(meterRegistry);
+    }
+
+    @FunctionalInterface
+    interface HeaderSetter {
+        void set(String name, String value);
+    }
+}
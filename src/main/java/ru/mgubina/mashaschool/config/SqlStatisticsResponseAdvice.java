@@ -0,0 +1,37 @@
+package ru.mgubina.mashaschool.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Заголовки со статистикой SQL для ответов с телом: после записи тела ответ уже отправлен,
+ * и {@link SqlStatisticsFilter} заголовки добавить не сможет.
+ */
+@RestControllerAdvice
+@ConditionalOnProperty(name = "mashaschool.sql-stats.enabled", havingValue = "true")
+public class SqlStatisticsResponseAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest
+                && servletRequest.getServletRequest().getAttribute(SqlStatisticsFilter.START_ATTRIBUTE)
+                        instanceof SqlStatistics.Snapshot start) {
+            SqlStatisticsFilter.setHeaders(response.getHeaders()::set, SqlStatistics.snapshot().since(start));
+        }
+        return body;
+    }
+}
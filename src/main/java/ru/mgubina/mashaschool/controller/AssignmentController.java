@@ -1,16 +1,26 @@
 package ru.mgubina.mashaschool.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.mgubina.mashaschool.dto.SubmissionCreateDto;
+import ru.mgubina.mashaschool.dto.SubmissionPageDto;
 import ru.mgubina.mashaschool.dto.SubmissionResponseDto;
 import ru.mgubina.mashaschool.entity.Submission;
+import ru.mgubina.mashaschool.repository.AssignmentRepository;
 import ru.mgubina.mashaschool.repository.SubmissionRepository;
+import ru.mgubina.mashaschool.repository.SubmissionRow;
 import ru.mgubina.mashaschool.service.SubmissionService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 @RestController
 @RequestMapping("/api/assignments")
 @RequiredArgsConstructor
@@ -18,6 +28,8 @@ public class AssignmentController {
 
     private final SubmissionService submissionService;
     private final SubmissionRepository submissionRepository;
+    private final AssignmentRepository assignmentRepository;
+    private final ObjectMapper objectMapper;
 
     @PostMapping("/{id}/submit")
     @ResponseStatus(HttpStatus.CREATED)
@@ -44,5 +56,53 @@ public class AssignmentController {
                 .feedback(submission.getFeedback())
                 .build();
     }
-}
 
+    @GetMapping("/{id}/submissions")
+    public SubmissionPageDto getSubmissions(@PathVariable Long id,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(defaultValue = "50") int limit,
+                                            @RequestParam(defaultValue = "false") boolean includeContent) {
+        SubmissionService.SubmissionPage page = submissionService.getPageByAssignment(id, cursor, limit, includeContent);
+
+        return SubmissionPageDto.builder()
+                .items(page.items().stream().map(AssignmentController::toDto).toList())
+                .nextCursor(page.nextCursor())
+                .build();
+    }
+
+    @GetMapping(value = "/{id}/submissions/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportSubmissions(@PathVariable Long id,
+                                                                   @RequestParam(defaultValue = "false") boolean includeContent) {
+        // Проверка до начала выгрузки, пока ещё можно ответить ошибкой
+        if (!assignmentRepository.existsById(id)) {
+            throw new IllegalArgumentException("Assignment not found: " + id);
+        }
+
+        StreamingResponseBody body = out -> submissionService.exportByAssignment(id, includeContent, row -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(toDto(row)));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    static SubmissionResponseDto toDto(SubmissionRow row) {
+        return SubmissionResponseDto.builder()
+                .id(row.id())
+                .studentId(row.studentId())
+                .studentName(row.studentName())
+                .assignmentId(row.assignmentId())
+                .assignmentTitle(row.assignmentTitle())
+                .content(row.content())
+                .submittedAt(row.submittedAt())
+                .score(row.score())
+                .feedback(row.feedback())
+                .build();
+    }
+}
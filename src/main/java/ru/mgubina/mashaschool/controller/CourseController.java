@@ -3,6 +3,7 @@ package ru.mgubina.mashaschool.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
 import ru.mgubina.mashaschool.dto.*;
@@ -11,12 +12,13 @@ import ru.mgubina.mashaschool.entity.Enrollment;
 import ru.mgubina.mashaschool.entity.Module;
 import ru.mgubina.mashaschool.entity.Tag;
 import ru.mgubina.mashaschool.repository.EnrollmentRepository;
-import ru.mgubina.mashaschool.repository.TagRepository;
+import ru.mgubina.mashaschool.repository.ModuleRepository;
 import ru.mgubina.mashaschool.repository.UserRepository;
+import ru.mgubina.mashaschool.service.CourseSearchService;
 import ru.mgubina.mashaschool.service.CourseService;
 import ru.mgubina.mashaschool.service.EnrollmentService;
 
-import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -27,8 +29,9 @@ public class CourseController {
 
     private final CourseService courseService;
     private final EnrollmentService enrollmentService;
-    private final TagRepository tagRepository;
+    private final CourseSearchService courseSearchService;
     private final EnrollmentRepository enrollmentRepository;
+    private final ModuleRepository moduleRepository;
     private final UserRepository userRepository;
 
     @PostMapping
@@ -41,19 +44,10 @@ public class CourseController {
                 dto.getCategoryId(),
                 dto.getTeacherId(),
                 null,
-                null
+                null,
+                dto.getTagIds() == null ? Set.of() : dto.getTagIds()
         );
 
-        if (dto.getTagIds() != null && !dto.getTagIds().isEmpty()) {
-            Set<Tag> tags = new HashSet<>();
-            for (Long tagId : dto.getTagIds()) {
-                Tag tag = tagRepository.findById(tagId)
-                        .orElseThrow(() -> new IllegalArgumentException("Tag not found: " + tagId));
-                tags.add(tag);
-            }
-            course.getTags().addAll(tags);
-        }
-
          return CourseResponseDto.builder()
                 .id(course.getId())
                 .title(course.getTitle())
@@ -68,21 +62,42 @@ public class CourseController {
                 .build();
     }
 
+    @PostMapping("/{id}/clone")
+    @ResponseStatus(HttpStatus.CREATED)
+    public CourseResponseDto cloneCourse(@PathVariable Long id, @Valid @RequestBody CourseCloneDto dto) {
+        long courseId = courseService.cloneCourse(
+                id,
+                dto.getTitle(),
+                dto.getStartDate(),
+                dto.getTeacherId(),
+                !Boolean.FALSE.equals(dto.getKeepTags())
+        ).courseId();
+
+        CourseService.CourseSummary summary = courseService.getCourseSummary(courseId);
+        return CourseResponseDto.of(summary.course(), summary.tagNames());
+    }
+
     @GetMapping("/{id}")
     public CourseResponseDto getCourse(@PathVariable Long id) {
-        Course course = courseService.getCourseWithContent(id);
+        CourseService.CourseSummary summary = courseService.getCourseSummary(id);
+        return CourseResponseDto.of(summary.course(), summary.tagNames());
+    }
 
-        return CourseResponseDto.builder()
-                .id(course.getId())
-                .title(course.getTitle())
-                .description(course.getDescription())
-                .duration(course.getDuration())
-                .startDate(course.getStartDate())
-                .categoryName(course.getCategory().getName())
-                .teacherName(course.getTeacher().getName())
-                .tagNames(course.getTags().stream()
-                        .map(Tag::getName)
-                        .collect(Collectors.toList()))
+    @GetMapping("/search")
+    public CoursePageDto searchCourses(@RequestParam(required = false) Set<Long> tagIds,
+                                       @RequestParam(defaultValue = "ANY") CourseSearchService.TagMatch match,
+                                       @RequestParam(required = false) Long categoryId,
+                                       @RequestParam(required = false) Long teacherId,
+                                       @RequestParam(required = false) String cursor,
+                                       @RequestParam(defaultValue = "20") int limit) {
+        CourseSearchService.CoursePage page = courseSearchService.search(tagIds, match, categoryId, teacherId, cursor, limit);
+
+        return CoursePageDto.builder()
+                .items(page.items().stream()
+                        .map(course -> CourseResponseDto.of(course,
+                                page.tagNames().getOrDefault(course.getId(), List.of())))
+                        .toList())
+                .nextCursor(page.nextCursor())
                 .build();
     }
 
@@ -106,6 +121,18 @@ public class CourseController {
                 .build();
     }
 
+    @PostMapping("/{id}/enroll/bulk")
+    public BulkEnrollmentResponseDto enrollStudents(@PathVariable Long id, @Valid @RequestBody BulkEnrollmentCreateDto dto) {
+        EnrollmentService.BulkEnrollmentResult result = enrollmentService.enrollStudents(id, dto.getUserIds());
+
+        return BulkEnrollmentResponseDto.builder()
+                .courseId(id)
+                .enrolledUserIds(result.enrolled())
+                .alreadyEnrolledUserIds(result.alreadyEnrolled())
+                .unknownUserIds(result.unknownUsers())
+                .build();
+    }
+
     @PostMapping("/{id}/modules")
     @ResponseStatus(HttpStatus.CREATED)
     @Transactional
@@ -117,10 +144,8 @@ public class CourseController {
                 dto.getOrderIndex()
         );
 
-        Module module = courseService.getCourseById(id).getModules().stream()
-                .filter(m -> m.getId().equals(moduleId))
-                .findFirst()
-                .orElseThrow();
+        Module module = moduleRepository.findById(moduleId)
+                .orElseThrow(() -> new IllegalArgumentException("Module not found"));
 
         return ModuleResponseDto.builder()
                 .id(module.getId())
@@ -132,6 +157,14 @@ public class CourseController {
                 .build();
     }
 
+    // С background=true курс только отмечается удалённым (202), дерево удаляется фоновым проходом
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteCourse(@PathVariable Long id,
+                                             @RequestParam(defaultValue = "false") boolean background) {
+        courseService.deleteCourse(id, background);
+        return ResponseEntity.status(background ? HttpStatus.ACCEPTED : HttpStatus.NO_CONTENT).build();
+    }
+
     @DeleteMapping("/{id}/enroll")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void unenrollStudent(@PathVariable Long id, @RequestParam Long userId) {
@@ -143,4 +176,3 @@ public class CourseController {
         }
     }
 }
-
@@ -0,0 +1,37 @@
+package ru.mgubina.mashaschool.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.mgubina.mashaschool.dto.CourseProgressDto;
+import ru.mgubina.mashaschool.dto.StudentProgressDto;
+import ru.mgubina.mashaschool.service.LessonProgressService;
+
+@RestController
+@RequestMapping("/api/courses")
+@RequiredArgsConstructor
+public class CourseProgressController {
+
+    private final LessonProgressService lessonProgressService;
+
+    @GetMapping("/{id}/progress")
+    public CourseProgressDto getProgress(@PathVariable Long id) {
+        LessonProgressService.CourseProgress progress = lessonProgressService.getCourseProgress(id);
+        return CourseProgressDto.builder()
+                .courseId(progress.courseId())
+                .lessonCount(progress.lessonCount())
+                .students(progress.students().stream()
+                        .map(student -> StudentProgressDto.builder()
+                                .studentId(student.studentId())
+                                .studentName(student.studentName())
+                                .completedLessons(student.completedLessons())
+                                .percentComplete(student.percentComplete())
+                                .nextLessonId(student.nextLessonId())
+                                .nextLessonTitle(student.nextLessonTitle())
+                                .build())
+                        .toList())
+                .build();
+    }
+}
@@ -0,0 +1,70 @@
+package ru.mgubina.mashaschool.controller;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import ru.mgubina.mashaschool.dto.CourseRatingDto;
+import ru.mgubina.mashaschool.dto.CourseReviewCreateDto;
+import ru.mgubina.mashaschool.dto.CourseReviewResponseDto;
+import ru.mgubina.mashaschool.dto.CourseReviewUpdateDto;
+import ru.mgubina.mashaschool.entity.CourseReview;
+import ru.mgubina.mashaschool.repository.CourseRatingRow;
+import ru.mgubina.mashaschool.service.CourseReviewService;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/courses")
+@RequiredArgsConstructor
+public class CourseReviewController {
+
+    private final CourseReviewService courseReviewService;
+
+    @PostMapping("/{id}/reviews")
+    @ResponseStatus(HttpStatus.CREATED)
+    public CourseReviewResponseDto addReview(@PathVariable Long id, @Valid @RequestBody CourseReviewCreateDto dto) {
+        return toDto(courseReviewService.addReview(id, dto.getStudentId(), dto.getRating(), dto.getComment()));
+    }
+
+    @PutMapping("/{id}/reviews/{reviewId}")
+    public CourseReviewResponseDto updateReview(@PathVariable Long id, @PathVariable Long reviewId,
+                                                @Valid @RequestBody CourseReviewUpdateDto dto) {
+        return toDto(courseReviewService.updateReview(id, reviewId, dto.getRating(), dto.getComment()));
+    }
+
+    @DeleteMapping("/{id}/reviews/{reviewId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void deleteReview(@PathVariable Long id, @PathVariable Long reviewId) {
+        courseReviewService.deleteReview(id, reviewId);
+    }
+
+    @GetMapping("/{id}/rating")
+    public CourseRatingDto getRating(@PathVariable Long id) {
+        CourseRatingRow rating = courseReviewService.getRating(id);
+
+        Map<Integer, Integer> histogram = new LinkedHashMap<>();
+        for (int value = 1; value <= 5; value++) {
+            histogram.put(value, rating.ratingCounts()[value - 1]);
+        }
+
+        return CourseRatingDto.builder()
+                .courseId(rating.courseId())
+                .reviewCount(rating.reviewCount())
+                .averageRating(rating.reviewCount() == 0 ? null : (double) rating.ratingSum() / rating.reviewCount())
+                .histogram(histogram)
+                .build();
+    }
+
+    private static CourseReviewResponseDto toDto(CourseReview review) {
+        return CourseReviewResponseDto.builder()
+                .id(review.getId())
+                .courseId(review.getCourse().getId())
+                .studentId(review.getStudent().getId())
+                .rating(review.getRating())
+                .comment(review.getComment())
+                .createdAt(review.getCreatedAt())
+                .build();
+    }
+}
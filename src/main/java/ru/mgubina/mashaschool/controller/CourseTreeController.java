@@ -0,0 +1,35 @@
+package ru.mgubina.mashaschool.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import ru.mgubina.mashaschool.service.CourseTreeCache;
+import ru.mgubina.mashaschool.service.CourseTreeSnapshot;
+
+@RestController
+@RequestMapping("/api/courses")
+@RequiredArgsConstructor
+public class CourseTreeController {
+
+    private final CourseTreeCache courseTreeCache;
+
+    @GetMapping(value = "/{id}/tree", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> getCourseTree(@PathVariable Long id, WebRequest request) {
+        CourseTreeSnapshot snapshot = courseTreeCache.get(id);
+
+        // 304 с ETag уже выставлен в ответе
+        if (request.checkNotModified(snapshot.etag())) {
+            return null;
+        }
+
+        return ResponseEntity.ok()
+                .eTag(snapshot.etag())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(snapshot.json());
+    }
+}
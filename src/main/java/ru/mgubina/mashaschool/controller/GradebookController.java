@@ -0,0 +1,52 @@
+package ru.mgubina.mashaschool.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.mgubina.mashaschool.dto.GradebookDto;
+import ru.mgubina.mashaschool.dto.GradebookEntryDto;
+import ru.mgubina.mashaschool.dto.GradebookStudentDto;
+import ru.mgubina.mashaschool.repository.GradebookTotalRow;
+import ru.mgubina.mashaschool.service.GradebookService;
+
+@RestController
+@RequestMapping("/api/courses")
+@RequiredArgsConstructor
+public class GradebookController {
+
+    private final GradebookService gradebookService;
+
+    @GetMapping("/{id}/gradebook")
+    public GradebookDto getGradebook(@PathVariable Long id) {
+        GradebookService.Gradebook gradebook = gradebookService.getGradebook(id);
+        return GradebookDto.builder()
+                .courseId(gradebook.courseId())
+                .students(gradebook.students().stream().map(GradebookController::toDto).toList())
+                .build();
+    }
+
+    private static GradebookStudentDto toDto(GradebookService.StudentGrades student) {
+        GradebookTotalRow total = student.total();
+        return GradebookStudentDto.builder()
+                .studentId(total.studentId())
+                .studentName(total.studentName())
+                .assignmentCount(total.assignmentCount())
+                .assignmentScore(total.assignmentScore())
+                .assignmentMaxScore(total.assignmentMaxScore())
+                .quizCount(total.quizCount())
+                .quizScore(total.quizScore())
+                .quizMaxScore(total.quizMaxScore())
+                .finalPercent(student.finalPercent())
+                .entries(student.entries().stream()
+                        .map(entry -> GradebookEntryDto.builder()
+                                .itemType(entry.itemType().name())
+                                .itemId(entry.itemId())
+                                .score(entry.score())
+                                .maxScore(entry.maxScore())
+                                .build())
+                        .toList())
+                .build();
+    }
+}
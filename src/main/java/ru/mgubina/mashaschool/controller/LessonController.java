@@ -10,6 +10,7 @@ import ru.mgubina.mashaschool.dto.AssignmentResponseDto;
 import ru.mgubina.mashaschool.entity.Assignment;
 import ru.mgubina.mashaschool.repository.AssignmentRepository;
 import ru.mgubina.mashaschool.service.AssignmentService;
+import ru.mgubina.mashaschool.service.LessonProgressService;
 
 @RestController
 @RequestMapping("/api/lessons")
@@ -18,6 +19,7 @@ public class LessonController {
 
     private final AssignmentService assignmentService;
     private final AssignmentRepository assignmentRepository;
+    private final LessonProgressService lessonProgressService;
 
     @PostMapping("/{id}/assignments")
     @ResponseStatus(HttpStatus.CREATED)
@@ -42,5 +44,16 @@ public class LessonController {
                 .lessonTitle(assignment.getLesson().getTitle())
                 .build();
     }
-}
 
+    @PutMapping("/{id}/completion")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void markCompleted(@PathVariable Long id, @RequestParam Long userId) {
+        lessonProgressService.markCompleted(id, userId);
+    }
+
+    @DeleteMapping("/{id}/completion")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void markIncomplete(@PathVariable Long id, @RequestParam Long userId) {
+        lessonProgressService.markIncomplete(id, userId);
+    }
+}
@@ -71,5 +71,10 @@ public class ModuleController {
                 .moduleTitle(lesson.getModule().getTitle())
                 .build();
     }
-}
 
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void deleteModule(@PathVariable Long id) {
+        moduleService.deleteModule(id);
+    }
+}
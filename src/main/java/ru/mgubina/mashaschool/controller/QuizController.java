@@ -3,18 +3,27 @@ package ru.mgubina.mashaschool.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import ru.mgubina.mashaschool.dto.LeaderboardEntryDto;
 import ru.mgubina.mashaschool.dto.QuestionCreateDto;
+import ru.mgubina.mashaschool.dto.QuestionImportResultDto;
 import ru.mgubina.mashaschool.dto.QuestionResponseDto;
 import ru.mgubina.mashaschool.dto.QuizSubmissionResponseDto;
+import ru.mgubina.mashaschool.dto.QuizSubmissionTicketDto;
 import ru.mgubina.mashaschool.dto.TakeQuizDto;
 import ru.mgubina.mashaschool.entity.Question;
-import ru.mgubina.mashaschool.entity.Quiz;
-import ru.mgubina.mashaschool.entity.QuizSubmission;
+import ru.mgubina.mashaschool.repository.LeaderboardRow;
 import ru.mgubina.mashaschool.repository.QuestionRepository;
+import ru.mgubina.mashaschool.service.QuestionImportService;
 import ru.mgubina.mashaschool.service.QuizService;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/quizzes")
 @RequiredArgsConstructor
@@ -24,31 +33,63 @@ public class QuizController {
 
     private final QuizService quizService;
 
+    private final QuestionImportService questionImportService;
+
     @PostMapping("/{id}/take")
     @ResponseStatus(HttpStatus.CREATED)
-    @Transactional
     public QuizSubmissionResponseDto takeQuiz(@PathVariable Long id, @Valid @RequestBody TakeQuizDto dto) {
-        QuizSubmission submission = quizService.takeQuiz(
+        QuizService.TakenQuiz taken = quizService.takeQuiz(
                 dto.getStudentId(),
                 id,
                 dto.getAnswersByQuestion()
         );
 
-        Quiz quiz = submission.getQuiz();
-        int totalQuestions = quiz.getQuestions().size();
-
         return QuizSubmissionResponseDto.builder()
-                .id(submission.getId())
-                .studentId(submission.getStudent().getId())
-                .studentName(submission.getStudent().getName())
-                .quizId(quiz.getId())
-                .quizTitle(quiz.getTitle())
-                .score(submission.getScore())
-                .totalQuestions(totalQuestions)
-                .takenAt(submission.getTakenAt())
+                .id(taken.submissionId())
+                .studentId(taken.studentId())
+                .studentName(taken.studentName())
+                .quizId(taken.quizId())
+                .quizTitle(taken.quizTitle())
+                .score(taken.score())
+                .totalQuestions(taken.totalQuestions())
+                .takenAt(taken.takenAt())
                 .build();
     }
 
+    @PostMapping("/{id}/submissions")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public QuizSubmissionTicketDto submitQuiz(@PathVariable Long id, @Valid @RequestBody TakeQuizDto dto) {
+        QuizService.SubmissionTicket ticket = quizService.submitQuiz(dto.getStudentId(), id, dto.getAnswersByQuestion());
+
+        return QuizSubmissionTicketDto.builder()
+                .submissionId(ticket.submissionId())
+                .studentId(dto.getStudentId())
+                .quizId(id)
+                .score(ticket.score())
+                .totalQuestions(ticket.totalQuestions())
+                .takenAt(ticket.takenAt())
+                .build();
+    }
+
+    @GetMapping("/{id}/leaderboard")
+    public List<LeaderboardEntryDto> getLeaderboard(@PathVariable Long id, @RequestParam(defaultValue = "10") int limit) {
+        List<LeaderboardRow> rows = quizService.getLeaderboard(id, limit);
+
+        List<LeaderboardEntryDto> leaderboard = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            LeaderboardRow row = rows.get(i);
+            leaderboard.add(LeaderboardEntryDto.builder()
+                    .rank(i + 1)
+                    .submissionId(row.submissionId())
+                    .studentId(row.studentId())
+                    .studentName(row.studentName())
+                    .score(row.score())
+                    .takenAt(row.takenAt())
+                    .build());
+        }
+        return leaderboard;
+    }
+
     @PostMapping("/{id}/questions")
     @ResponseStatus(HttpStatus.CREATED)
     @Transactional
@@ -65,5 +106,33 @@ public class QuizController {
                 .quizTitle(question.getQuiz().getTitle())
                 .build();
     }
- }
 
+    /**
+     * Импорт банка вопросов: JSON-массив {@link ru.mgubina.mashaschool.dto.QuestionBankItemDto}
+     * или CSV {@code text,type,option,correct,...}. Тело читается потоком, без загрузки в память целиком.
+     */
+    @PostMapping(value = "/{id}/questions/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public QuestionImportResultDto importQuestionsJson(@PathVariable Long id, InputStream body) throws IOException {
+        return toDto(questionImportService.importJson(id, body));
+    }
+
+    @PostMapping(value = "/{id}/questions/import", consumes = "text/csv")
+    public QuestionImportResultDto importQuestionsCsv(@PathVariable Long id, InputStream body) throws IOException {
+        return toDto(questionImportService.importCsv(id, body));
+    }
+
+    private static QuestionImportResultDto toDto(QuestionImportService.ImportResult result) {
+        return QuestionImportResultDto.builder()
+                .quizId(result.quizId())
+                .importedCount(result.importedCount())
+                .failedCount(result.failedCount())
+                .completed(result.completed())
+                .errors(result.errors().stream()
+                        .map(error -> QuestionImportResultDto.RowError.builder()
+                                .row(error.row())
+                                .message(error.message())
+                                .build())
+                        .toList())
+                .build();
+    }
+}
@@ -0,0 +1,33 @@
+package ru.mgubina.mashaschool.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import ru.mgubina.mashaschool.dto.SearchHitDto;
+import ru.mgubina.mashaschool.service.SearchService;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/search")
+@RequiredArgsConstructor
+public class SearchController {
+
+    private final SearchService searchService;
+
+    @GetMapping
+    public List<SearchHitDto> search(@RequestParam("q") String query,
+                                     @RequestParam(defaultValue = "20") int limit) {
+        return searchService.search(query, limit).stream()
+                .map(hit -> SearchHitDto.builder()
+                        .type(hit.kind().name())
+                        .id(hit.id())
+                        .title(hit.title())
+                        .courseId(hit.courseId())
+                        .rank(hit.rank())
+                        .build())
+                .toList();
+    }
+}
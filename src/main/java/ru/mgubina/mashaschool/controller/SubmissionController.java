@@ -5,6 +5,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import ru.mgubina.mashaschool.dto.GradeDto;
+import ru.mgubina.mashaschool.dto.SubmissionPageDto;
 import ru.mgubina.mashaschool.service.SubmissionService;
 
 @RestController
@@ -14,6 +15,19 @@ public class SubmissionController {
 
     private final SubmissionService submissionService;
 
+    @GetMapping
+    public SubmissionPageDto getStudentSubmissions(@RequestParam Long studentId,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "50") int limit,
+                                                   @RequestParam(defaultValue = "false") boolean includeContent) {
+        SubmissionService.SubmissionPage page = submissionService.getPageByStudent(studentId, cursor, limit, includeContent);
+
+        return SubmissionPageDto.builder()
+                .items(page.items().stream().map(AssignmentController::toDto).toList())
+                .nextCursor(page.nextCursor())
+                .build();
+    }
+
     @PostMapping("/{id}/grade")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void gradeSubmission(@PathVariable Long id, @Valid @RequestBody GradeDto dto) {
@@ -0,0 +1,22 @@
+package ru.mgubina.mashaschool.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkEnrollmentCreateDto {
+
+    @NotEmpty(message = "User IDs are required")
+    @Size(max = 50000, message = "No more than 50000 users per request")
+    private List<@NotNull(message = "User ID must not be null") Long> userIds;
+}
@@ -0,0 +1,20 @@
+package ru.mgubina.mashaschool.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkEnrollmentResponseDto {
+
+    private Long courseId;
+    private List<Long> enrolledUserIds;
+    private List<Long> alreadyEnrolledUserIds;
+    private List<Long> unknownUserIds;
+}
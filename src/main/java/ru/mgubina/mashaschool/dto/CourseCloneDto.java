@@ -0,0 +1,31 @@
+package ru.mgubina.mashaschool.dto;
+
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseCloneDto {
+
+    // null - название исходного курса
+    @Size(min = 1, max = 255, message = "Title must be from 1 to 255 characters")
+    private String title;
+
+    // null - дата начала исходного курса
+    private LocalDate startDate;
+
+    // null - тот же преподаватель
+    @Positive(message = "Teacher ID must be positive")
+    private Long teacherId;
+
+    @Builder.Default
+    private Boolean keepTags = true;
+}
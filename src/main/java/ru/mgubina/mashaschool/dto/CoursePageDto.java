@@ -0,0 +1,18 @@
+package ru.mgubina.mashaschool.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CoursePageDto {
+
+    private List<CourseResponseDto> items;
+    private String nextCursor;
+}
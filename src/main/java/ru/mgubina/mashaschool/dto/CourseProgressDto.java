@@ -0,0 +1,19 @@
+package ru.mgubina.mashaschool.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseProgressDto {
+
+    private Long courseId;
+    private Integer lessonCount;
+    private List<StudentProgressDto> students;
+}
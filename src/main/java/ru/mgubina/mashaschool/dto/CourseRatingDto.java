@@ -0,0 +1,22 @@
+package ru.mgubina.mashaschool.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseRatingDto {
+
+    private Long courseId;
+    private Integer reviewCount;
+    // null, пока отзывов нет
+    private Double averageRating;
+    // оценка -> число отзывов с ней
+    private Map<Integer, Integer> histogram;
+}
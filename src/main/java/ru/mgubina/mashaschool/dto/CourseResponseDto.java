@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import ru.mgubina.mashaschool.repository.CourseSummaryRow;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -22,5 +23,18 @@ public class CourseResponseDto {
     private String categoryName;
     private String teacherName;
     private List<String> tagNames;
+
+    public static CourseResponseDto of(CourseSummaryRow course, List<String> tagNames) {
+        return CourseResponseDto.builder()
+                .id(course.getId())
+                .title(course.getTitle())
+                .description(course.getDescription())
+                .duration(course.getDuration())
+                .startDate(course.getStartDate())
+                .categoryName(course.getCategoryName())
+                .teacherName(course.getTeacherName())
+                .tagNames(tagNames)
+                .build();
+    }
 }
 
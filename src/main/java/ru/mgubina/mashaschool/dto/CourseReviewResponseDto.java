@@ -0,0 +1,22 @@
+package ru.mgubina.mashaschool.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseReviewResponseDto {
+
+    private Long id;
+    private Long courseId;
+    private Long studentId;
+    private Integer rating;
+    private String comment;
+    private OffsetDateTime createdAt;
+}
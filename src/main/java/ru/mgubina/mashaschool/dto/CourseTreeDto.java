@@ -0,0 +1,24 @@
+package ru.mgubina.mashaschool.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Программа курса: модули по orderIndex, уроки с заданиями и тест модуля.
+ * Неизменяемая, чтобы снимок можно было отдавать параллельно и дополнять копированием.
+ */
+public record CourseTreeDto(Long id, String title, List<ModuleNode> modules) {
+
+    public record ModuleNode(Long id, String title, String description, Integer orderIndex,
+                             QuizNode quiz, List<LessonNode> lessons) {
+    }
+
+    public record LessonNode(Long id, String title, String videoUrl, List<AssignmentNode> assignments) {
+    }
+
+    public record AssignmentNode(Long id, String title, LocalDate dueDate, Integer maxScore) {
+    }
+
+    public record QuizNode(Long id, String title, Integer timeLimit) {
+    }
+}
@@ -0,0 +1,19 @@
+package ru.mgubina.mashaschool.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradebookEntryDto {
+
+    // ASSIGNMENT или QUIZ
+    private String itemType;
+    private Long itemId;
+    private Integer score;
+    private Integer maxScore;
+}
@@ -0,0 +1,28 @@
+package ru.mgubina.mashaschool.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GradebookStudentDto {
+
+    private Long studentId;
+    private String studentName;
+    private Integer assignmentCount;
+    // баллы и максимум - по заданиям с заданным max_score
+    private Long assignmentScore;
+    private Long assignmentMaxScore;
+    private Integer quizCount;
+    private Long quizScore;
+    private Long quizMaxScore;
+    // взвешенный итог в процентах, null - пока нечего оценивать
+    private Double finalPercent;
+    private List<GradebookEntryDto> entries;
+}
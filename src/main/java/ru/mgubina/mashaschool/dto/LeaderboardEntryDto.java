@@ -0,0 +1,22 @@
+package ru.mgubina.mashaschool.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderboardEntryDto {
+
+    private Integer rank;
+    private Long submissionId;
+    private Long studentId;
+    private String studentName;
+    private Integer score;
+    private OffsetDateTime takenAt;
+}
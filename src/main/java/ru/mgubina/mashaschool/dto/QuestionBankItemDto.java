@@ -0,0 +1,47 @@
+package ru.mgubina.mashaschool.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Вопрос из импортируемого банка вопросов.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuestionBankItemDto {
+
+    @NotBlank(message = "Text is required")
+    private String text;
+
+    // null - тип не указан
+    @Pattern(regexp = "SINGLE_CHOICE|MULTIPLE_CHOICE", message = "Type must be SINGLE_CHOICE or MULTIPLE_CHOICE")
+    private String type;
+
+    @NotNull(message = "Options are required")
+    @Size(min = 2, max = 50, message = "A question needs from 2 to 50 options")
+    private List<@NotNull(message = "Option must not be null") @Valid Option> options;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Option {
+
+        @NotBlank(message = "Option text is required")
+        private String text;
+
+        @NotNull(message = "Option correct flag is required")
+        private Boolean correct;
+    }
+}
@@ -0,0 +1,33 @@
+package ru.mgubina.mashaschool.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuestionImportResultDto {
+
+    private Long quizId;
+    private Integer importedCount;
+    private Integer failedCount;
+    // false - файл оборвался или испорчен, строки после ошибки не читались
+    private Boolean completed;
+    // не больше первых 1000 ошибок
+    private List<RowError> errors;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+
+        private Integer row;
+        private String message;
+    }
+}
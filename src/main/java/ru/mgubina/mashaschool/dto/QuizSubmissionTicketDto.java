@@ -0,0 +1,22 @@
+package ru.mgubina.mashaschool.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class QuizSubmissionTicketDto {
+
+    private Long submissionId;
+    private Long studentId;
+    private Long quizId;
+    private Integer score;
+    private Integer totalQuestions;
+    private OffsetDateTime takenAt;
+}
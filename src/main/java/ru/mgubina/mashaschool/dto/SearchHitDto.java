@@ -0,0 +1,19 @@
+package ru.mgubina.mashaschool.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchHitDto {
+
+    private String type;
+    private Long id;
+    private String title;
+    private Long courseId;
+    private Float rank;
+}
@@ -0,0 +1,22 @@
+package ru.mgubina.mashaschool.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StudentProgressDto {
+
+    private Long studentId;
+    private String studentName;
+    private Integer completedLessons;
+    // null, пока в курсе нет уроков
+    private Double percentComplete;
+    // первый непройденный урок в порядке курса, null - пройдены все
+    private Long nextLessonId;
+    private String nextLessonTitle;
+}
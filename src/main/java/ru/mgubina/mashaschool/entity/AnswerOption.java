@@ -14,7 +14,8 @@ import lombok.*;
 public class AnswerOption {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "answer_option_seq")
+    @SequenceGenerator(name = "answer_option_seq", sequenceName = "answer_option_seq", allocationSize = 50)
     @EqualsAndHashCode.Include
     private Long id;
 
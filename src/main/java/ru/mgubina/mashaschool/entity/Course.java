@@ -2,6 +2,9 @@ package ru.mgubina.mashaschool.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -9,8 +12,12 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+/**
+ * Курс с отметкой deleted_at ждёт фонового удаления (V10) и для приложения уже не существует.
+ */
 @Entity
 @Table(name = "course")
+@SQLRestriction("deleted_at is null")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -20,7 +27,8 @@ import java.util.Set;
 public class Course {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "course_seq")
+    @SequenceGenerator(name = "course_seq", sequenceName = "course_seq", allocationSize = 50)
     @EqualsAndHashCode.Include
     private Long id;
 
@@ -55,6 +63,7 @@ public class Course {
     private List<CourseReview> reviews = new ArrayList<>();
 
     @ManyToMany(fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "course_tags")
     @JoinTable(
         name = "course_tag",
         joinColumns = @JoinColumn(name = "course_id"),
@@ -17,7 +17,8 @@ import java.util.List;
 public class Module {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "module_seq")
+    @SequenceGenerator(name = "module_seq", sequenceName = "module_seq", allocationSize = 50)
     @EqualsAndHashCode.Include
     private Long id;
 
@@ -17,7 +17,8 @@ import java.util.List;
 public class Quiz {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "quiz_seq")
+    @SequenceGenerator(name = "quiz_seq", sequenceName = "quiz_seq", allocationSize = 50)
     @EqualsAndHashCode.Include
     private Long id;
 
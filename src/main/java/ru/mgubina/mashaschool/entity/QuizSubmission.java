@@ -16,7 +16,8 @@ import java.time.OffsetDateTime;
 public class QuizSubmission {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "quiz_submission_seq")
+    @SequenceGenerator(name = "quiz_submission_seq", sequenceName = "quiz_submission_seq", allocationSize = 50)
     @EqualsAndHashCode.Include
     private Long id;
 
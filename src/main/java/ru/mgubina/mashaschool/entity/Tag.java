@@ -2,12 +2,15 @@ package ru.mgubina.mashaschool.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
 @Table(name = "tag")
+@Cache(usage = CacheConcurrencyStrategy.NONSTRICT_READ_WRITE, region = "tag")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -17,7 +20,8 @@ import java.util.Set;
 public class Tag {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tag_seq")
+    @SequenceGenerator(name = "tag_seq", sequenceName = "tag_seq", allocationSize = 50)
     @EqualsAndHashCode.Include
     private Long id;
 
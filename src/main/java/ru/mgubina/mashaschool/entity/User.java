@@ -2,12 +2,15 @@ package ru.mgubina.mashaschool.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
 @Table(name = "app_user")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "app_user")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -17,7 +20,8 @@ import java.util.List;
 public class User {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "app_user_seq")
+    @SequenceGenerator(name = "app_user_seq", sequenceName = "app_user_seq", allocationSize = 50)
     @EqualsAndHashCode.Include
     private Long id;
 
@@ -0,0 +1,8 @@
+package ru.mgubina.mashaschool.exception;
+
+public class SqlBudgetExceededException extends RuntimeException {
+
+    public SqlBudgetExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package ru.mgubina.mashaschool.exception;
+
+public class SubmissionIntakeUnavailableException extends RuntimeException {
+
+    public SubmissionIntakeUnavailableException(String message) {
+        super(message);
+    }
+}
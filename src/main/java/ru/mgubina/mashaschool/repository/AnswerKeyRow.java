@@ -0,0 +1,12 @@
+package ru.mgubina.mashaschool.repository;
+
+public interface AnswerKeyRow {
+
+    String getQuizTitle();
+
+    Long getQuestionId();
+
+    Long getOptionId();
+
+    Boolean getIsCorrect();
+}
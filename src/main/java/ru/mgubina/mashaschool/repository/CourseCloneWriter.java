@@ -0,0 +1,173 @@
+package ru.mgubina.mashaschool.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Копирование дерева курса (модули, уроки, задания, тесты, вопросы, варианты ответов) запросами INSERT ... SELECT.
+ * Для каждой таблицы читаются только id исходных строк, новые id выдаются блоками из последовательности,
+ * а пары (старый id, новый id) передаются массивами: строки и ссылки на родителей переписываются в БД.
+ * Число запросов не зависит от размера курса. Решения, попытки, записи на курс и отзывы не копируются.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CourseCloneWriter {
+
+    private static final String INSERT_COURSE_SQL = """
+            insert into course (id, title, description, duration, start_date, category_id, teacher_id, next_lesson_ordinal)
+            select ?, coalesce(?, title), description, duration, coalesce(?, start_date), category_id,
+                   coalesce(?, teacher_id), next_lesson_ordinal
+            from course
+            where id = ?
+            """;
+
+    private static final String INSERT_TAGS_SQL = """
+            insert into course_tag (course_id, tag_id)
+            select ?, tag_id
+            from course_tag
+            where course_id = ?
+            returning tag_id
+            """;
+
+    private static final String INSERT_MODULES_SQL = """
+            insert into module (id, course_id, title, description, order_index)
+            select ids.new_id, ?, s.title, s.description, s.order_index
+            from unnest(?::bigint[], ?::bigint[]) as ids(old_id, new_id)
+            join module s on s.id = ids.old_id
+            """;
+
+    // Номера уроков в прогрессе сохраняются: у копии тот же счётчик курса
+    private static final String INSERT_LESSONS_SQL = """
+            insert into lesson (id, module_id, title, content, video_url, progress_ordinal)
+            select ids.new_id, parents.new_id, s.title, s.content, s.video_url, s.progress_ordinal
+            from unnest(?::bigint[], ?::bigint[]) as ids(old_id, new_id)
+            join lesson s on s.id = ids.old_id
+            join unnest(?::bigint[], ?::bigint[]) as parents(old_id, new_id) on parents.old_id = s.module_id
+            """;
+
+    private static final String INSERT_ASSIGNMENTS_SQL = """
+            insert into assignment (id, lesson_id, title, description, due_date, max_score)
+            select ids.new_id, parents.new_id, s.title, s.description, s.due_date, s.max_score
+            from unnest(?::bigint[], ?::bigint[]) as ids(old_id, new_id)
+            join assignment s on s.id = ids.old_id
+            join unnest(?::bigint[], ?::bigint[]) as parents(old_id, new_id) on parents.old_id = s.lesson_id
+            """;
+
+    private static final String INSERT_QUIZZES_SQL = """
+            insert into quiz (id, module_id, title, time_limit)
+            select ids.new_id, parents.new_id, s.title, s.time_limit
+            from unnest(?::bigint[], ?::bigint[]) as ids(old_id, new_id)
+            join quiz s on s.id = ids.old_id
+            join unnest(?::bigint[], ?::bigint[]) as parents(old_id, new_id) on parents.old_id = s.module_id
+            """;
+
+    private static final String INSERT_QUESTIONS_SQL = """
+            insert into question (id, quiz_id, text, type)
+            select ids.new_id, parents.new_id, s.text, s.type
+            from unnest(?::bigint[], ?::bigint[]) as ids(old_id, new_id)
+            join question s on s.id = ids.old_id
+            join unnest(?::bigint[], ?::bigint[]) as parents(old_id, new_id) on parents.old_id = s.quiz_id
+            """;
+
+    private static final String INSERT_OPTIONS_SQL = """
+            insert into answer_option (id, question_id, text, is_correct)
+            select ids.new_id, parents.new_id, s.text, s.is_correct
+            from unnest(?::bigint[], ?::bigint[]) as ids(old_id, new_id)
+            join answer_option s on s.id = ids.old_id
+            join unnest(?::bigint[], ?::bigint[]) as parents(old_id, new_id) on parents.old_id = s.question_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceIdAllocator idAllocator;
+
+    /**
+     * @param title     null - как у исходного курса
+     * @param startDate null - как у исходного курса
+     * @param teacherId null - тот же преподаватель
+     * @return id копии и теги, перенесённые в неё
+     */
+    public ClonedCourse cloneCourse(long sourceId, String title, LocalDate startDate, Long teacherId, boolean keepTags) {
+        long courseId = idAllocator.allocate("course_seq", 1)[0];
+        jdbcTemplate.update(INSERT_COURSE_SQL, courseId, title, startDate, teacherId, sourceId);
+        List<Long> tagIds = keepTags
+                ? jdbcTemplate.queryForList(INSERT_TAGS_SQL, Long.class, courseId, sourceId)
+                : List.of();
+
+        IdMap modules = remap("module_seq", "select id from module where course_id = ? order by id", sourceId);
+        jdbcTemplate.update(INSERT_MODULES_SQL, courseId, modules.oldIds(), modules.newIds());
+
+        IdMap lessons = remap("lesson_seq", """
+                select l.id from lesson l
+                join module m on m.id = l.module_id
+                where m.course_id = ? order by l.id
+                """, sourceId);
+        copy(INSERT_LESSONS_SQL, lessons, modules);
+
+        IdMap assignments = remap("assignment_seq", """
+                select a.id from assignment a
+                join lesson l on l.id = a.lesson_id
+                join module m on m.id = l.module_id
+                where m.course_id = ? order by a.id
+                """, sourceId);
+        copy(INSERT_ASSIGNMENTS_SQL, assignments, lessons);
+
+        IdMap quizzes = remap("quiz_seq", """
+                select q.id from quiz q
+                join module m on m.id = q.module_id
+                where m.course_id = ? order by q.id
+                """, sourceId);
+        copy(INSERT_QUIZZES_SQL, quizzes, modules);
+
+        IdMap questions = remap("question_seq", """
+                select qn.id from question qn
+                join quiz q on q.id = qn.quiz_id
+                join module m on m.id = q.module_id
+                where m.course_id = ? order by qn.id
+                """, sourceId);
+        copy(INSERT_QUESTIONS_SQL, questions, quizzes);
+
+        IdMap options = remap("answer_option_seq", """
+                select o.id from answer_option o
+                join question qn on qn.id = o.question_id
+                join quiz q on q.id = qn.quiz_id
+                join module m on m.id = q.module_id
+                where m.course_id = ? order by o.id
+                """, sourceId);
+        copy(INSERT_OPTIONS_SQL, options, questions);
+
+        return new ClonedCourse(courseId, tagIds, modules.size(), lessons.size(), assignments.size(),
+                quizzes.size(), questions.size(), options.size());
+    }
+
+    private IdMap remap(String sequenceName, String selectIdsSql, long sourceId) {
+        List<Long> oldIds = jdbcTemplate.queryForList(selectIdsSql, Long.class, sourceId);
+        long[] newIds = idAllocator.allocate(sequenceName, oldIds.size());
+        Long[] boxed = new Long[newIds.length];
+        for (int i = 0; i < newIds.length; i++) {
+            boxed[i] = newIds[i];
+        }
+        return new IdMap(oldIds.toArray(Long[]::new), boxed);
+    }
+
+    private void copy(String insertSql, IdMap rows, IdMap parents) {
+        if (rows.size() == 0) {
+            return;
+        }
+        jdbcTemplate.update(insertSql, rows.oldIds(), rows.newIds(), parents.oldIds(), parents.newIds());
+    }
+
+    private record IdMap(Long[] oldIds, Long[] newIds) {
+
+        int size() {
+            return oldIds.length;
+        }
+    }
+
+    public record ClonedCourse(long courseId, List<Long> tagIds, int modules, int lessons, int assignments,
+                               int quizzes, int questions, int answerOptions) {
+    }
+}
@@ -0,0 +1,11 @@
+package ru.mgubina.mashaschool.repository;
+
+/**
+ * Сводка оценок курса. ratingCounts[i] - число оценок i + 1.
+ */
+public record CourseRatingRow(long courseId, int reviewCount, long ratingSum, int[] ratingCounts) {
+
+    public static CourseRatingRow empty(long courseId) {
+        return new CourseRatingRow(courseId, 0, 0, new int[5]);
+    }
+}
@@ -0,0 +1,91 @@
+package ru.mgubina.mashaschool.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * Таблица course_rating через JDBC. Изменения - приращения в одном upsert, поэтому параллельные отзывы
+ * к одному курсу не теряют друг друга: строка сводки блокируется только на время своей транзакции.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CourseRatingStore {
+
+    private static final String APPLY_DELTA_SQL = """
+            insert into course_rating (course_id, review_count, rating_sum, rating_1, rating_2, rating_3, rating_4, rating_5)
+            values (?, ?, ?, ?, ?, ?, ?, ?)
+            on conflict (course_id) do update set
+                review_count = course_rating.review_count + excluded.review_count,
+                rating_sum = course_rating.rating_sum + excluded.rating_sum,
+                rating_1 = course_rating.rating_1 + excluded.rating_1,
+                rating_2 = course_rating.rating_2 + excluded.rating_2,
+                rating_3 = course_rating.rating_3 + excluded.rating_3,
+                rating_4 = course_rating.rating_4 + excluded.rating_4,
+                rating_5 = course_rating.rating_5 + excluded.rating_5
+            """;
+
+    private static final String RECOMPUTE_SQL = """
+            insert into course_rating (course_id, review_count, rating_sum, rating_1, rating_2, rating_3, rating_4, rating_5)
+            select course_id, count(*), sum(rating),
+                   count(*) filter (where rating = 1), count(*) filter (where rating = 2),
+                   count(*) filter (where rating = 3), count(*) filter (where rating = 4),
+                   count(*) filter (where rating = 5)
+            from course_review
+            where rating between 1 and 5
+            group by course_id
+            on conflict (course_id) do update set
+                review_count = excluded.review_count,
+                rating_sum = excluded.rating_sum,
+                rating_1 = excluded.rating_1,
+                rating_2 = excluded.rating_2,
+                rating_3 = excluded.rating_3,
+                rating_4 = excluded.rating_4,
+                rating_5 = excluded.rating_5
+            """;
+
+    private static final String DELETE_ORPHANS_SQL = """
+            delete from course_rating r
+            where not exists (select 1 from course_review v where v.course_id = r.course_id and v.rating between 1 and 5)
+            """;
+
+    private static final RowMapper<CourseRatingRow> ROW_MAPPER = (rs, rowNum) -> new CourseRatingRow(
+            rs.getLong("course_id"),
+            rs.getInt("review_count"),
+            rs.getLong("rating_sum"),
+            new int[]{rs.getInt("rating_1"), rs.getInt("rating_2"), rs.getInt("rating_3"),
+                    rs.getInt("rating_4"), rs.getInt("rating_5")}
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public Optional<CourseRatingRow> find(long courseId) {
+        return jdbcTemplate.query("select * from course_rating where course_id = ?", ROW_MAPPER, courseId)
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * @param ratingCountDeltas приращения числа оценок 1-5
+     */
+    public void applyDelta(long courseId, int reviewCountDelta, long ratingSumDelta, int[] ratingCountDeltas) {
+        jdbcTemplate.update(APPLY_DELTA_SQL, courseId, reviewCountDelta, ratingSumDelta,
+                ratingCountDeltas[0], ratingCountDeltas[1], ratingCountDeltas[2],
+                ratingCountDeltas[3], ratingCountDeltas[4]);
+    }
+
+    /**
+     * Пересчёт всех сводок одним сгруппированным запросом. Отзывы на это время блокируются на запись,
+     * иначе приращение, закоммиченное во время пересчёта, было бы затёрто старым значением.
+     *
+     * @return число курсов с отзывами
+     */
+    public int recomputeAll() {
+        jdbcTemplate.execute("lock table course_review in share mode");
+        jdbcTemplate.update(DELETE_ORPHANS_SQL);
+        return jdbcTemplate.update(RECOMPUTE_SQL);
+    }
+}
@@ -1,14 +1,73 @@
 package ru.mgubina.mashaschool.repository;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.mgubina.mashaschool.entity.Course;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface CourseRepository extends JpaRepository<Course, Long> {
 
     List<Course> findByCategoryId(Long categoryId);
 
     List<Course> findByTeacherId(Long teacherId);
-}
 
+    @Query("""
+            select c.id as id, c.title as title, c.description as description, c.duration as duration,
+                   c.startDate as startDate, cat.name as categoryName, t.name as teacherName
+            from Course c join c.category cat join c.teacher t
+            where c.id = :courseId
+            """)
+    Optional<CourseSummaryRow> findSummaryById(@Param("courseId") Long courseId);
+
+    @Query("""
+            select c.id as id, c.title as title, c.description as description, c.duration as duration,
+                   c.startDate as startDate, cat.name as categoryName, t.name as teacherName
+            from Course c join c.category cat join c.teacher t
+            where (:categoryId is null or cat.id = :categoryId)
+              and (:teacherId is null or t.id = :teacherId)
+              and (:afterId is null or c.id > :afterId)
+            order by c.id
+            """)
+    List<CourseSummaryRow> searchSummaries(@Param("categoryId") Long categoryId,
+                                           @Param("teacherId") Long teacherId,
+                                           @Param("afterId") Long afterId,
+                                           Limit limit);
+
+    @Query("""
+            select c.id as id, c.title as title, c.description as description, c.duration as duration,
+                   c.startDate as startDate, cat.name as categoryName, t.name as teacherName
+            from Course c join c.category cat join c.teacher t
+            where c.id in :courseIds
+              and (:categoryId is null or cat.id = :categoryId)
+              and (:teacherId is null or t.id = :teacherId)
+            order by c.id
+            """)
+    List<CourseSummaryRow> searchSummariesAmong(@Param("courseIds") Collection<Long> courseIds,
+                                                @Param("categoryId") Long categoryId,
+                                                @Param("teacherId") Long teacherId);
+
+    @Query("select c.id as courseId, t.name as tagName from Course c join c.tags t where c.id in :courseIds order by t.name")
+    List<CourseTagNameRow> findTagNamesByIds(@Param("courseIds") Collection<Long> courseIds);
+
+    @Query("select t.name from Course c join c.tags t where c.id = :courseId order by t.name")
+    List<String> findTagNamesById(@Param("courseId") Long courseId);
+
+    @Query("select c.title from Course c where c.id = :courseId")
+    Optional<String> findTitleById(@Param("courseId") Long courseId);
+
+    @Query("""
+            select m.id as moduleId, m.title as moduleTitle, m.description as moduleDescription,
+                   m.orderIndex as orderIndex, z.id as quizId, z.title as quizTitle, z.timeLimit as timeLimit,
+                   l.id as lessonId, l.title as lessonTitle, l.videoUrl as videoUrl,
+                   a.id as assignmentId, a.title as assignmentTitle, a.dueDate as dueDate, a.maxScore as maxScore
+            from Module m left join m.quiz z left join m.lessons l left join l.assignments a
+            where m.course.id = :courseId
+            order by m.orderIndex nulls last, m.id, l.id, a.id
+            """)
+    List<CourseTreeRow> findTreeRows(@Param("courseId") Long courseId);
+}
@@ -1,14 +1,22 @@
 package ru.mgubina.mashaschool.repository;
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.mgubina.mashaschool.entity.CourseReview;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface CourseReviewRepository extends JpaRepository<CourseReview, Long> {
 
     List<CourseReview> findByCourseId(Long courseId);
 
     List<CourseReview> findByStudentId(Long studentId);
-}
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select r from CourseReview r where r.id = :id")
+    Optional<CourseReview> findByIdForUpdate(@Param("id") Long id);
+}
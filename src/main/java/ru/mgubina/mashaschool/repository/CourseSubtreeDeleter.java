@@ -0,0 +1,102 @@
+package ru.mgubina.mashaschool.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Удаление дерева курса или модуля через JDBC. Таблицы очищаются от листьев к корню: варианты ответов, вопросы,
+ * попытки тестов, тесты, решения, задания, уроки, затем модули и строки самого курса. Шаг - запрос DELETE
+ * не более чем limit строк одной таблицы; вызывающий повторяет его, пока порция не удалит ни одной строки.
+ * После любой порции внешние ключи соблюдены, поэтому прерванное удаление можно просто начать заново.
+ */
+@Repository
+@RequiredArgsConstructor
+public class CourseSubtreeDeleter {
+
+    // Строки выбираются по ctid: один шаблон подходит и таблицам с составным ключом (course_tag, gradebook_*)
+    private static final String DELETE_CHUNK_SQL =
+            "delete from %1$s where ctid = any(array(select ctid from %1$s where %2$s limit ?))";
+
+    private static final List<Step> COURSE_STEPS = courseSteps("select id from module where course_id = ?");
+    private static final List<Step> MODULE_STEPS = moduleSteps("select id from module where id = ?");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public record Step(String table, String sql) {
+    }
+
+    public List<Step> courseSteps() {
+        return COURSE_STEPS;
+    }
+
+    public List<Step> moduleSteps() {
+        return MODULE_STEPS;
+    }
+
+    /**
+     * @return число удалённых строк; 0 - строк шага больше нет
+     */
+    public int deleteChunk(Step step, long rootId, int limit) {
+        return jdbcTemplate.update(step.sql(), rootId, limit);
+    }
+
+    public boolean markCourseDeleted(long courseId) {
+        return jdbcTemplate.update("update course set deleted_at = now() where id = ? and deleted_at is null",
+                courseId) == 1;
+    }
+
+    public List<Long> findDeletedCourseIds() {
+        return jdbcTemplate.queryForList(
+                "select id from course where deleted_at is not null order by deleted_at, id", Long.class);
+    }
+
+    public List<Long> findQuizIds(long courseId) {
+        return jdbcTemplate.queryForList(
+                "select q.id from quiz q join module m on m.id = q.module_id where m.course_id = ?",
+                Long.class, courseId);
+    }
+
+    private static List<Step> courseSteps(String modules) {
+        List<Step> steps = new ArrayList<>(subtreeSteps(modules));
+        steps.add(step("module", "course_id = ?"));
+        steps.add(step("enrollment", "course_id = ?"));
+        steps.add(step("course_review", "course_id = ?"));
+        steps.add(step("course_tag", "course_id = ?"));
+        steps.add(step("gradebook_entry", "course_id = ?"));
+        steps.add(step("gradebook_total", "course_id = ?"));
+        steps.add(step("course_rating", "course_id = ?"));
+        // Строка курса удаляется только после отметки deleted_at, без неё шаг ничего не делает
+        steps.add(step("course", "id = ? and deleted_at is not null"));
+        return List.copyOf(steps);
+    }
+
+    private static List<Step> moduleSteps(String modules) {
+        List<Step> steps = new ArrayList<>(subtreeSteps(modules));
+        steps.add(step("module", "id = ?"));
+        return List.copyOf(steps);
+    }
+
+    private static List<Step> subtreeSteps(String modules) {
+        String quizzes = "select id from quiz where module_id in (" + modules + ")";
+        String questions = "select id from question where quiz_id in (" + quizzes + ")";
+        String lessons = "select id from lesson where module_id in (" + modules + ")";
+        String assignments = "select id from assignment where lesson_id in (" + lessons + ")";
+        return List.of(
+                step("answer_option", "question_id in (" + questions + ")"),
+                step("question", "quiz_id in (" + quizzes + ")"),
+                step("quiz_submission", "quiz_id in (" + quizzes + ")"),
+                step("quiz", "module_id in (" + modules + ")"),
+                step("submission", "assignment_id in (" + assignments + ")"),
+                step("assignment", "lesson_id in (" + lessons + ")"),
+                step("lesson", "module_id in (" + modules + ")")
+        );
+    }
+
+    private static Step step(String table, String condition) {
+        return new Step(table, DELETE_CHUNK_SQL.formatted(table, condition));
+    }
+}
@@ -0,0 +1,20 @@
+package ru.mgubina.mashaschool.repository;
+
+import java.time.LocalDate;
+
+public interface CourseSummaryRow {
+
+    Long getId();
+
+    String getTitle();
+
+    String getDescription();
+
+    String getDuration();
+
+    LocalDate getStartDate();
+
+    String getCategoryName();
+
+    String getTeacherName();
+}
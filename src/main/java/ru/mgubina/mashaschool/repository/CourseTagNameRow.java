@@ -0,0 +1,8 @@
+package ru.mgubina.mashaschool.repository;
+
+public interface CourseTagNameRow {
+
+    Long getCourseId();
+
+    String getTagName();
+}
@@ -0,0 +1,34 @@
+package ru.mgubina.mashaschool.repository;
+
+import java.time.LocalDate;
+
+public interface CourseTreeRow {
+
+    Long getModuleId();
+
+    String getModuleTitle();
+
+    String getModuleDescription();
+
+    Integer getOrderIndex();
+
+    Long getQuizId();
+
+    String getQuizTitle();
+
+    Integer getTimeLimit();
+
+    Long getLessonId();
+
+    String getLessonTitle();
+
+    String getVideoUrl();
+
+    Long getAssignmentId();
+
+    String getAssignmentTitle();
+
+    LocalDate getDueDate();
+
+    Integer getMaxScore();
+}
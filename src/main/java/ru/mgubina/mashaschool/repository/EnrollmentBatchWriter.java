@@ -0,0 +1,60 @@
+package ru.mgubina.mashaschool.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Пакетная вставка записей на курс через JDBC batch.
+ * Конфликт по (user_id, course_id) не прерывает пакет: такие строки просто не вставляются.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EnrollmentBatchWriter {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_SQL = """
+            insert into enrollment (id, user_id, course_id, enroll_date, status)
+            values (?, ?, ?, ?, ?)
+            on conflict (user_id, course_id) do nothing
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceIdAllocator idAllocator;
+
+    /**
+     * @return id пользователей, для которых запись действительно вставлена
+     */
+    public List<Long> insert(long courseId, List<Long> userIds, LocalDate enrollDate, String status) {
+        Date date = Date.valueOf(enrollDate);
+        long[] ids = idAllocator.allocate("enrollment_seq", userIds.size());
+        List<Integer> positions = IntStream.range(0, userIds.size()).boxed().toList();
+
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_SQL, positions, BATCH_SIZE, (ps, position) -> {
+            ps.setLong(1, ids[position]);
+            ps.setLong(2, userIds.get(position));
+            ps.setLong(3, courseId);
+            ps.setDate(4, date);
+            ps.setString(5, status);
+        });
+
+        List<Long> inserted = new ArrayList<>(userIds.size());
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count != 0) {
+                    inserted.add(userIds.get(index));
+                }
+                index++;
+            }
+        }
+        return inserted;
+    }
+}
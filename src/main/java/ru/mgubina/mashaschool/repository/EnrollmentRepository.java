@@ -1,17 +1,29 @@
 package ru.mgubina.mashaschool.repository;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.mgubina.mashaschool.entity.Enrollment;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface EnrollmentRepository extends JpaRepository<Enrollment, Long> {
 
+    @EntityGraph(attributePaths = "course")
     List<Enrollment> findByUserId(Long userId);
 
+    // Профиль загружается вместе со студентом, иначе Hibernate дочитывает его отдельным запросом на каждого
+    @EntityGraph(attributePaths = {"user", "user.profile"})
     List<Enrollment> findByCourseId(Long courseId);
 
     Optional<Enrollment> findByUserIdAndCourseId(Long userId, Long courseId);
+
+    boolean existsByUserIdAndCourseId(Long userId, Long courseId);
+
+    @Query("select e.user.id from Enrollment e where e.course.id = :courseId and e.user.id in :userIds")
+    List<Long> findEnrolledUserIds(@Param("courseId") Long courseId, @Param("userIds") Collection<Long> userIds);
 }
 
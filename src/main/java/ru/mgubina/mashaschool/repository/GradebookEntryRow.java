@@ -0,0 +1,4 @@
+package ru.mgubina.mashaschool.repository;
+
+public record GradebookEntryRow(long studentId, GradebookItemType itemType, long itemId, int score, Integer maxScore) {
+}
@@ -0,0 +1,9 @@
+package ru.mgubina.mashaschool.repository;
+
+/**
+ * Оцениваемый элемент курса в журнале оценок.
+ */
+public enum GradebookItemType {
+    ASSIGNMENT,
+    QUIZ
+}
@@ -0,0 +1,245 @@
+package ru.mgubina.mashaschool.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Журнал оценок (gradebook_entry, gradebook_total) через JDBC. Любое изменение - три запроса на весь набор оценок:
+ * блокировка строк сводок затронутых студентов, upsert строк элементов и пересчёт этих сводок из строк элементов.
+ * Блокировка сводки сериализует изменения по студенту курса, поэтому пересчёт видит все закоммиченные оценки
+ * и параллельные оценки не затирают друг друга. Курс и максимум элемента (max_score задания, число вопросов теста)
+ * определяются в тех же запросах.
+ */
+@Repository
+@RequiredArgsConstructor
+public class GradebookStore {
+
+    private static final String ASSIGNMENT_COURSE_SQL = """
+            select a.id as item_id, m.course_id, a.max_score
+            from assignment a
+            join lesson l on l.id = a.lesson_id
+            join module m on m.id = l.module_id
+            """;
+
+    private static final String QUIZ_COURSE_SQL = """
+            select q.id as item_id, m.course_id,
+                   (select count(*)::int from question where question.quiz_id = q.id) as max_score
+            from quiz q
+            join module m on m.id = q.module_id
+            """;
+
+    // Пустое изменение на конфликте нужно ради блокировки строки; порядок - против взаимных блокировок
+    private static final String LOCK_TOTALS_SQL = """
+            insert into gradebook_total (course_id, student_id)
+            select distinct c.course_id, g.student_id
+            from unnest(?::bigint[], ?::bigint[]) as g(item_id, student_id)
+            join (%s) c on c.item_id = g.item_id
+            order by 1, 2
+            on conflict (course_id, student_id) do update set course_id = excluded.course_id
+            returning course_id, student_id
+            """;
+
+    private static final String UPSERT_ENTRIES_SQL = """
+            insert into gradebook_entry (course_id, student_id, item_type, item_id, score, max_score)
+            select distinct on (c.course_id, g.student_id, g.item_id)
+                   c.course_id, g.student_id, '%s', g.item_id, g.score, c.max_score
+            from unnest(?::bigint[], ?::bigint[], ?::int[]) with ordinality
+                 as g(item_id, student_id, score, position)
+            join (%s) c on c.item_id = g.item_id
+            order by c.course_id, g.student_id, g.item_id, %s
+            on conflict (course_id, student_id, item_type, item_id) do update set
+                score = excluded.score,
+                max_score = excluded.max_score,
+                updated_at = now()
+            %s
+            """;
+
+    private static final String LOCK_ITEM_TOTALS_SQL = """
+            insert into gradebook_total (course_id, student_id)
+            select distinct course_id, student_id
+            from gradebook_entry
+            where item_type = ? and item_id = any(?)
+            order by 1, 2
+            on conflict (course_id, student_id) do update set course_id = excluded.course_id
+            returning course_id, student_id
+            """;
+
+    private static final String REFRESH_MAX_SCORE_SQL = """
+            update gradebook_entry e
+            set max_score = c.max_score, updated_at = now()
+            from (%s) c
+            where e.item_type = ? and e.item_id = any(?) and c.item_id = e.item_id
+            """;
+
+    private static final String RECOMPUTE_TOTALS_SQL = """
+            insert into gradebook_total (course_id, student_id, assignment_count, assignment_score, assignment_max_score,
+                                         quiz_count, quiz_score, quiz_max_score)
+            select p.course_id, p.student_id,
+                   count(e.item_id) filter (where e.item_type = 'ASSIGNMENT'),
+                   coalesce(sum(e.score) filter (where e.item_type = 'ASSIGNMENT' and e.max_score is not null), 0),
+                   coalesce(sum(e.max_score) filter (where e.item_type = 'ASSIGNMENT'), 0),
+                   count(e.item_id) filter (where e.item_type = 'QUIZ'),
+                   coalesce(sum(e.score) filter (where e.item_type = 'QUIZ' and e.max_score is not null), 0),
+                   coalesce(sum(e.max_score) filter (where e.item_type = 'QUIZ'), 0)
+            from unnest(?::bigint[], ?::bigint[]) as p(course_id, student_id)
+            left join gradebook_entry e on e.course_id = p.course_id and e.student_id = p.student_id
+            group by p.course_id, p.student_id
+            on conflict (course_id, student_id) do update set
+                assignment_count = excluded.assignment_count,
+                assignment_score = excluded.assignment_score,
+                assignment_max_score = excluded.assignment_max_score,
+                quiz_count = excluded.quiz_count,
+                quiz_score = excluded.quiz_score,
+                quiz_max_score = excluded.quiz_max_score
+            """;
+
+    private static final String SELECT_TOTALS_SQL = """
+            select e.user_id, u.name,
+                   coalesce(t.assignment_count, 0) as assignment_count,
+                   coalesce(t.assignment_score, 0) as assignment_score,
+                   coalesce(t.assignment_max_score, 0) as assignment_max_score,
+                   coalesce(t.quiz_count, 0) as quiz_count,
+                   coalesce(t.quiz_score, 0) as quiz_score,
+                   coalesce(t.quiz_max_score, 0) as quiz_max_score
+            from enrollment e
+            join app_user u on u.id = e.user_id
+            left join gradebook_total t on t.course_id = e.course_id and t.student_id = e.user_id
+            where e.course_id = ?
+            order by u.name, u.id
+            """;
+
+    private static final String SELECT_ENTRIES_SQL = """
+            select student_id, item_type, item_id, score, max_score
+            from gradebook_entry
+            where course_id = ?
+            order by student_id, item_type, item_id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Оценки заданий: новая оценка заменяет прежнюю (повторная проверка решения).
+     */
+    public void recordAssignmentScores(Collection<Grade> grades) {
+        record(GradebookItemType.ASSIGNMENT, ASSIGNMENT_COURSE_SQL, grades, "g.position desc", "");
+    }
+
+    /**
+     * Попытки тестов: в журнале остаётся лучшая попытка студента.
+     */
+    public void recordQuizScores(Collection<Grade> grades) {
+        record(GradebookItemType.QUIZ, QUIZ_COURSE_SQL, grades, "g.score desc",
+                "where excluded.score > gradebook_entry.score");
+    }
+
+    /**
+     * Пересчёт максимума теста в строках журнала после изменения числа вопросов.
+     */
+    public void refreshQuizMaxScore(long quizId) {
+        Long[] ids = {quizId};
+        List<long[]> students = lockItemTotals(GradebookItemType.QUIZ, ids);
+        if (students.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.update(REFRESH_MAX_SCORE_SQL.formatted(QUIZ_COURSE_SQL), GradebookItemType.QUIZ.name(), ids);
+        recomputeTotals(students);
+    }
+
+    public void removeAssignments(Collection<Long> assignmentIds) {
+        remove(GradebookItemType.ASSIGNMENT, assignmentIds);
+    }
+
+    public void removeLessonItems(long lessonId) {
+        remove(GradebookItemType.ASSIGNMENT,
+                jdbcTemplate.queryForList("select id from assignment where lesson_id = ?", Long.class, lessonId));
+    }
+
+    public void removeModuleItems(long moduleId) {
+        remove(GradebookItemType.ASSIGNMENT, jdbcTemplate.queryForList(
+                "select a.id from assignment a join lesson l on l.id = a.lesson_id where l.module_id = ?",
+                Long.class, moduleId));
+        remove(GradebookItemType.QUIZ,
+                jdbcTemplate.queryForList("select id from quiz where module_id = ?", Long.class, moduleId));
+    }
+
+    /**
+     * Студенты, записанные на курс, со сводками; у студентов без оценок сводка нулевая.
+     */
+    public List<GradebookTotalRow> findTotals(long courseId) {
+        return jdbcTemplate.query(SELECT_TOTALS_SQL, (rs, rowNum) -> new GradebookTotalRow(
+                rs.getLong("user_id"),
+                rs.getString("name"),
+                rs.getInt("assignment_count"),
+                rs.getLong("assignment_score"),
+                rs.getLong("assignment_max_score"),
+                rs.getInt("quiz_count"),
+                rs.getLong("quiz_score"),
+                rs.getLong("quiz_max_score")
+        ), courseId);
+    }
+
+    public List<GradebookEntryRow> findEntries(long courseId) {
+        return jdbcTemplate.query(SELECT_ENTRIES_SQL, (rs, rowNum) -> new GradebookEntryRow(
+                rs.getLong("student_id"),
+                GradebookItemType.valueOf(rs.getString("item_type")),
+                rs.getLong("item_id"),
+                rs.getInt("score"),
+                rs.getObject("max_score", Integer.class)
+        ), courseId);
+    }
+
+    private void record(GradebookItemType type, String itemCourseSql, Collection<Grade> grades,
+                        String preferredOrder, String updateCondition) {
+        if (grades.isEmpty()) {
+            return;
+        }
+        Long[] itemIds = grades.stream().map(Grade::itemId).toArray(Long[]::new);
+        Long[] studentIds = grades.stream().map(Grade::studentId).toArray(Long[]::new);
+        Integer[] scores = grades.stream().map(Grade::score).toArray(Integer[]::new);
+
+        List<long[]> students = jdbcTemplate.query(LOCK_TOTALS_SQL.formatted(itemCourseSql),
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)}, itemIds, studentIds);
+        jdbcTemplate.update(UPSERT_ENTRIES_SQL.formatted(type.name(), itemCourseSql, preferredOrder, updateCondition),
+                itemIds, studentIds, scores);
+        recomputeTotals(students);
+    }
+
+    private void remove(GradebookItemType type, Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return;
+        }
+        Long[] ids = itemIds.toArray(Long[]::new);
+        List<long[]> students = lockItemTotals(type, ids);
+        jdbcTemplate.update("delete from gradebook_entry where item_type = ? and item_id = any(?)", type.name(), ids);
+        recomputeTotals(students);
+    }
+
+    private List<long[]> lockItemTotals(GradebookItemType type, Long[] itemIds) {
+        return jdbcTemplate.query(LOCK_ITEM_TOTALS_SQL,
+                (rs, rowNum) -> new long[]{rs.getLong(1), rs.getLong(2)}, type.name(), itemIds);
+    }
+
+    private void recomputeTotals(List<long[]> students) {
+        if (students.isEmpty()) {
+            return;
+        }
+        List<Long> courseIds = new ArrayList<>(students.size());
+        List<Long> studentIds = new ArrayList<>(students.size());
+        for (long[] student : students) {
+            courseIds.add(student[0]);
+            studentIds.add(student[1]);
+        }
+        jdbcTemplate.update(RECOMPUTE_TOTALS_SQL, courseIds.toArray(Long[]::new), studentIds.toArray(Long[]::new));
+    }
+
+    /**
+     * Оценка элемента: id задания или теста, студент и балл.
+     */
+    public record Grade(long itemId, long studentId, int score) {
+    }
+}
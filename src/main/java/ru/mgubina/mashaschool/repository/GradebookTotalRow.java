@@ -0,0 +1,9 @@
+package ru.mgubina.mashaschool.repository;
+
+/**
+ * Сводка журнала по студенту курса. Баллы и максимум - по элементам с известным максимумом.
+ */
+public record GradebookTotalRow(long studentId, String studentName,
+                                int assignmentCount, long assignmentScore, long assignmentMaxScore,
+                                int quizCount, long quizScore, long quizMaxScore) {
+}
@@ -0,0 +1,9 @@
+package ru.mgubina.mashaschool.repository;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Попытка в таблице лидеров теста.
+ */
+public record LeaderboardRow(long submissionId, long studentId, String studentName, int score, OffsetDateTime takenAt) {
+}
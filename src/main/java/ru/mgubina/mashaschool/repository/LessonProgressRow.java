@@ -0,0 +1,9 @@
+package ru.mgubina.mashaschool.repository;
+
+import java.util.BitSet;
+
+/**
+ * Пройденные уроки студента курса: бит i - урок с progress_ordinal = i.
+ */
+public record LessonProgressRow(long studentId, String studentName, BitSet completedLessons) {
+}
@@ -0,0 +1,130 @@
+package ru.mgubina.mashaschool.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Прогресс по урокам в enrollment.completed_lessons (bit varying) через JDBC. Отметка урока - один update строки
+ * записи на курс: бит ставится или снимается в БД, строка при необходимости дополняется нулями, поэтому
+ * параллельные отметки разных уроков не затирают друг друга.
+ * <p>
+ * Номер бита урока (lesson.progress_ordinal) выдаётся из счётчика course.next_lesson_ordinal и больше не меняется.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LessonProgressStore {
+
+    // Счётчик курса блокируется update; урок, которому номер выдала параллельная транзакция, пропускается
+    private static final String ASSIGN_ORDINALS_SQL = """
+            with pending as (
+                select l.id, row_number() over (order by m.order_index, m.id, l.id) as position
+                from lesson l
+                join module m on m.id = l.module_id
+                where m.course_id = ? and l.progress_ordinal is null
+            ),
+            reserved as (
+                update course
+                set next_lesson_ordinal = next_lesson_ordinal + (select count(*) from pending)
+                where id = ? and exists (select 1 from pending)
+                returning next_lesson_ordinal - (select count(*) from pending) as first_ordinal
+            )
+            update lesson l
+            set progress_ordinal = reserved.first_ordinal + pending.position - 1
+            from pending, reserved
+            where l.id = pending.id and l.progress_ordinal is null
+            """;
+
+    private static final String SELECT_SLOT_SQL = """
+            select l.id, m.course_id, l.title, l.progress_ordinal
+            from lesson l
+            join module m on m.id = l.module_id
+            where l.id = ?
+            """;
+
+    private static final String SELECT_COURSE_SLOTS_SQL = """
+            select l.id, m.course_id, l.title, l.progress_ordinal
+            from lesson l
+            join module m on m.id = l.module_id
+            where m.course_id = ?
+            order by m.order_index, m.id, l.id
+            """;
+
+    private static final String SET_BIT_SQL = """
+            update enrollment
+            set completed_lessons = set_bit(
+                    case when length(completed_lessons) > ? then completed_lessons
+                         else completed_lessons || repeat('0', ? + 1 - length(completed_lessons))::bit varying
+                    end, ?, ?)
+            where course_id = ? and user_id = ?
+            """;
+
+    private static final String SELECT_PROGRESS_SQL = """
+            select e.user_id, u.name, e.completed_lessons::text as completed_lessons
+            from enrollment e
+            join app_user u on u.id = e.user_id
+            where e.course_id = ?
+            order by u.name, u.id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Выдаёт номера урокам курса, у которых их ещё нет, в порядке уроков в курсе.
+     */
+    public void assignOrdinals(long courseId) {
+        jdbcTemplate.update(ASSIGN_ORDINALS_SQL, courseId, courseId);
+    }
+
+    public Optional<LessonSlotRow> findSlot(long lessonId) {
+        return jdbcTemplate.query(SELECT_SLOT_SQL, (rs, rowNum) -> slot(rs), lessonId).stream().findFirst();
+    }
+
+    /**
+     * Уроки курса в порядке дерева курса.
+     */
+    public List<LessonSlotRow> findCourseSlots(long courseId) {
+        return jdbcTemplate.query(SELECT_COURSE_SLOTS_SQL, (rs, rowNum) -> slot(rs), courseId);
+    }
+
+    /**
+     * @return false, если студент не записан на курс
+     */
+    public boolean setCompleted(long courseId, long studentId, int ordinal, boolean completed) {
+        return jdbcTemplate.update(SET_BIT_SQL, ordinal, ordinal, ordinal, completed ? 1 : 0, courseId, studentId) > 0;
+    }
+
+    /**
+     * Прогресс всех студентов курса одним проходом по записям на курс.
+     */
+    public List<LessonProgressRow> findProgress(long courseId) {
+        return jdbcTemplate.query(SELECT_PROGRESS_SQL, (rs, rowNum) -> new LessonProgressRow(
+                rs.getLong("user_id"),
+                rs.getString("name"),
+                toBitSet(rs.getString("completed_lessons"))
+        ), courseId);
+    }
+
+    private static LessonSlotRow slot(ResultSet rs) throws SQLException {
+        return new LessonSlotRow(
+                rs.getLong("id"),
+                rs.getLong("course_id"),
+                rs.getString("title"),
+                rs.getObject("progress_ordinal", Integer.class)
+        );
+    }
+
+    private static BitSet toBitSet(String bits) {
+        BitSet result = new BitSet(bits.length());
+        for (int i = bits.indexOf('1'); i >= 0; i = bits.indexOf('1', i + 1)) {
+            result.set(i);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,7 @@
+package ru.mgubina.mashaschool.repository;
+
+/**
+ * Урок курса и номер его бита в прогрессе; ordinal null - урок ещё никто не проходил и номер не выдан.
+ */
+public record LessonSlotRow(long lessonId, long courseId, String title, Integer ordinal) {
+}
@@ -1,12 +1,18 @@
 package ru.mgubina.mashaschool.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.mgubina.mashaschool.entity.Module;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface ModuleRepository extends JpaRepository<Module, Long> {
 
     List<Module> findByCourseId(Long courseId);
+
+    @Query("select m.course.id from Module m where m.id = :id")
+    Optional<Long> findCourseIdById(@Param("id") Long id);
 }
 
@@ -0,0 +1,76 @@
+package ru.mgubina.mashaschool.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Пакетная вставка вопросов теста с вариантами ответов через JDBC batch, id - из последовательностей блоками.
+ */
+@Repository
+@RequiredArgsConstructor
+public class QuestionBatchWriter {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_QUESTION_SQL = """
+            insert into question (id, quiz_id, text, type)
+            values (?, ?, ?, ?)
+            """;
+
+    private static final String INSERT_OPTION_SQL = """
+            insert into answer_option (id, question_id, text, is_correct)
+            values (?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceIdAllocator idAllocator;
+
+    /**
+     * @return id вставленных вопросов в порядке questions
+     */
+    public long[] insert(long quizId, List<NewQuestion> questions) {
+        long[] questionIds = idAllocator.allocate("question_seq", questions.size());
+        List<Integer> positions = new ArrayList<>(questions.size());
+        List<NewOption> options = new ArrayList<>();
+        List<Long> optionQuestionIds = new ArrayList<>();
+        for (int i = 0; i < questions.size(); i++) {
+            positions.add(i);
+            for (NewOption option : questions.get(i).options()) {
+                options.add(option);
+                optionQuestionIds.add(questionIds[i]);
+            }
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_QUESTION_SQL, positions, BATCH_SIZE, (ps, position) -> {
+            NewQuestion question = questions.get(position);
+            ps.setLong(1, questionIds[position]);
+            ps.setLong(2, quizId);
+            ps.setString(3, question.text());
+            ps.setString(4, question.type());
+        });
+
+        long[] optionIds = idAllocator.allocate("answer_option_seq", options.size());
+        List<Integer> optionPositions = new ArrayList<>(options.size());
+        for (int i = 0; i < options.size(); i++) {
+            optionPositions.add(i);
+        }
+        jdbcTemplate.batchUpdate(INSERT_OPTION_SQL, optionPositions, BATCH_SIZE, (ps, position) -> {
+            NewOption option = options.get(position);
+            ps.setLong(1, optionIds[position]);
+            ps.setLong(2, optionQuestionIds.get(position));
+            ps.setString(3, option.text());
+            ps.setBoolean(4, option.correct());
+        });
+        return questionIds;
+    }
+
+    public record NewQuestion(String text, String type, List<NewOption> options) {
+    }
+
+    public record NewOption(String text, boolean correct) {
+    }
+}
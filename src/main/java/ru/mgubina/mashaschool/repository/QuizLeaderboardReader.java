@@ -0,0 +1,73 @@
+package ru.mgubina.mashaschool.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Начальное заполнение таблицы лидеров: попытки теста читаются курсором по индексу
+ * (quiz_id, score desc, taken_at, id), пока не наберётся limit разных студентов.
+ * Первая попытка студента в этом порядке - его лучшая, остальные пропускаются.
+ */
+@Repository
+@RequiredArgsConstructor
+public class QuizLeaderboardReader {
+
+    private static final String SELECT_SQL = """
+            select id, student_id, score, taken_at
+            from quiz_submission
+            where quiz_id = ? and score is not null
+            order by score desc, taken_at, id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Транзакция нужна, чтобы драйвер читал курсором порциями, а не всю выборку сразу
+    @Transactional(readOnly = true)
+    public List<LeaderboardRow> findBestByQuiz(long quizId, int limit) {
+        List<Attempt> attempts = jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_SQL);
+            statement.setFetchSize(limit);
+            statement.setLong(1, quizId);
+            return statement;
+        }, rs -> {
+            Set<Long> students = new LinkedHashSet<>();
+            List<Attempt> best = new ArrayList<>(limit);
+            while (best.size() < limit && rs.next()) {
+                long studentId = rs.getLong("student_id");
+                if (students.add(studentId)) {
+                    best.add(new Attempt(rs.getLong("id"), studentId, rs.getInt("score"),
+                            rs.getObject("taken_at", OffsetDateTime.class)));
+                }
+            }
+            return best;
+        });
+
+        if (attempts.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, String> names = new HashMap<>();
+        jdbcTemplate.query("select id, name from app_user where id = any(?)",
+                rs -> {
+                    names.put(rs.getLong("id"), rs.getString("name"));
+                },
+                (Object) attempts.stream().map(Attempt::studentId).distinct().toArray(Long[]::new));
+
+        return attempts.stream()
+                .map(a -> new LeaderboardRow(a.submissionId(), a.studentId(), names.get(a.studentId()), a.score(), a.takenAt()))
+                .toList();
+    }
+
+    private record Attempt(long submissionId, long studentId, int score, OffsetDateTime takenAt) {
+    }
+}
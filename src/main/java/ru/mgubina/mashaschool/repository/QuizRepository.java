@@ -1,12 +1,27 @@
 package ru.mgubina.mashaschool.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import ru.mgubina.mashaschool.entity.Quiz;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface QuizRepository extends JpaRepository<Quiz, Long> {
 
     Optional<Quiz> findByModuleId(Long moduleId);
-}
 
+    @Query("select z.id from Quiz z where z.module.course.id = :courseId")
+    List<Long> findIdsByCourseId(@Param("courseId") Long courseId);
+
+    // Ключ ответов теста одним запросом: для существующего теста всегда есть хотя бы одна строка
+    @Query("""
+            select z.title as quizTitle, q.id as questionId, o.id as optionId, o.isCorrect as isCorrect
+            from Quiz z
+            left join z.questions q
+            left join q.answerOptions o
+            where z.id = :quizId
+            """)
+    List<AnswerKeyRow> findAnswerKeyRows(@Param("quizId") Long quizId);
+}
@@ -0,0 +1,49 @@
+package ru.mgubina.mashaschool.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Пакетная вставка принятых попыток через JDBC batch.
+ * Вставка идемпотентна: повтор пакета после сбоя не создаёт дублей (конфликт по id пропускается).
+ * Попытки удалённых за это время тестов и студентов не вставляются, чтобы одна такая строка не
+ * срывала весь пакет нарушением внешнего ключа.
+ */
+@Repository
+@RequiredArgsConstructor
+public class QuizSubmissionBatchWriter {
+
+    private static final String INSERT_SQL = """
+            insert into quiz_submission (id, quiz_id, student_id, score, taken_at)
+            select ?, ?, ?, ?, ?
+            where exists (select 1 from quiz where id = ?)
+              and exists (select 1 from app_user where id = ?)
+            on conflict (id) do nothing
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return для каждой попытки - была ли она вставлена сейчас
+     */
+    public boolean[] insert(List<QuizSubmissionRecord> submissions) {
+        int[] counts = jdbcTemplate.batchUpdate(INSERT_SQL, submissions, submissions.size(), (ps, submission) -> {
+            ps.setLong(1, submission.id());
+            ps.setLong(2, submission.quizId());
+            ps.setLong(3, submission.studentId());
+            ps.setInt(4, submission.score());
+            ps.setObject(5, submission.takenAt());
+            ps.setLong(6, submission.quizId());
+            ps.setLong(7, submission.studentId());
+        })[0];
+
+        boolean[] inserted = new boolean[submissions.size()];
+        for (int i = 0; i < counts.length; i++) {
+            inserted[i] = counts[i] != 0;
+        }
+        return inserted;
+    }
+}
@@ -0,0 +1,9 @@
+package ru.mgubina.mashaschool.repository;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Попытка прохождения теста, принятая без транзакции: id выдан заранее и служит номером квитанции.
+ */
+public record QuizSubmissionRecord(long id, long quizId, long studentId, int score, OffsetDateTime takenAt) {
+}
@@ -0,0 +1,7 @@
+package ru.mgubina.mashaschool.repository;
+
+/**
+ * Найденный курс или урок. Для курса courseId совпадает с id.
+ */
+public record SearchHit(SearchReader.Kind kind, long id, String title, long courseId, float rank) {
+}
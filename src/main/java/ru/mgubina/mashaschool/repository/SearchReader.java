@@ -0,0 +1,52 @@
+package ru.mgubina.mashaschool.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Полнотекстовый поиск по столбцам search_vector курсов и уроков (GIN-индексы из V5).
+ * Ранжирование - ts_rank с весами заголовка и текста; курсы и уроки идут одним списком.
+ * Курсы, ждущие фонового удаления (deleted_at), и их уроки не находятся.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SearchReader {
+
+    private static final String SEARCH = """
+            with q as (select to_tsquery('russian', ?) as query)
+            select kind, id, title, course_id, rank from (
+                select 'COURSE' as kind, c.id, c.title, c.id as course_id, ts_rank(c.search_vector, q.query) as rank
+                from course c, q
+                where c.search_vector @@ q.query and c.deleted_at is null
+                union all
+                select 'LESSON', l.id, l.title, m.course_id, ts_rank(l.search_vector, q.query)
+                from lesson l join module m on m.id = l.module_id join course c on c.id = m.course_id, q
+                where l.search_vector @@ q.query and c.deleted_at is null
+            ) hits
+            order by rank desc, kind, id
+            limit ?
+            """;
+
+    private static final RowMapper<SearchHit> ROW_MAPPER = (rs, rowNum) -> new SearchHit(
+            Kind.valueOf(rs.getString("kind")),
+            rs.getLong("id"),
+            rs.getString("title"),
+            rs.getLong("course_id"),
+            rs.getFloat("rank")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public enum Kind { COURSE, LESSON }
+
+    /**
+     * @param tsQuery запрос в синтаксисе to_tsquery, уже составленный из безопасных слов
+     */
+    public List<SearchHit> search(String tsQuery, int limit) {
+        return jdbcTemplate.query(SEARCH, ROW_MAPPER, tsQuery, limit);
+    }
+}
@@ -0,0 +1,38 @@
+package ru.mgubina.mashaschool.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Выдаёт id для вставок в обход Hibernate так же, как оптимизатор pooled-lo:
+ * каждое значение nextval - начало блока из ALLOCATION_SIZE свободных id.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SequenceIdAllocator {
+
+    // Должен совпадать с allocationSize в @SequenceGenerator сущностей
+    public static final int ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public long[] allocate(String sequenceName, int count) {
+        long[] ids = new long[count];
+        if (count == 0) {
+            return ids;
+        }
+
+        int blocks = (count + ALLOCATION_SIZE - 1) / ALLOCATION_SIZE;
+        List<Long> blockStarts = jdbcTemplate.queryForList(
+                "select nextval(cast(? as regclass)) from generate_series(1, ?)",
+                Long.class, sequenceName, blocks);
+
+        for (int i = 0; i < count; i++) {
+            ids[i] = blockStarts.get(i / ALLOCATION_SIZE) + i % ALLOCATION_SIZE;
+        }
+        return ids;
+    }
+}
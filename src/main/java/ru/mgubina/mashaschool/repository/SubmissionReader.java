@@ -0,0 +1,107 @@
+package ru.mgubina.mashaschool.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Чтение решений по заданию или студенту напрямую через JDBC, без загрузки сущностей.
+ * Порядок - (submitted_at, id), решения без даты идут в конце, как сортирует PostgreSQL.
+ * Страницы - по ключу: условие (submitted_at, id) > (?, ?) идёт по индексу (владелец, submitted_at, id),
+ * после решений с датой страница добирается решениями без даты.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SubmissionReader {
+
+    private static final int EXPORT_FETCH_SIZE = 500;
+
+    private static final RowMapper<SubmissionRow> ROW_MAPPER = (rs, rowNum) -> new SubmissionRow(
+            rs.getLong("id"),
+            rs.getLong("student_id"),
+            rs.getString("student_name"),
+            rs.getLong("assignment_id"),
+            rs.getString("assignment_title"),
+            rs.getObject("submitted_at", OffsetDateTime.class),
+            rs.getObject("score", Integer.class),
+            rs.getString("feedback"),
+            rs.getString("content")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public enum Owner {
+        ASSIGNMENT("assignment_id"),
+        STUDENT("student_id");
+
+        private final String column;
+
+        Owner(String column) {
+            this.column = column;
+        }
+    }
+
+    /**
+     * @param afterId         id последнего решения предыдущей страницы, null - первая страница
+     * @param afterSubmittedAt дата последнего решения; null при заданном afterId - страница среди решений без даты
+     */
+    public List<SubmissionRow> findPage(Owner owner, long ownerId, OffsetDateTime afterSubmittedAt, Long afterId,
+                                        int limit, boolean includeContent) {
+        if (afterId == null) {
+            return jdbcTemplate.query(select(owner, includeContent) + " order by s.submitted_at, s.id limit ?",
+                    ROW_MAPPER, ownerId, limit);
+        }
+        if (afterSubmittedAt == null) {
+            return findWithoutDate(owner, ownerId, afterId, limit, includeContent);
+        }
+
+        List<SubmissionRow> rows = new ArrayList<>(jdbcTemplate.query(
+                select(owner, includeContent) + " and (s.submitted_at, s.id) > (?, ?) order by s.submitted_at, s.id limit ?",
+                ROW_MAPPER, ownerId, afterSubmittedAt, afterId, limit));
+        if (rows.size() < limit) {
+            rows.addAll(findWithoutDate(owner, ownerId, 0, limit - rows.size(), includeContent));
+        }
+        return rows;
+    }
+
+    /**
+     * Все решения владельца построчно: курсор JDBC читает их порциями, не держа выборку в памяти.
+     * Вызывать внутри транзакции - вне её драйвер PostgreSQL читает результат целиком.
+     */
+    public void stream(Owner owner, long ownerId, boolean includeContent, Consumer<SubmissionRow> consumer) {
+        String sql = select(owner, includeContent) + " order by s.submitted_at, s.id";
+        RowCallbackHandler handler = rs -> consumer.accept(ROW_MAPPER.mapRow(rs, rs.getRow()));
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql);
+            ps.setFetchSize(EXPORT_FETCH_SIZE);
+            ps.setLong(1, ownerId);
+            return ps;
+        }, handler);
+    }
+
+    private List<SubmissionRow> findWithoutDate(Owner owner, long ownerId, long afterId, int limit,
+                                                boolean includeContent) {
+        return jdbcTemplate.query(
+                select(owner, includeContent) + " and s.submitted_at is null and s.id > ? order by s.id limit ?",
+                ROW_MAPPER, ownerId, afterId, limit);
+    }
+
+    private static String select(Owner owner, boolean includeContent) {
+        return """
+                select s.id, s.student_id, u.name as student_name, s.assignment_id, a.title as assignment_title,
+                       s.submitted_at, s.score, s.feedback, %s as content
+                from submission s
+                join app_user u on u.id = s.student_id
+                join assignment a on a.id = s.assignment_id
+                where s.%s = ?""".formatted(includeContent ? "s.content" : "null", owner.column);
+    }
+}
@@ -1,5 +1,6 @@
 package ru.mgubina.mashaschool.repository;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import ru.mgubina.mashaschool.entity.Submission;
 
@@ -8,10 +9,14 @@ import java.util.Optional;
 
 public interface SubmissionRepository extends JpaRepository<Submission, Long> {
 
+    // Профиль загружается вместе со студентом, иначе Hibernate дочитывает его отдельным запросом на каждого
+    @EntityGraph(attributePaths = {"student", "student.profile"})
     List<Submission> findByAssignmentId(Long assignmentId);
 
+    @EntityGraph(attributePaths = "assignment")
     List<Submission> findByStudentId(Long studentId);
 
     Optional<Submission> findByStudentIdAndAssignmentId(Long studentId, Long assignmentId);
-}
 
+    boolean existsByStudentIdAndAssignmentId(Long studentId, Long assignmentId);
+}
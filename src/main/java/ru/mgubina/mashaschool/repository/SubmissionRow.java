@@ -0,0 +1,10 @@
+package ru.mgubina.mashaschool.repository;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Строка списка решений. content заполняется, только если его запросили.
+ */
+public record SubmissionRow(long id, long studentId, String studentName, long assignmentId, String assignmentTitle,
+                            OffsetDateTime submittedAt, Integer score, String feedback, String content) {
+}
@@ -3,9 +3,11 @@ package ru.mgubina.mashaschool.service;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.mgubina.mashaschool.dto.CourseTreeDto;
 import ru.mgubina.mashaschool.entity.Assignment;
 import ru.mgubina.mashaschool.entity.Lesson;
 import ru.mgubina.mashaschool.repository.AssignmentRepository;
+import ru.mgubina.mashaschool.repository.GradebookStore;
 import ru.mgubina.mashaschool.repository.LessonRepository;
 
 import java.util.List;
@@ -16,6 +18,8 @@ public class AssignmentService {
 
     private final LessonRepository lessonRepository;
     private final AssignmentRepository assignmentRepository;
+    private final CourseTreeCache courseTreeCache;
+    private final GradebookStore gradebookStore;
 
     @Transactional
     public long createAssignment(long lessonId, String title, String description, Integer maxScore) {
@@ -30,15 +34,18 @@ public class AssignmentService {
                 .build();
 
         Assignment saved = assignmentRepository.save(assignment);
+        courseTreeCache.assignmentAdded(lesson.getModule().getCourse().getId(), lessonId,
+                new CourseTreeDto.AssignmentNode(saved.getId(), title, null, maxScore));
         return saved.getId();
     }
 
     @Transactional
     public void delete(long id) {
-        if (!assignmentRepository.existsById(id)) {
-            throw new IllegalArgumentException("Assignment not found: " + id);
-        }
-        assignmentRepository.deleteById(id);
+        Assignment assignment = assignmentRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Assignment not found: " + id));
+        courseTreeCache.evict(assignment.getLesson().getModule().getCourse().getId());
+        gradebookStore.removeAssignments(List.of(id));
+        assignmentRepository.delete(assignment);
     }
 
     @Transactional(readOnly = true)
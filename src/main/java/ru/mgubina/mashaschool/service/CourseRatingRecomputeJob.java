@@ -0,0 +1,23 @@
+package ru.mgubina.mashaschool.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Плановый пересчёт сводок оценок. По умолчанию выключен ("-"), расписание - mashaschool.course-rating.recompute-cron.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CourseRatingRecomputeJob {
+
+    private final CourseReviewService courseReviewService;
+
+    @Scheduled(cron = "${mashaschool.course-rating.recompute-cron:-}")
+    public void recompute() {
+        int courses = courseReviewService.recomputeRatings();
+        log.info("Course ratings recomputed for {} courses", courses);
+    }
+}
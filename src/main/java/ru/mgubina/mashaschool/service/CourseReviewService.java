@@ -0,0 +1,131 @@
+package ru.mgubina.mashaschool.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.mgubina.mashaschool.entity.Course;
+import ru.mgubina.mashaschool.entity.CourseReview;
+import ru.mgubina.mashaschool.entity.User;
+import ru.mgubina.mashaschool.repository.CourseRatingRow;
+import ru.mgubina.mashaschool.repository.CourseRatingStore;
+import ru.mgubina.mashaschool.repository.CourseRepository;
+import ru.mgubina.mashaschool.repository.CourseReviewRepository;
+import ru.mgubina.mashaschool.repository.UserRepository;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Отзывы о курсах. Каждое изменение оценки в той же транзакции переносится в сводку course_rating,
+ * так что средняя оценка читается одной строкой без загрузки отзывов. Изменение отзыва сбрасывается в БД
+ * до изменения сводки: блокировки берутся в том же порядке, что и в {@link CourseRatingStore#recomputeAll}
+ * (сначала course_review, потом course_rating), и взаимной блокировки с пересчётом не бывает.
+ */
+@Service
+@RequiredArgsConstructor
+public class CourseReviewService {
+
+    private final CourseReviewRepository courseReviewRepository;
+    private final CourseRepository courseRepository;
+    private final UserRepository userRepository;
+    private final CourseRatingStore courseRatingStore;
+
+    @Transactional
+    public CourseReview addReview(long courseId, long studentId, int rating, String comment) {
+        checkRating(rating);
+        Course course = courseRepository.findById(courseId)
+                .orElseThrow(() -> new IllegalArgumentException("Course not found: " + courseId));
+        User student = userRepository.findById(studentId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found: " + studentId));
+
+        CourseReview review = courseReviewRepository.saveAndFlush(CourseReview.builder()
+                .course(course)
+                .student(student)
+                .rating(rating)
+                .comment(comment)
+                .createdAt(OffsetDateTime.now())
+                .build());
+
+        int[] counts = new int[5];
+        counts[rating - 1] = 1;
+        courseRatingStore.applyDelta(courseId, 1, rating, counts);
+        return review;
+    }
+
+    @Transactional
+    public CourseReview updateReview(long courseId, long reviewId, Integer rating, String comment) {
+        // Блокировка строки отзыва: два одновременных изменения оценки иначе вычли бы одну и ту же старую
+        CourseReview review = findReviewForUpdate(courseId, reviewId);
+
+        if (comment != null) {
+            review.setComment(comment);
+        }
+        if (rating != null && !rating.equals(review.getRating())) {
+            checkRating(rating);
+            Integer previous = review.getRating();
+            review.setRating(rating);
+            courseReviewRepository.saveAndFlush(review);
+
+            int[] counts = new int[5];
+            counts[rating - 1] = 1;
+            if (isCounted(previous)) {
+                counts[previous - 1] = -1;
+                courseRatingStore.applyDelta(courseId, 0, rating - previous, counts);
+            } else {
+                courseRatingStore.applyDelta(courseId, 1, rating, counts);
+            }
+        }
+        return review;
+    }
+
+    @Transactional
+    public void deleteReview(long courseId, long reviewId) {
+        CourseReview review = findReviewForUpdate(courseId, reviewId);
+
+        Integer rating = review.getRating();
+        courseReviewRepository.delete(review);
+        courseReviewRepository.flush();
+        if (isCounted(rating)) {
+            int[] counts = new int[5];
+            counts[rating - 1] = -1;
+            courseRatingStore.applyDelta(courseId, -1, -rating, counts);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public CourseRatingRow getRating(long courseId) {
+        if (!courseRepository.existsById(courseId)) {
+            throw new IllegalArgumentException("Course not found: " + courseId);
+        }
+        return courseRatingStore.find(courseId).orElseGet(() -> CourseRatingRow.empty(courseId));
+    }
+
+    /**
+     * Полный пересчёт сводок из отзывов, для починки после ручных правок в БД.
+     *
+     * @return число курсов с отзывами
+     */
+    @Transactional
+    public int recomputeRatings() {
+        return courseRatingStore.recomputeAll();
+    }
+
+    private CourseReview findReviewForUpdate(long courseId, long reviewId) {
+        CourseReview review = courseReviewRepository.findByIdForUpdate(reviewId)
+                .orElseThrow(() -> new IllegalArgumentException("Review not found: " + reviewId));
+        if (!review.getCourse().getId().equals(courseId)) {
+            throw new IllegalArgumentException("Review not found: " + reviewId);
+        }
+        return review;
+    }
+
+    // Отзывы без оценки или с оценкой вне 1-5 (записанные в обход сервиса) в сводку не входят
+    private static boolean isCounted(Integer rating) {
+        return rating != null && rating >= 1 && rating <= 5;
+    }
+
+    private static void checkRating(int rating) {
+        if (rating < 1 || rating > 5) {
+            throw new IllegalArgumentException("Rating must be between 1 and 5");
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package ru.mgubina.mashaschool.service;
+
+import lombok.RequiredArgsConstructor;
+import org.roaringbitmap.longlong.PeekableLongIterator;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.mgubina.mashaschool.repository.CourseRepository;
+import ru.mgubina.mashaschool.repository.CourseSummaryRow;
+import ru.mgubina.mashaschool.repository.CourseTagNameRow;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Каталог курсов: фильтр по тегам (любой или все из набора), категории и преподавателю,
+ * страницы по ключу id. Курсы с нужными тегами берутся из {@link CourseTagIndex},
+ * БД проверяет остальные условия для очередной порции кандидатов.
+ */
+@Service
+@RequiredArgsConstructor
+public class CourseSearchService {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private final CourseRepository courseRepository;
+    private final CourseTagIndex courseTagIndex;
+
+    public enum TagMatch { ANY, ALL }
+
+    @Transactional(readOnly = true)
+    public CoursePage search(Set<Long> tagIds, TagMatch match, Long categoryId, Long teacherId,
+                             String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        Long afterId = cursor == null ? null : decodeCursor(cursor);
+
+        // Лишняя строка показывает, есть ли следующая страница
+        List<CourseSummaryRow> rows = tagIds == null || tagIds.isEmpty()
+                ? courseRepository.searchSummaries(categoryId, teacherId, afterId, Limit.of(limit + 1))
+                : searchByTags(tagIds, match, categoryId, teacherId, afterId, limit + 1);
+
+        String nextCursor = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            nextCursor = Long.toString(rows.get(limit - 1).getId());
+        }
+        return new CoursePage(rows, tagNames(rows), nextCursor);
+    }
+
+    private List<CourseSummaryRow> searchByTags(Set<Long> tagIds, TagMatch match, Long categoryId, Long teacherId,
+                                                Long afterId, int wanted) {
+        Roaring64Bitmap candidates = match == TagMatch.ALL
+                ? courseTagIndex.matchAll(tagIds)
+                : courseTagIndex.matchAny(tagIds);
+        PeekableLongIterator iterator = afterId == null
+                ? candidates.getLongIterator()
+                : candidates.getLongIteratorFrom(afterId + 1);
+
+        // Кандидаты идут по возрастанию id; порции проверяются в БД, пока страница не наберётся
+        List<CourseSummaryRow> rows = new ArrayList<>(wanted);
+        int batchSize = Math.max(wanted * 2, 50);
+        List<Long> batch = new ArrayList<>(batchSize);
+        while (rows.size() < wanted && iterator.hasNext()) {
+            batch.clear();
+            while (batch.size() < batchSize && iterator.hasNext()) {
+                batch.add(iterator.next());
+            }
+            for (CourseSummaryRow row : courseRepository.searchSummariesAmong(batch, categoryId, teacherId)) {
+                if (rows.size() == wanted) {
+                    break;
+                }
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private Map<Long, List<String>> tagNames(List<CourseSummaryRow> rows) {
+        Map<Long, List<String>> tagNames = new HashMap<>();
+        if (rows.isEmpty()) {
+            return tagNames;
+        }
+        List<Long> courseIds = rows.stream().map(CourseSummaryRow::getId).toList();
+        for (CourseTagNameRow row : courseRepository.findTagNamesByIds(courseIds)) {
+            tagNames.computeIfAbsent(row.getCourseId(), id -> new ArrayList<>()).add(row.getTagName());
+        }
+        return tagNames;
+    }
+
+    private static Long decodeCursor(String cursor) {
+        try {
+            return Long.parseLong(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+    public record CoursePage(List<CourseSummaryRow> items, Map<Long, List<String>> tagNames, String nextCursor) {
+    }
+}
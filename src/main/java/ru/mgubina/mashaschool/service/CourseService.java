@@ -3,16 +3,25 @@ package ru.mgubina.mashaschool.service;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.mgubina.mashaschool.config.SqlBudget;
+import ru.mgubina.mashaschool.dto.CourseTreeDto;
 import ru.mgubina.mashaschool.entity.Category;
 import ru.mgubina.mashaschool.entity.Course;
 import ru.mgubina.mashaschool.entity.Module;
+import ru.mgubina.mashaschool.entity.Tag;
 import ru.mgubina.mashaschool.entity.User;
 import ru.mgubina.mashaschool.repository.CategoryRepository;
+import ru.mgubina.mashaschool.repository.CourseCloneWriter;
 import ru.mgubina.mashaschool.repository.CourseRepository;
+import ru.mgubina.mashaschool.repository.CourseSummaryRow;
 import ru.mgubina.mashaschool.repository.ModuleRepository;
+import ru.mgubina.mashaschool.repository.TagRepository;
 import ru.mgubina.mashaschool.repository.UserRepository;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -22,6 +31,11 @@ public class CourseService {
     private final ModuleRepository moduleRepository;
     private final CategoryRepository categoryRepository;
     private final UserRepository userRepository;
+    private final CourseTreeCache courseTreeCache;
+    private final TagRepository tagRepository;
+    private final CourseTagIndex courseTagIndex;
+    private final CourseCloneWriter courseCloneWriter;
+    private final CourseSubtreePurger courseSubtreePurger;
 
     @Transactional
     public Course updateCourse(Long id, String title, String description, String duration, LocalDate startDate) {
@@ -41,12 +55,19 @@ public class CourseService {
             course.setStartDate(startDate);
         }
 
+        courseTreeCache.evict(id);
         return courseRepository.save(course);
     }
 
     @Transactional
     public Course createCourse(String title, String description, Long categoryId, Long teacherId,
                                String duration, LocalDate startDate) {
+        return createCourse(title, description, categoryId, teacherId, duration, startDate, Set.of());
+    }
+
+    @Transactional
+    public Course createCourse(String title, String description, Long categoryId, Long teacherId,
+                               String duration, LocalDate startDate, Set<Long> tagIds) {
         Category category = categoryRepository.findById(categoryId)
                 .orElseThrow(() -> new IllegalArgumentException("Category not found: " + categoryId));
 
@@ -62,15 +83,59 @@ public class CourseService {
                 .startDate(startDate)
                 .build();
 
-        return courseRepository.save(course);
+        if (!tagIds.isEmpty()) {
+            // Теги одним запросом, отсутствующий id - ошибка, как и раньше
+            List<Tag> tags = tagRepository.findAllById(tagIds);
+            if (tags.size() != tagIds.size()) {
+                Set<Long> found = tags.stream().map(Tag::getId).collect(Collectors.toSet());
+                Long missing = tagIds.stream().filter(tagId -> !found.contains(tagId)).findFirst().orElseThrow();
+                throw new IllegalArgumentException("Tag not found: " + missing);
+            }
+            course.getTags().addAll(tags);
+        }
+
+        Course savedCourse = courseRepository.save(course);
+        courseTagIndex.courseCreated(savedCourse.getId(), Set.copyOf(tagIds));
+        return savedCourse;
     }
 
+    /**
+     * Копия структуры курса для нового потока: модули, уроки, задания, тесты с вопросами и вариантами ответов.
+     * Строки копируются в БД запросами INSERT ... SELECT, без загрузки сущностей.
+     *
+     * @param title     null - название исходного курса
+     * @param startDate null - дата начала исходного курса
+     * @param teacherId null - тот же преподаватель
+     * @param keepTags  false - копия без тегов
+     */
     @Transactional
-    public void deleteCourse(Long id) {
-        if (!courseRepository.existsById(id)) {
+    public CourseCloneWriter.ClonedCourse cloneCourse(long sourceId, String title, LocalDate startDate, Long teacherId,
+                                                      boolean keepTags) {
+        if (!courseRepository.existsById(sourceId)) {
+            throw new IllegalArgumentException("Course not found: " + sourceId);
+        }
+        if (teacherId != null && !userRepository.existsById(teacherId)) {
+            throw new IllegalArgumentException("Teacher not found: " + teacherId);
+        }
+
+        CourseCloneWriter.ClonedCourse cloned = courseCloneWriter.cloneCourse(sourceId, title, startDate, teacherId, keepTags);
+        courseTagIndex.courseCreated(cloned.courseId(), cloned.tagIds());
+        return cloned;
+    }
+
+    /**
+     * Курс отмечается удалённым и сразу пропадает из чтения; дерево удаляется порциями тут же
+     * или, с inBackground, фоновым проходом {@link CourseSubtreePurger}.
+     */
+    public void deleteCourse(Long id, boolean inBackground) {
+        if (!courseSubtreePurger.markCourseDeleted(id)) {
             throw new IllegalArgumentException("Course not found: " + id);
         }
-        courseRepository.deleteById(id);
+        courseTreeCache.evict(id);
+        courseTagIndex.courseDeleted(id);
+        if (!inBackground) {
+            courseSubtreePurger.purgeCourse(id);
+        }
     }
 
     @Transactional
@@ -86,6 +151,8 @@ public class CourseService {
                 .build();
 
         Module savedModule = moduleRepository.save(module);
+        courseTreeCache.moduleAdded(courseId, new CourseTreeDto.ModuleNode(
+                savedModule.getId(), title, description, orderIndex, null, List.of()));
         return savedModule.getId();
     }
 
@@ -95,6 +162,18 @@ public class CourseService {
                 .orElseThrow(() -> new IllegalArgumentException("Course not found: " + id));
     }
 
+    /**
+     * Карточка курса для чтения: два запроса по нужным столбцам, без загрузки сущностей,
+     * модулей и уроков.
+     */
+    @Transactional(readOnly = true)
+    @SqlBudget(statements = 2)
+    public CourseSummary getCourseSummary(Long id) {
+        CourseSummaryRow course = courseRepository.findSummaryById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Course not found: " + id));
+        return new CourseSummary(course, courseRepository.findTagNamesById(id));
+    }
+
     @Transactional(readOnly = true)
     public Course getCourseWithContent(Long id) {
         return courseRepository.findById(id)
@@ -111,5 +190,7 @@ public class CourseService {
                 })
                 .orElseThrow(() -> new IllegalArgumentException("Course not found: " + id));
     }
-}
 
+    public record CourseSummary(CourseSummaryRow course, List<String> tagNames) {
+    }
+}
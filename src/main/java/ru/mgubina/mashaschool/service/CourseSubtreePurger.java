@@ -0,0 +1,113 @@
+package ru.mgubina.mashaschool.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.mgubina.mashaschool.entity.Quiz;
+import ru.mgubina.mashaschool.repository.CourseSubtreeDeleter;
+import ru.mgubina.mashaschool.repository.GradebookStore;
+import ru.mgubina.mashaschool.repository.QuizRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Удаление курсов и модулей запросами {@link CourseSubtreeDeleter} порциями до chunk-size строк,
+ * Hibernate сущности дерева не загружает. Шаг повторяется, пока порция не удалит ни одной строки:
+ * неполная порция ещё не значит, что параллельная запись не добавила строк.
+ * <p>
+ * Курс сначала получает отметку deleted_at и сразу пропадает из чтения, каждая порция его дерева - отдельная
+ * короткая транзакция. Дерево удаляется либо тут же, либо в фоне раз в purge-interval. Отметка хранится в БД,
+ * поэтому удаление, прерванное ошибкой или падением узла, продолжит следующий фоновый проход.
+ * Пока дерево удаляется, читатели могут увидеть его частично.
+ * <p>
+ * Модуль - небольшое дерево, его порции выполняются в одной транзакции: модуль удаляется целиком или остаётся.
+ * Кэши тестов и дерева курса сбрасываются после удаления.
+ */
+@Slf4j
+@Component
+public class CourseSubtreePurger {
+
+    private final CourseSubtreeDeleter deleter;
+    private final GradebookStore gradebookStore;
+    private final QuizRepository quizRepository;
+    private final QuizAnswerKeyCache answerKeyCache;
+    private final QuizLeaderboard quizLeaderboard;
+    private final CourseTreeCache courseTreeCache;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public CourseSubtreePurger(CourseSubtreeDeleter deleter, GradebookStore gradebookStore,
+                               QuizRepository quizRepository, QuizAnswerKeyCache answerKeyCache,
+                               QuizLeaderboard quizLeaderboard, CourseTreeCache courseTreeCache,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${mashaschool.course-delete.chunk-size:1000}") int chunkSize) {
+        this.deleter = deleter;
+        this.gradebookStore = gradebookStore;
+        this.quizRepository = quizRepository;
+        this.answerKeyCache = answerKeyCache;
+        this.quizLeaderboard = quizLeaderboard;
+        this.courseTreeCache = courseTreeCache;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return false, если курса нет или он уже отмечен
+     */
+    public boolean markCourseDeleted(long courseId) {
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> deleter.markCourseDeleted(courseId)));
+    }
+
+    public void purgeCourse(long courseId) {
+        List<Long> quizIds = deleter.findQuizIds(courseId);
+        purge(deleter.courseSteps(), courseId);
+        quizIds.forEach(this::evictQuiz);
+        courseTreeCache.evict(courseId);
+    }
+
+    public void purgeModule(long moduleId, long courseId) {
+        Optional<Long> quizId = quizRepository.findByModuleId(moduleId).map(Quiz::getId);
+        transactionTemplate.executeWithoutResult(status -> {
+            // Элементы журнала находятся через задания и тест модуля, поэтому убираются до них
+            gradebookStore.removeModuleItems(moduleId);
+            for (CourseSubtreeDeleter.Step step : deleter.moduleSteps()) {
+                int deleted;
+                do {
+                    deleted = deleter.deleteChunk(step, moduleId, chunkSize);
+                } while (deleted > 0);
+            }
+        });
+        quizId.ifPresent(this::evictQuiz);
+        courseTreeCache.evict(courseId);
+    }
+
+    @Scheduled(fixedDelayString = "${mashaschool.course-delete.purge-interval:30s}",
+            initialDelayString = "${mashaschool.course-delete.purge-interval:30s}")
+    public void purgeDeletedCourses() {
+        for (Long courseId : deleter.findDeletedCourseIds()) {
+            try {
+                purgeCourse(courseId);
+                log.info("Deleted course {} purged", courseId);
+            } catch (RuntimeException e) {
+                log.warn("Purge of deleted course {} failed, will retry on the next pass", courseId, e);
+            }
+        }
+    }
+
+    private void purge(List<CourseSubtreeDeleter.Step> steps, long rootId) {
+        for (CourseSubtreeDeleter.Step step : steps) {
+            int deleted;
+            do {
+                deleted = transactionTemplate.execute(status -> deleter.deleteChunk(step, rootId, chunkSize));
+            } while (deleted > 0);
+        }
+    }
+
+    private void evictQuiz(long quizId) {
+        answerKeyCache.evict(quizId);
+        quizLeaderboard.evict(quizId);
+    }
+}
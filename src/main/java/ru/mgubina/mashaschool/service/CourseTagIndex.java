@@ -0,0 +1,169 @@
+package ru.mgubina.mashaschool.service;
+
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Индекс тег -> id курсов в сжатых битовых картах (Roaring), строится из course_tag при первом поиске.
+ * Пересечение и объединение тегов считаются в памяти, без соединения с course_tag на каждый тег.
+ * Карты не изменяются после публикации: изменение делает копию, поэтому читать их можно без блокировок.
+ * Курсы добавляются в индекс после коммита; удалённые курсы отсекает запрос к БД, индекс их только подчищает.
+ * Локальные изменения не видят правок course_tag с других узлов и в обход приложения, поэтому загруженный индекс
+ * раз в rebuild-interval строится из БД заново.
+ */
+@Component
+public class CourseTagIndex {
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Map<Long, Roaring64Bitmap> postings;
+    // Изменения, пришедшие во время перестройки, - их повторяют на новом индексе
+    private List<Consumer<Map<Long, Roaring64Bitmap>>> changesDuringRebuild;
+
+    public CourseTagIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public Roaring64Bitmap matchAny(Collection<Long> tagIds) {
+        Map<Long, Roaring64Bitmap> index = postings();
+        Roaring64Bitmap result = new Roaring64Bitmap();
+        for (Long tagId : tagIds) {
+            Roaring64Bitmap courses = index.get(tagId);
+            if (courses != null) {
+                result.or(courses);
+            }
+        }
+        return result;
+    }
+
+    public Roaring64Bitmap matchAll(Collection<Long> tagIds) {
+        Map<Long, Roaring64Bitmap> index = postings();
+        Roaring64Bitmap result = null;
+        for (Long tagId : tagIds) {
+            Roaring64Bitmap courses = index.get(tagId);
+            if (courses == null) {
+                return new Roaring64Bitmap();
+            }
+            result = result == null ? courses.clone() : Roaring64Bitmap.and(result, courses);
+            if (result.isEmpty()) {
+                return result;
+            }
+        }
+        return result == null ? new Roaring64Bitmap() : result;
+    }
+
+    public void courseCreated(long courseId, Collection<Long> tagIds) {
+        if (tagIds.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> update(index -> {
+            for (Long tagId : tagIds) {
+                index.compute(tagId, (id, courses) -> {
+                    Roaring64Bitmap copy = courses == null ? new Roaring64Bitmap() : courses.clone();
+                    copy.addLong(courseId);
+                    return copy;
+                });
+            }
+        }));
+    }
+
+    public void courseDeleted(long courseId) {
+        afterCommit(() -> update(index -> {
+            for (Long tagId : index.keySet()) {
+                index.computeIfPresent(tagId, (id, courses) -> {
+                    if (!courses.contains(courseId)) {
+                        return courses;
+                    }
+                    Roaring64Bitmap copy = courses.clone();
+                    copy.removeLong(courseId);
+                    return copy.isEmpty() ? null : copy;
+                });
+            }
+        }));
+    }
+
+    private Map<Long, Roaring64Bitmap> postings() {
+        Map<Long, Roaring64Bitmap> index = postings;
+        return index != null ? index : load();
+    }
+
+    private synchronized Map<Long, Roaring64Bitmap> load() {
+        if (postings != null) {
+            return postings;
+        }
+        Map<Long, Roaring64Bitmap> loaded = query();
+        postings = loaded;
+        return loaded;
+    }
+
+    /**
+     * Перестройка загруженного индекса. Запрос идёт без блокировки: поиск читает старый индекс, а изменения
+     * применяются к нему и запоминаются. Перед публикацией они повторяются на новом индексе - добавление
+     * и удаление курса можно повторить, даже если запрос их уже прочитал.
+     */
+    @Scheduled(fixedDelayString = "${mashaschool.course-tag-index.rebuild-interval:10m}",
+            initialDelayString = "${mashaschool.course-tag-index.rebuild-interval:10m}")
+    public void rebuild() {
+        synchronized (this) {
+            if (postings == null || changesDuringRebuild != null) {
+                return;
+            }
+            changesDuringRebuild = new ArrayList<>();
+        }
+        try {
+            Map<Long, Roaring64Bitmap> loaded = query();
+            synchronized (this) {
+                changesDuringRebuild.forEach(change -> change.accept(loaded));
+                postings = loaded;
+            }
+        } finally {
+            synchronized (this) {
+                changesDuringRebuild = null;
+            }
+        }
+    }
+
+    private Map<Long, Roaring64Bitmap> query() {
+        Map<Long, Roaring64Bitmap> loaded = new ConcurrentHashMap<>();
+        jdbcTemplate.query("select tag_id, course_id from course_tag", rs -> {
+            loaded.computeIfAbsent(rs.getLong(1), id -> new Roaring64Bitmap()).addLong(rs.getLong(2));
+        });
+        return loaded;
+    }
+
+    /**
+     * Изменения и загрузка взаимоисключаются: изменение, закоммиченное до загрузки, она прочитает из БД,
+     * а остальные применятся к уже опубликованному индексу. До первого поиска индекса нет и менять нечего.
+     */
+    private synchronized void update(Consumer<Map<Long, Roaring64Bitmap>> change) {
+        if (postings != null) {
+            change.accept(postings);
+            if (changesDuringRebuild != null) {
+                changesDuringRebuild.add(change);
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,201 @@
+package ru.mgubina.mashaschool.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+import ru.mgubina.mashaschool.dto.CourseTreeDto;
+import ru.mgubina.mashaschool.dto.CourseTreeDto.AssignmentNode;
+import ru.mgubina.mashaschool.dto.CourseTreeDto.LessonNode;
+import ru.mgubina.mashaschool.dto.CourseTreeDto.ModuleNode;
+import ru.mgubina.mashaschool.dto.CourseTreeDto.QuizNode;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Снимки программы курса, уже сериализованные в JSON.
+ * Добавление модуля, урока, задания или теста дописывает узел в закэшированный снимок после коммита,
+ * остальные изменения содержимого курса снимок вытесняют.
+ * Снимок из БД кладётся, только если за время загрузки не было изменений, как и в {@link QuizAnswerKeyCache}.
+ * Как и ключи ответов, снимок живёт не дольше ttl с загрузки из БД (дописывание узлов срок не продлевает):
+ * изменения с других узлов и в обход приложения попадают в снимок и его ETag не позже чем через ttl.
+ */
+@Component
+public class CourseTreeCache {
+
+    private static final Comparator<ModuleNode> MODULE_ORDER = Comparator
+            .comparing(ModuleNode::orderIndex, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(ModuleNode::id);
+
+    private final Cache<Long, CourseTreeSnapshot> snapshots;
+    private final AtomicLong changes = new AtomicLong();
+    private final CourseTreeLoader loader;
+    private final ObjectMapper objectMapper;
+
+    public CourseTreeCache(CourseTreeLoader loader, ObjectMapper objectMapper,
+                           @Value("${mashaschool.course-tree-cache.max-size:1000}") long maxSize,
+                           @Value("${mashaschool.course-tree-cache.ttl:10m}") Duration ttl) {
+        this.loader = loader;
+        this.objectMapper = objectMapper;
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(Expiry.creating((Long courseId, CourseTreeSnapshot snapshot) -> ttl))
+                .build();
+    }
+
+    public CourseTreeSnapshot get(long courseId) {
+        CourseTreeSnapshot cached = snapshots.getIfPresent(courseId);
+        if (cached != null) {
+            return cached;
+        }
+
+        long changesBeforeLoad = changes.get();
+        CourseTreeSnapshot loaded = encode(loader.load(courseId));
+        if (changes.get() == changesBeforeLoad) {
+            snapshots.asMap().putIfAbsent(courseId, loaded);
+        }
+        return loaded;
+    }
+
+    public void moduleAdded(long courseId, ModuleNode module) {
+        patchAfterCommit(courseId, tree -> {
+            if (containsId(tree.modules(), module.id(), ModuleNode::id)) {
+                return tree;
+            }
+            List<ModuleNode> modules = new ArrayList<>(tree.modules());
+            modules.add(module);
+            modules.sort(MODULE_ORDER);
+            return new CourseTreeDto(tree.id(), tree.title(), List.copyOf(modules));
+        });
+    }
+
+    public void quizCreated(long courseId, long moduleId, QuizNode quiz) {
+        patchAfterCommit(courseId, tree -> replaceModule(tree, moduleId, module ->
+                new ModuleNode(module.id(), module.title(), module.description(), module.orderIndex(),
+                        quiz, module.lessons())));
+    }
+
+    public void lessonAdded(long courseId, long moduleId, LessonNode lesson) {
+        patchAfterCommit(courseId, tree -> replaceModule(tree, moduleId, module ->
+                new ModuleNode(module.id(), module.title(), module.description(), module.orderIndex(),
+                        module.quiz(), insertById(module.lessons(), lesson, LessonNode::id))));
+    }
+
+    public void assignmentAdded(long courseId, long lessonId, AssignmentNode assignment) {
+        patchAfterCommit(courseId, tree -> {
+            for (ModuleNode module : tree.modules()) {
+                for (LessonNode lesson : module.lessons()) {
+                    if (lesson.id() == lessonId) {
+                        LessonNode patched = new LessonNode(lesson.id(), lesson.title(), lesson.videoUrl(),
+                                insertById(lesson.assignments(), assignment, AssignmentNode::id));
+                        return replaceModule(tree, module.id(), m ->
+                                new ModuleNode(m.id(), m.title(), m.description(), m.orderIndex(), m.quiz(),
+                                        replaceById(m.lessons(), patched, LessonNode::id)));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    public void evict(long courseId) {
+        evictNow(courseId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(courseId);
+                }
+            });
+        }
+    }
+
+    private void evictNow(long courseId) {
+        changes.incrementAndGet();
+        snapshots.invalidate(courseId);
+    }
+
+    private void patchAfterCommit(long courseId, UnaryOperator<CourseTreeDto> patch) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            patchNow(courseId, patch);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                patchNow(courseId, patch);
+            }
+        });
+    }
+
+    private void patchNow(long courseId, UnaryOperator<CourseTreeDto> patch) {
+        changes.incrementAndGet();
+        // Если узла для вставки в снимке нет, снимок расходится с БД - он вытесняется и соберётся заново
+        snapshots.asMap().computeIfPresent(courseId, (id, snapshot) -> {
+            CourseTreeDto patched = patch.apply(snapshot.tree());
+            return patched == null ? null : encode(patched);
+        });
+    }
+
+    private CourseTreeSnapshot encode(CourseTreeDto tree) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(tree);
+            return new CourseTreeSnapshot(tree, json, "\"" + DigestUtils.md5DigestAsHex(json) + "\"");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize course tree " + tree.id(), e);
+        }
+    }
+
+    private static CourseTreeDto replaceModule(CourseTreeDto tree, long moduleId, UnaryOperator<ModuleNode> change) {
+        for (ModuleNode module : tree.modules()) {
+            if (module.id() == moduleId) {
+                return new CourseTreeDto(tree.id(), tree.title(),
+                        replaceById(tree.modules(), change.apply(module), ModuleNode::id));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Узел уже есть, если снимок загрузили из БД после коммита добавления: он не свежее загруженного
+     * и остаётся как есть.
+     */
+    private static <T> List<T> insertById(List<T> nodes, T node, ToLongFunction<T> id) {
+        if (containsId(nodes, id.applyAsLong(node), id)) {
+            return nodes;
+        }
+        List<T> result = new ArrayList<>(nodes);
+        result.add(node);
+        result.sort(Comparator.comparingLong(id));
+        return List.copyOf(result);
+    }
+
+    private static <T> boolean containsId(List<T> nodes, long nodeId, ToLongFunction<T> id) {
+        for (T existing : nodes) {
+            if (id.applyAsLong(existing) == nodeId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static <T> List<T> replaceById(List<T> nodes, T node, ToLongFunction<T> id) {
+        List<T> result = new ArrayList<>(nodes.size());
+        for (T existing : nodes) {
+            result.add(id.applyAsLong(existing) == id.applyAsLong(node) ? node : existing);
+        }
+        return List.copyOf(result);
+    }
+}
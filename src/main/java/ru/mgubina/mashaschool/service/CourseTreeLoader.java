@@ -0,0 +1,69 @@
+package ru.mgubina.mashaschool.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.mgubina.mashaschool.dto.CourseTreeDto;
+import ru.mgubina.mashaschool.dto.CourseTreeDto.AssignmentNode;
+import ru.mgubina.mashaschool.dto.CourseTreeDto.LessonNode;
+import ru.mgubina.mashaschool.dto.CourseTreeDto.ModuleNode;
+import ru.mgubina.mashaschool.dto.CourseTreeDto.QuizNode;
+import ru.mgubina.mashaschool.repository.CourseRepository;
+import ru.mgubina.mashaschool.repository.CourseTreeRow;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Сборка программы курса из БД: название курса и одна плоская выборка
+ * модуль - тест - урок - задание, уже упорядоченная запросом.
+ */
+@Component
+@RequiredArgsConstructor
+public class CourseTreeLoader {
+
+    private final CourseRepository courseRepository;
+
+    @Transactional(readOnly = true)
+    public CourseTreeDto load(long courseId) {
+        String title = courseRepository.findTitleById(courseId)
+                .orElseThrow(() -> new IllegalArgumentException("Course not found: " + courseId));
+
+        Map<Long, CourseTreeRow> modules = new LinkedHashMap<>();
+        Map<Long, Map<Long, CourseTreeRow>> lessonsByModule = new LinkedHashMap<>();
+        Map<Long, List<AssignmentNode>> assignmentsByLesson = new LinkedHashMap<>();
+
+        for (CourseTreeRow row : courseRepository.findTreeRows(courseId)) {
+            modules.putIfAbsent(row.getModuleId(), row);
+            Map<Long, CourseTreeRow> lessons = lessonsByModule.computeIfAbsent(row.getModuleId(), id -> new LinkedHashMap<>());
+            if (row.getLessonId() == null) {
+                continue;
+            }
+            lessons.putIfAbsent(row.getLessonId(), row);
+            List<AssignmentNode> assignments = assignmentsByLesson.computeIfAbsent(row.getLessonId(), id -> new ArrayList<>());
+            if (row.getAssignmentId() != null) {
+                assignments.add(new AssignmentNode(row.getAssignmentId(), row.getAssignmentTitle(),
+                        row.getDueDate(), row.getMaxScore()));
+            }
+        }
+
+        List<ModuleNode> moduleNodes = new ArrayList<>(modules.size());
+        for (CourseTreeRow module : modules.values()) {
+            List<LessonNode> lessonNodes = new ArrayList<>();
+            for (CourseTreeRow lesson : lessonsByModule.get(module.getModuleId()).values()) {
+                lessonNodes.add(new LessonNode(lesson.getLessonId(), lesson.getLessonTitle(), lesson.getVideoUrl(),
+                        List.copyOf(assignmentsByLesson.get(lesson.getLessonId()))));
+            }
+
+            QuizNode quiz = module.getQuizId() == null
+                    ? null
+                    : new QuizNode(module.getQuizId(), module.getQuizTitle(), module.getTimeLimit());
+            moduleNodes.add(new ModuleNode(module.getModuleId(), module.getModuleTitle(), module.getModuleDescription(),
+                    module.getOrderIndex(), quiz, List.copyOf(lessonNodes)));
+        }
+
+        return new CourseTreeDto(courseId, title, List.copyOf(moduleNodes));
+    }
+}
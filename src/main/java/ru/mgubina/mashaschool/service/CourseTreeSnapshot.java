@@ -0,0 +1,9 @@
+package ru.mgubina.mashaschool.service;
+
+import ru.mgubina.mashaschool.dto.CourseTreeDto;
+
+/**
+ * Программа курса вместе с готовым JSON и его ETag.
+ */
+public record CourseTreeSnapshot(CourseTreeDto tree, byte[] json, String etag) {
+}
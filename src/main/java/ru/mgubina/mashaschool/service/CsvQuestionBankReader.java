@@ -0,0 +1,127 @@
+package ru.mgubina.mashaschool.service;
+
+import ru.mgubina.mashaschool.dto.QuestionBankItemDto;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Банк вопросов в CSV (RFC 4180, UTF-8): первая запись - заголовок и пропускается, далее запись на вопрос:
+ * {@code text,type,option,correct[,option,correct...]}, correct - true/false, пустой type - тип не указан.
+ * Поля в кавычках могут содержать запятые и переводы строк. Запись длиннее MAX_RECORD_CHARS прерывает чтение.
+ */
+class CsvQuestionBankReader implements QuestionBankReader {
+
+    static final int MAX_RECORD_CHARS = 1 << 20;
+
+    private final BufferedReader reader;
+    private final StringBuilder field = new StringBuilder();
+    private int number;
+    private int recordChars;
+
+    CsvQuestionBankReader(InputStream input) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public Row next() throws IOException {
+        List<String> fields;
+        if (number == 0) {
+            number++;
+            if (readRecord() == null) {
+                return null;
+            }
+        }
+        do {
+            fields = readRecord();
+            if (fields == null) {
+                return null;
+            }
+            number++;
+            // Пустые строки между записями пропускаются
+        } while (fields.size() == 1 && fields.get(0).isEmpty());
+        // Номер записи без заголовка, как номер элемента в JSON
+        int row = number - 1;
+
+        if (fields.size() < 2 || fields.size() % 2 != 0) {
+            return new Row(row, null, "Expected text, type and option/correct pairs, got " + fields.size() + " fields");
+        }
+        List<QuestionBankItemDto.Option> options = new ArrayList<>(fields.size() / 2 - 1);
+        for (int i = 2; i < fields.size(); i += 2) {
+            String correct = fields.get(i + 1).trim();
+            if (!correct.equalsIgnoreCase("true") && !correct.equalsIgnoreCase("false")) {
+                return new Row(row, null, "Option correct flag must be true or false, got '" + correct + "'");
+            }
+            options.add(new QuestionBankItemDto.Option(fields.get(i), Boolean.parseBoolean(correct)));
+        }
+        String type = fields.get(1).trim();
+        return new Row(row, new QuestionBankItemDto(fields.get(0), type.isEmpty() ? null : type, options), null);
+    }
+
+    /**
+     * @return поля очередной записи, null - конец файла
+     */
+    private List<String> readRecord() throws IOException {
+        int c = reader.read();
+        if (c < 0) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        field.setLength(0);
+        recordChars = 0;
+        boolean quoted = false;
+        while (true) {
+            if (c < 0) {
+                if (quoted) {
+                    throw new MalformedQuestionBankException(number, "Unterminated quoted field");
+                }
+                fields.add(field.toString());
+                return fields;
+            }
+            if (++recordChars > MAX_RECORD_CHARS) {
+                throw new MalformedQuestionBankException(number, "Record is longer than " + MAX_RECORD_CHARS + " characters");
+            }
+            char ch = (char) c;
+            if (quoted) {
+                if (ch == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    field.append(ch);
+                }
+            } else if (ch == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (ch == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (ch == '\n' || ch == '\r') {
+                if (ch == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append(ch);
+            }
+            c = reader.read();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,152 @@
+package ru.mgubina.mashaschool.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Фильтры Блума пар (студент, курс) из enrollment и (студент, задание) из submission, заполняются из БД
+ * при первой проверке. Если фильтр отвечает "пары нет", запрос на существование не нужен: вставка идёт сразу,
+ * а редкий пропуск (пара, закоммиченная во время загрузки фильтра) ловит уникальное ограничение.
+ * На "возможно есть" сервис проверяет пару запросом. Удалённые пары в фильтре остаются и стоят лишь этого запроса.
+ * <p>
+ * Фильтр, в который добавили больше пар, чем он рассчитан, перестраивается из БД; до конца перестройки
+ * проверки идут по старому фильтру.
+ */
+@Component
+public class DuplicateGuard {
+
+    private final Pairs enrollments;
+    private final Pairs submissions;
+
+    public DuplicateGuard(JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+                          @Value("${mashaschool.duplicate-guard.expected-pairs:1000000}") long expectedPairs,
+                          @Value("${mashaschool.duplicate-guard.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.enrollments = new Pairs("enrollment", "select user_id, course_id from enrollment",
+                jdbcTemplate, meterRegistry, expectedPairs, falsePositiveRate);
+        this.submissions = new Pairs("submission", "select student_id, assignment_id from submission",
+                jdbcTemplate, meterRegistry, expectedPairs, falsePositiveRate);
+    }
+
+    public boolean mayBeEnrolled(long userId, long courseId) {
+        return enrollments.mightContain(userId, courseId);
+    }
+
+    public void enrollmentCommitted(long userId, long courseId) {
+        afterCommit(() -> enrollments.add(userId, courseId));
+    }
+
+    /**
+     * Пара уже есть в БД (например, вставку отклонило уникальное ограничение) - запоминается сразу.
+     */
+    public void enrollmentExists(long userId, long courseId) {
+        enrollments.add(userId, courseId);
+    }
+
+    public boolean mayHaveSubmitted(long studentId, long assignmentId) {
+        return submissions.mightContain(studentId, assignmentId);
+    }
+
+    public void submissionCommitted(long studentId, long assignmentId) {
+        afterCommit(() -> submissions.add(studentId, assignmentId));
+    }
+
+    public void submissionExists(long studentId, long assignmentId) {
+        submissions.add(studentId, assignmentId);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static final class Pairs {
+
+        private final String table;
+        private final String selectSql;
+        private final JdbcTemplate jdbcTemplate;
+        private final long expectedPairs;
+        private final double falsePositiveRate;
+        private final ReentrantLock loadLock = new ReentrantLock();
+        private final Counter absentCounter;
+        private final Counter maybeCounter;
+        private volatile PairBloomFilter filter;
+
+        Pairs(String table, String selectSql, JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry,
+              long expectedPairs, double falsePositiveRate) {
+            this.table = table;
+            this.selectSql = selectSql;
+            this.jdbcTemplate = jdbcTemplate;
+            this.expectedPairs = expectedPairs;
+            this.falsePositiveRate = falsePositiveRate;
+            this.absentCounter = checks(meterRegistry, table, "absent");
+            this.maybeCounter = checks(meterRegistry, table, "maybe");
+        }
+
+        boolean mightContain(long first, long second) {
+            boolean maybe = filter().mightContain(first, second);
+            (maybe ? maybeCounter : absentCounter).increment();
+            return maybe;
+        }
+
+        void add(long first, long second) {
+            // До первой проверки фильтра нет: загрузка прочитает пару из БД
+            PairBloomFilter current = filter;
+            if (current != null) {
+                current.add(first, second);
+            }
+        }
+
+        private PairBloomFilter filter() {
+            PairBloomFilter current = filter;
+            if (current == null) {
+                loadLock.lock();
+            } else if (!current.isSaturated() || !loadLock.tryLock()) {
+                return current;
+            }
+            try {
+                current = filter;
+                if (current == null || current.isSaturated()) {
+                    current = load();
+                    filter = current;
+                }
+                return current;
+            } finally {
+                loadLock.unlock();
+            }
+        }
+
+        private PairBloomFilter load() {
+            Long rows = jdbcTemplate.queryForObject("select count(*) from " + table, Long.class);
+            // Запас вдвое, чтобы фильтр не перестраивался после каждой сотни новых записей
+            PairBloomFilter loaded = new PairBloomFilter(Math.max(expectedPairs, 2 * (rows == null ? 0 : rows)),
+                    falsePositiveRate);
+            jdbcTemplate.query(selectSql, rs -> {
+                loaded.add(rs.getLong(1), rs.getLong(2));
+            });
+            return loaded;
+        }
+
+        private static Counter checks(MeterRegistry meterRegistry, String table, String result) {
+            return Counter.builder("mashaschool.duplicate.guard.checks")
+                    .description("Duplicate checks answered by the in-memory filter")
+                    .tag("table", table)
+                    .tag("result", result)
+                    .register(meterRegistry);
+        }
+    }
+}
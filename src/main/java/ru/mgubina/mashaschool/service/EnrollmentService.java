@@ -4,24 +4,31 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.mgubina.mashaschool.config.SqlBudget;
 import ru.mgubina.mashaschool.entity.Course;
 import ru.mgubina.mashaschool.entity.Enrollment;
 import ru.mgubina.mashaschool.entity.User;
 import ru.mgubina.mashaschool.exception.DuplicateEnrollmentException;
 import ru.mgubina.mashaschool.repository.CourseRepository;
+import ru.mgubina.mashaschool.repository.EnrollmentBatchWriter;
 import ru.mgubina.mashaschool.repository.EnrollmentRepository;
 import ru.mgubina.mashaschool.repository.UserRepository;
 
 import java.time.LocalDate;
-import java.util.List;
+import java.util.*;
 
 @Service
 @RequiredArgsConstructor
 public class EnrollmentService {
 
+    // Размер порции id для запросов с IN
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
     private final EnrollmentRepository enrollmentRepository;
     private final CourseRepository courseRepository;
     private final UserRepository userRepository;
+    private final EnrollmentBatchWriter enrollmentBatchWriter;
+    private final DuplicateGuard duplicateGuard;
 
     @Transactional
     public long enrollStudent(long courseId, long studentId) {
@@ -31,7 +38,9 @@ public class EnrollmentService {
         User student = userRepository.findById(studentId)
                 .orElseThrow(() -> new IllegalArgumentException("User not found: " + studentId));
 
-        if (enrollmentRepository.findByUserIdAndCourseId(studentId, courseId).isPresent()) {
+        // Запрос нужен, только если фильтр не может исключить запись; иначе дубль отсечёт уникальное ограничение
+        if (duplicateGuard.mayBeEnrolled(studentId, courseId)
+                && enrollmentRepository.existsByUserIdAndCourseId(studentId, courseId)) {
             throw new DuplicateEnrollmentException(
                     String.format("Student %d is already enrolled in course %d", studentId, courseId)
             );
@@ -45,9 +54,11 @@ public class EnrollmentService {
                 .build();
 
         try {
-            Enrollment saved = enrollmentRepository.save(enrollment);
+            Enrollment saved = enrollmentRepository.saveAndFlush(enrollment);
+            duplicateGuard.enrollmentCommitted(studentId, courseId);
             return saved.getId();
         } catch (DataIntegrityViolationException e) {
+            duplicateGuard.enrollmentExists(studentId, courseId);
             throw new DuplicateEnrollmentException(
                     String.format("Student %d is already enrolled in course %d", studentId, courseId),
                     e
@@ -55,7 +66,53 @@ public class EnrollmentService {
         }
     }
 
+    @Transactional
+    public BulkEnrollmentResult enrollStudents(long courseId, Collection<Long> studentIds) {
+        if (!courseRepository.existsById(courseId)) {
+            throw new IllegalArgumentException("Course not found: " + courseId);
+        }
+
+        List<Long> requested = new ArrayList<>(new LinkedHashSet<>(studentIds));
+        Set<Long> existingUsers = new HashSet<>(requested.size());
+        Set<Long> alreadyEnrolled = new HashSet<>();
+        for (List<Long> chunk : chunks(requested)) {
+            existingUsers.addAll(userRepository.findExistingIds(chunk));
+            alreadyEnrolled.addAll(enrollmentRepository.findEnrolledUserIds(courseId, chunk));
+        }
+
+        List<Long> unknownUsers = new ArrayList<>();
+        List<Long> toEnroll = new ArrayList<>();
+        for (Long studentId : requested) {
+            if (!existingUsers.contains(studentId)) {
+                unknownUsers.add(studentId);
+            } else if (!alreadyEnrolled.contains(studentId)) {
+                toEnroll.add(studentId);
+            }
+        }
+
+        List<Long> enrolled = enrollmentBatchWriter.insert(courseId, toEnroll, LocalDate.now(), "Active");
+        enrolled.forEach(studentId -> duplicateGuard.enrollmentCommitted(studentId, courseId));
+
+        // Кто успел записаться параллельно, пока шла проверка, тоже считается уже записанным
+        Set<Long> enrolledSet = new HashSet<>(enrolled);
+        List<Long> duplicates = requested.stream()
+                .filter(id -> alreadyEnrolled.contains(id)
+                        || (existingUsers.contains(id) && !enrolledSet.contains(id)))
+                .toList();
+
+        return new BulkEnrollmentResult(enrolled, duplicates, unknownUsers);
+    }
+
+    private static List<List<Long>> chunks(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += LOOKUP_CHUNK_SIZE) {
+            chunks.add(ids.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, ids.size())));
+        }
+        return chunks;
+    }
+
     @Transactional(readOnly = true)
+    @SqlBudget(statements = 2)
     public List<Course> getCoursesForStudent(long studentId) {
         if (!userRepository.existsById(studentId)) {
             throw new IllegalArgumentException("User not found: " + studentId);
@@ -84,6 +141,7 @@ public class EnrollmentService {
     }
 
     @Transactional(readOnly = true)
+    @SqlBudget(statements = 2)
     public List<User> getStudentsForCourse(long courseId) {
         if (!courseRepository.existsById(courseId)) {
             throw new IllegalArgumentException("Course not found: " + courseId);
@@ -100,5 +158,7 @@ public class EnrollmentService {
                 })
                 .toList();
     }
-}
 
+    public record BulkEnrollmentResult(List<Long> enrolled, List<Long> alreadyEnrolled, List<Long> unknownUsers) {
+    }
+}
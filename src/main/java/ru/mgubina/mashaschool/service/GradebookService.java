@@ -0,0 +1,86 @@
+package ru.mgubina.mashaschool.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.mgubina.mashaschool.config.SqlBudget;
+import ru.mgubina.mashaschool.repository.CourseRepository;
+import ru.mgubina.mashaschool.repository.GradebookEntryRow;
+import ru.mgubina.mashaschool.repository.GradebookStore;
+import ru.mgubina.mashaschool.repository.GradebookTotalRow;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Журнал оценок курса из gradebook_total и gradebook_entry, которые обновляются вместе с оценками
+ * ({@link SubmissionService#grade}, {@link QuizSubmissionIngestor}) или пакетами вскоре после них
+ * ({@link QuizGradebookRecorder} для {@link QuizService#takeQuiz}).
+ * Итог студента - взвешенный процент по заданиям и тестам; вес вида без известного максимума
+ * переходит к другому виду.
+ */
+@Service
+public class GradebookService {
+
+    private final CourseRepository courseRepository;
+    private final GradebookStore gradebookStore;
+    private final double assignmentWeight;
+    private final double quizWeight;
+
+    public GradebookService(CourseRepository courseRepository, GradebookStore gradebookStore,
+                            @Value("${mashaschool.gradebook.assignment-weight:0.6}") double assignmentWeight,
+                            @Value("${mashaschool.gradebook.quiz-weight:0.4}") double quizWeight) {
+        if (assignmentWeight < 0 || quizWeight < 0 || assignmentWeight + quizWeight <= 0) {
+            throw new IllegalArgumentException("Gradebook weights must be non-negative with a positive sum");
+        }
+        this.courseRepository = courseRepository;
+        this.gradebookStore = gradebookStore;
+        this.assignmentWeight = assignmentWeight;
+        this.quizWeight = quizWeight;
+    }
+
+    @Transactional(readOnly = true)
+    @SqlBudget(statements = 3)
+    public Gradebook getGradebook(long courseId) {
+        if (!courseRepository.existsById(courseId)) {
+            throw new IllegalArgumentException("Course not found: " + courseId);
+        }
+
+        Map<Long, List<GradebookEntryRow>> entriesByStudent = new HashMap<>();
+        for (GradebookEntryRow entry : gradebookStore.findEntries(courseId)) {
+            entriesByStudent.computeIfAbsent(entry.studentId(), id -> new ArrayList<>()).add(entry);
+        }
+
+        List<StudentGrades> students = new ArrayList<>();
+        for (GradebookTotalRow total : gradebookStore.findTotals(courseId)) {
+            students.add(new StudentGrades(total, finalPercent(total),
+                    entriesByStudent.getOrDefault(total.studentId(), List.of())));
+        }
+        return new Gradebook(courseId, students);
+    }
+
+    /**
+     * @return итог в процентах или null, если ни по заданиям, ни по тестам максимум не известен
+     */
+    Double finalPercent(GradebookTotalRow total) {
+        double weighted = 0;
+        double weights = 0;
+        if (total.assignmentMaxScore() > 0) {
+            weighted += assignmentWeight * total.assignmentScore() / total.assignmentMaxScore();
+            weights += assignmentWeight;
+        }
+        if (total.quizMaxScore() > 0) {
+            weighted += quizWeight * total.quizScore() / total.quizMaxScore();
+            weights += quizWeight;
+        }
+        return weights == 0 ? null : 100 * weighted / weights;
+    }
+
+    public record StudentGrades(GradebookTotalRow total, Double finalPercent, List<GradebookEntryRow> entries) {
+    }
+
+    public record Gradebook(long courseId, List<StudentGrades> students) {
+    }
+}
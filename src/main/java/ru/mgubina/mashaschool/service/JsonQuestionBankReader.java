@@ -0,0 +1,100 @@
+package ru.mgubina.mashaschool.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import ru.mgubina.mashaschool.dto.QuestionBankItemDto;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Банк вопросов - JSON-массив объектов {@link QuestionBankItemDto}. Массив читается потоково, по одному элементу:
+ * элемент неверной структуры становится ошибкой строки, синтаксическая ошибка JSON прерывает чтение.
+ * Элемент длиннее MAX_ELEMENT_BYTES прерывает чтение, не попадая в память целиком.
+ */
+class JsonQuestionBankReader implements QuestionBankReader {
+
+    static final int MAX_ELEMENT_BYTES = 1 << 20;
+
+    private final ObjectMapper objectMapper;
+    private final JsonParser parser;
+    private int number;
+    private boolean started;
+
+    JsonQuestionBankReader(ObjectMapper objectMapper, InputStream input) throws IOException {
+        this.objectMapper = objectMapper;
+        // Одна строка не длиннее элемента: парсер отвергает её раньше, чем соберёт в памяти
+        JsonFactory factory = objectMapper.getFactory().rebuild()
+                .streamReadConstraints(StreamReadConstraints.builder().maxStringLength(MAX_ELEMENT_BYTES).build())
+                .build();
+        this.parser = factory.createParser(input);
+    }
+
+    @Override
+    public Row next() throws IOException {
+        try {
+            if (!started) {
+                started = true;
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    throw new MalformedQuestionBankException(0, "Question bank must be a JSON array");
+                }
+            }
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.END_ARRAY || token == null) {
+                if (token == null) {
+                    throw new MalformedQuestionBankException(number + 1, "Unexpected end of question bank");
+                }
+                return null;
+            }
+            number++;
+            // Дерево одного элемента ограничивает память и позволяет пропустить элемент с ошибкой
+            JsonNode node = readElement();
+            if (!node.isObject()) {
+                return new Row(number, null, "Question must be a JSON object");
+            }
+            try {
+                return new Row(number, objectMapper.treeToValue(node, QuestionBankItemDto.class), null);
+            } catch (JsonProcessingException e) {
+                return new Row(number, null, e.getOriginalMessage());
+            }
+        } catch (JsonProcessingException e) {
+            throw new MalformedQuestionBankException(number, "Malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private JsonNode readElement() throws IOException {
+        long start = parser.currentTokenLocation().getByteOffset();
+        TokenBuffer buffer = new TokenBuffer(parser);
+        buffer.copyCurrentEvent(parser);
+        int depth = parser.currentToken().isStructStart() ? 1 : 0;
+        while (depth > 0) {
+            JsonToken token = parser.nextToken();
+            if (token == null) {
+                throw new MalformedQuestionBankException(number, "Unexpected end of question bank");
+            }
+            if (parser.currentLocation().getByteOffset() - start > MAX_ELEMENT_BYTES) {
+                throw new MalformedQuestionBankException(number, "Question is longer than " + MAX_ELEMENT_BYTES + " bytes");
+            }
+            buffer.copyCurrentEvent(parser);
+            if (token.isStructStart()) {
+                depth++;
+            } else if (token.isStructEnd()) {
+                depth--;
+            }
+        }
+        try (JsonParser element = buffer.asParser(objectMapper)) {
+            return objectMapper.readTree(element);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
@@ -0,0 +1,94 @@
+package ru.mgubina.mashaschool.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.mgubina.mashaschool.config.SqlBudget;
+import ru.mgubina.mashaschool.repository.CourseRepository;
+import ru.mgubina.mashaschool.repository.LessonProgressRow;
+import ru.mgubina.mashaschool.repository.LessonProgressStore;
+import ru.mgubina.mashaschool.repository.LessonSlotRow;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Прохождение уроков студентами курса. Пройденные уроки хранятся битами в записи на курс
+ * ({@link LessonProgressStore}); процент и следующий урок считаются по урокам, которые есть в курсе сейчас,
+ * поэтому биты удалённых уроков ни на что не влияют.
+ */
+@Service
+@RequiredArgsConstructor
+public class LessonProgressService {
+
+    private final LessonProgressStore lessonProgressStore;
+    private final CourseRepository courseRepository;
+
+    @Transactional
+    public void markCompleted(long lessonId, long studentId) {
+        setCompleted(lessonId, studentId, true);
+    }
+
+    @Transactional
+    public void markIncomplete(long lessonId, long studentId) {
+        setCompleted(lessonId, studentId, false);
+    }
+
+    @Transactional(readOnly = true)
+    @SqlBudget(statements = 3)
+    public CourseProgress getCourseProgress(long courseId) {
+        if (!courseRepository.existsById(courseId)) {
+            throw new IllegalArgumentException("Course not found: " + courseId);
+        }
+
+        List<LessonSlotRow> lessons = lessonProgressStore.findCourseSlots(courseId);
+        List<StudentProgress> students = new ArrayList<>();
+        for (LessonProgressRow row : lessonProgressStore.findProgress(courseId)) {
+            int completed = 0;
+            LessonSlotRow next = null;
+            for (LessonSlotRow lesson : lessons) {
+                // У урока без номера ещё не было отметок
+                if (lesson.ordinal() != null && row.completedLessons().get(lesson.ordinal())) {
+                    completed++;
+                } else if (next == null) {
+                    next = lesson;
+                }
+            }
+            students.add(new StudentProgress(
+                    row.studentId(),
+                    row.studentName(),
+                    completed,
+                    lessons.isEmpty() ? null : 100.0 * completed / lessons.size(),
+                    next == null ? null : next.lessonId(),
+                    next == null ? null : next.title()
+            ));
+        }
+        return new CourseProgress(courseId, lessons.size(), students);
+    }
+
+    private void setCompleted(long lessonId, long studentId, boolean completed) {
+        LessonSlotRow lesson = lessonProgressStore.findSlot(lessonId)
+                .orElseThrow(() -> new IllegalArgumentException("Lesson not found: " + lessonId));
+        if (lesson.ordinal() == null) {
+            lessonProgressStore.assignOrdinals(lesson.courseId());
+            lesson = lessonProgressStore.findSlot(lessonId).orElseThrow();
+        }
+
+        if (!lessonProgressStore.setCompleted(lesson.courseId(), studentId, lesson.ordinal(), completed)) {
+            throw new IllegalArgumentException(
+                    String.format("Student %d is not enrolled in course %d", studentId, lesson.courseId())
+            );
+        }
+    }
+
+    /**
+     * @param percentComplete null, если в курсе нет уроков
+     * @param nextLessonId    первый непройденный урок в порядке курса, null - пройдены все
+     */
+    public record StudentProgress(long studentId, String studentName, int completedLessons, Double percentComplete,
+                                  Long nextLessonId, String nextLessonTitle) {
+    }
+
+    public record CourseProgress(long courseId, int lessonCount, List<StudentProgress> students) {
+    }
+}
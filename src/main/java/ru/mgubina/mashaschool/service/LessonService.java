@@ -4,6 +4,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.mgubina.mashaschool.entity.Lesson;
+import ru.mgubina.mashaschool.repository.GradebookStore;
 import ru.mgubina.mashaschool.repository.LessonRepository;
 
 import java.util.List;
@@ -13,6 +14,8 @@ import java.util.List;
 public class LessonService {
 
     private final LessonRepository lessonRepository;
+    private final CourseTreeCache courseTreeCache;
+    private final GradebookStore gradebookStore;
 
     @Transactional(readOnly = true)
     public Lesson getLessonById(Long id) {
@@ -40,15 +43,17 @@ public class LessonService {
             lesson.setVideoUrl(videoUrl);
         }
 
+        courseTreeCache.evict(lesson.getModule().getCourse().getId());
         return lessonRepository.save(lesson);
     }
 
     @Transactional
     public void deleteLesson(Long id) {
-        if (!lessonRepository.existsById(id)) {
-            throw new IllegalArgumentException("Lesson not found: " + id);
-        }
-        lessonRepository.deleteById(id);
+        Lesson lesson = lessonRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Lesson not found: " + id));
+        courseTreeCache.evict(lesson.getModule().getCourse().getId());
+        gradebookStore.removeLessonItems(id);
+        lessonRepository.delete(lesson);
     }
 }
 
@@ -3,17 +3,24 @@ package ru.mgubina.mashaschool.service;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.mgubina.mashaschool.dto.CourseTreeDto;
 import ru.mgubina.mashaschool.entity.Lesson;
 import ru.mgubina.mashaschool.entity.Module;
+import ru.mgubina.mashaschool.repository.LessonProgressStore;
 import ru.mgubina.mashaschool.repository.LessonRepository;
 import ru.mgubina.mashaschool.repository.ModuleRepository;
 
+import java.util.List;
+
 @Service
 @RequiredArgsConstructor
 public class ModuleService {
 
     private final ModuleRepository moduleRepository;
     private final LessonRepository lessonRepository;
+    private final CourseTreeCache courseTreeCache;
+    private final LessonProgressStore lessonProgressStore;
+    private final CourseSubtreePurger courseSubtreePurger;
 
     @Transactional
     public Long addLesson(Long moduleId, String title, String content, String videoUrl) {
@@ -27,7 +34,11 @@ public class ModuleService {
                 .module(module)
                 .build();
 
-        Lesson savedLesson = lessonRepository.save(lesson);
+        Lesson savedLesson = lessonRepository.saveAndFlush(lesson);
+        // Новый урок получает следующий номер бита прогресса, номера остальных уроков не меняются
+        lessonProgressStore.assignOrdinals(module.getCourse().getId());
+        courseTreeCache.lessonAdded(module.getCourse().getId(), moduleId,
+                new CourseTreeDto.LessonNode(savedLesson.getId(), title, videoUrl, List.of()));
         return savedLesson.getId();
     }
 
@@ -37,12 +48,13 @@ public class ModuleService {
                 .orElseThrow(() -> new IllegalArgumentException("Module not found: " + id));
     }
 
-    @Transactional
+    /**
+     * Дерево модуля удаляется запросами {@link CourseSubtreePurger} в одной транзакции.
+     */
     public void deleteModule(Long id) {
-        if (!moduleRepository.existsById(id)) {
-            throw new IllegalArgumentException("Module not found: " + id);
-        }
-        moduleRepository.deleteById(id);
+        Long courseId = moduleRepository.findCourseIdById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Module not found: " + id));
+        courseSubtreePurger.purgeModule(id, courseId);
     }
 }
 
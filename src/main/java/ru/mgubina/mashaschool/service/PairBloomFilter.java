@@ -0,0 +1,70 @@
+package ru.mgubina.mashaschool.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Фильтр Блума для пар id. Добавление и проверка без блокировок: биты взводятся CAS над AtomicLongArray.
+ * Ответ false точен - пара не добавлялась; true означает "возможно" с долей ложных срабатываний
+ * falsePositiveRate, пока добавлено не больше capacity пар.
+ */
+final class PairBloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+    private final long capacity;
+    private final AtomicLong added = new AtomicLong();
+
+    PairBloomFilter(long capacity, double falsePositiveRate) {
+        long bits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.max(1, (bits + Long.SIZE - 1) / Long.SIZE);
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount * Long.SIZE;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / capacity * Math.log(2)));
+        this.capacity = capacity;
+    }
+
+    void add(long first, long second) {
+        long hash1 = mix(first * 0x9E3779B97F4A7C15L + second);
+        long hash2 = mix(second * 0xC2B2AE3D27D4EB4FL ^ first);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = ((hash1 + i * hash2) & Long.MAX_VALUE) % bitCount;
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            if ((words.get(word) & mask) == 0) {
+                words.accumulateAndGet(word, mask, (current, set) -> current | set);
+            }
+        }
+        added.incrementAndGet();
+    }
+
+    boolean mightContain(long first, long second) {
+        long hash1 = mix(first * 0x9E3779B97F4A7C15L + second);
+        long hash2 = mix(second * 0xC2B2AE3D27D4EB4FL ^ first);
+        for (int i = 0; i < hashCount; i++) {
+            long bit = ((hash1 + i * hash2) & Long.MAX_VALUE) % bitCount;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Добавлено больше пар, чем рассчитан фильтр: доля ложных срабатываний выше заданной.
+     */
+    boolean isSaturated() {
+        return added.get() > capacity;
+    }
+
+    // Финальное перемешивание MurmurHash3
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xFF51AFD7ED558CCDL;
+        value ^= value >>> 33;
+        value *= 0xC4CEB9FE1A85EC53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
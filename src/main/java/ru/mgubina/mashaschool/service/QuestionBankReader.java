@@ -0,0 +1,39 @@
+package ru.mgubina.mashaschool.service;
+
+import ru.mgubina.mashaschool.dto.QuestionBankItemDto;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Потоковое чтение банка вопросов: в памяти только текущий вопрос.
+ */
+interface QuestionBankReader extends Closeable {
+
+    /**
+     * @return следующий вопрос (или ошибка его разбора), null - банк прочитан
+     * @throws MalformedQuestionBankException файл испорчен, дальше читать нельзя
+     */
+    Row next() throws IOException;
+
+    /**
+     * @param number номер вопроса в банке: элемент массива JSON или запись CSV, с единицы
+     * @param error  ошибка разбора, тогда question - null
+     */
+    record Row(int number, QuestionBankItemDto question, String error) {
+    }
+
+    class MalformedQuestionBankException extends RuntimeException {
+
+        private final int row;
+
+        MalformedQuestionBankException(int row, String message) {
+            super(message);
+            this.row = row;
+        }
+
+        int getRow() {
+            return row;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package ru.mgubina.mashaschool.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.mgubina.mashaschool.dto.QuestionBankItemDto;
+import ru.mgubina.mashaschool.repository.GradebookStore;
+import ru.mgubina.mashaschool.repository.QuestionBatchWriter;
+import ru.mgubina.mashaschool.repository.QuizRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Импорт банка вопросов в тест. Банк читается потоково ({@link QuestionBankReader}), проверенные вопросы
+ * пишутся JDBC-пакетами по batch-size вопросов, каждый пакет - в своей транзакции: в памяти не больше одного пакета,
+ * а ошибка в середине файла не откатывает уже записанные пакеты. Вопросы с ошибками пропускаются и попадают в отчёт.
+ */
+@Service
+@Slf4j
+public class QuestionImportService {
+
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private final QuizRepository quizRepository;
+    private final QuestionBatchWriter questionBatchWriter;
+    private final GradebookStore gradebookStore;
+    private final QuizAnswerKeyCache answerKeyCache;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final int batchSize;
+
+    public QuestionImportService(QuizRepository quizRepository, QuestionBatchWriter questionBatchWriter,
+                                 GradebookStore gradebookStore, QuizAnswerKeyCache answerKeyCache,
+                                 TransactionTemplate transactionTemplate, ObjectMapper objectMapper,
+                                 Validator validator,
+                                 @Value("${mashaschool.question-import.batch-size:500}") int batchSize) {
+        this.quizRepository = quizRepository;
+        this.questionBatchWriter = questionBatchWriter;
+        this.gradebookStore = gradebookStore;
+        this.answerKeyCache = answerKeyCache;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.batchSize = batchSize;
+    }
+
+    public ImportResult importJson(long quizId, InputStream input) throws IOException {
+        return importQuestions(quizId, new JsonQuestionBankReader(objectMapper, input));
+    }
+
+    public ImportResult importCsv(long quizId, InputStream input) throws IOException {
+        return importQuestions(quizId, new CsvQuestionBankReader(input));
+    }
+
+    private ImportResult importQuestions(long quizId, QuestionBankReader reader) throws IOException {
+        if (!quizRepository.existsById(quizId)) {
+            throw new IllegalArgumentException("Quiz not found: " + quizId);
+        }
+
+        Progress progress = new Progress();
+        List<QuestionBatchWriter.NewQuestion> batch = new ArrayList<>(batchSize);
+        boolean completed = true;
+        try {
+            try (reader) {
+                QuestionBankReader.Row row;
+                while ((row = reader.next()) != null) {
+                    String error = row.error() != null ? row.error() : validate(row.question());
+                    if (error != null) {
+                        progress.fail(row.number(), error);
+                        continue;
+                    }
+                    batch.add(toNewQuestion(row.question()));
+                    if (batch.size() == batchSize) {
+                        write(quizId, batch, progress);
+                    }
+                }
+            } catch (QuestionBankReader.MalformedQuestionBankException e) {
+                progress.fail(e.getRow(), e.getMessage());
+                completed = false;
+            }
+            // Вопросы, прочитанные до ошибки в файле, тоже записываются
+            if (!batch.isEmpty()) {
+                write(quizId, batch, progress);
+            }
+        } finally {
+            // Записанные пакеты остаются и при обрыве импорта
+            if (progress.imported > 0) {
+                answerKeyCache.evict(quizId);
+                transactionTemplate.executeWithoutResult(status -> gradebookStore.refreshQuizMaxScore(quizId));
+            }
+        }
+
+        log.info("Imported {} questions into quiz {}, {} rows rejected", progress.imported, quizId, progress.failed);
+        return new ImportResult(quizId, progress.imported, progress.failed, completed, progress.errors);
+    }
+
+    private void write(long quizId, List<QuestionBatchWriter.NewQuestion> batch, Progress progress) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> questionBatchWriter.insert(quizId, batch));
+        } catch (DataIntegrityViolationException e) {
+            // Тест удалили во время импорта; прочие нарушения ограничений остаются конфликтом
+            if (!quizRepository.existsById(quizId)) {
+                throw new IllegalArgumentException("Quiz not found: " + quizId, e);
+            }
+            throw e;
+        }
+        progress.imported += batch.size();
+        batch.clear();
+    }
+
+    private String validate(QuestionBankItemDto question) {
+        Set<ConstraintViolation<QuestionBankItemDto>> violations = validator.validate(question);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .sorted(Comparator.comparing(violation -> violation.getPropertyPath().toString()))
+                    .map(ConstraintViolation::getMessage)
+                    .reduce((first, second) -> first + "; " + second)
+                    .orElseThrow();
+        }
+        long correct = question.getOptions().stream().filter(QuestionBankItemDto.Option::getCorrect).count();
+        if (correct == 0) {
+            return "At least one option must be correct";
+        }
+        if ("SINGLE_CHOICE".equals(question.getType()) && correct > 1) {
+            return "A single choice question must have exactly one correct option";
+        }
+        return null;
+    }
+
+    private static QuestionBatchWriter.NewQuestion toNewQuestion(QuestionBankItemDto question) {
+        return new QuestionBatchWriter.NewQuestion(
+                question.getText(),
+                question.getType(),
+                question.getOptions().stream()
+                        .map(option -> new QuestionBatchWriter.NewOption(option.getText(), option.getCorrect()))
+                        .toList()
+        );
+    }
+
+    private static final class Progress {
+
+        int imported;
+        int failed;
+        final List<RowError> errors = new ArrayList<>();
+
+        void fail(int row, String message) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new RowError(row, message));
+            }
+        }
+    }
+
+    public record RowError(int row, String message) {
+    }
+
+    /**
+     * @param completed false - чтение прервала ошибка в файле, последняя ошибка в errors
+     */
+    public record ImportResult(long quizId, int importedCount, int failedCount, boolean completed,
+                               List<RowError> errors) {
+    }
+}
@@ -0,0 +1,187 @@
+package ru.mgubina.mashaschool.service;
+
+import ru.mgubina.mashaschool.repository.AnswerKeyRow;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Неизменяемый скомпилированный ключ ответов теста и название теста для ответа на попытку.
+ * Вопросы и варианты хранятся в отсортированных массивах long, правильные варианты -
+ * битовой маской по порядковому номеру варианта внутри вопроса.
+ * Проверка ответов не создаёт промежуточных коллекций: варианты ищутся двоичным поиском,
+ * ответ верен, если все выбранные варианты правильные и их число совпадает с числом правильных.
+ */
+public final class QuizAnswerKey {
+
+    private final long quizId;
+    private final String quizTitle;
+    private final long[] questionIds;
+    private final long[][] optionIds;
+    private final long[][] correctOptionBits;
+    private final int[] correctOptionCounts;
+    private final int questionsWithoutCorrectOptions;
+
+    private QuizAnswerKey(long quizId, String quizTitle, long[] questionIds, long[][] optionIds,
+                          long[][] correctOptionBits) {
+        this.quizId = quizId;
+        this.quizTitle = quizTitle;
+        this.questionIds = questionIds;
+        this.optionIds = optionIds;
+        this.correctOptionBits = correctOptionBits;
+        this.correctOptionCounts = new int[questionIds.length];
+
+        int withoutCorrect = 0;
+        for (int i = 0; i < questionIds.length; i++) {
+            int count = 0;
+            for (long word : correctOptionBits[i]) {
+                count += Long.bitCount(word);
+            }
+            correctOptionCounts[i] = count;
+            if (count == 0) {
+                withoutCorrect++;
+            }
+        }
+        this.questionsWithoutCorrectOptions = withoutCorrect;
+    }
+
+    public static QuizAnswerKey fromRows(long quizId, List<AnswerKeyRow> rows) {
+        TreeMap<Long, TreeMap<Long, Boolean>> optionsByQuestion = new TreeMap<>();
+        for (AnswerKeyRow row : rows) {
+            if (row.getQuestionId() == null) {
+                // Тест без вопросов
+                continue;
+            }
+            TreeMap<Long, Boolean> options = optionsByQuestion.computeIfAbsent(row.getQuestionId(), id -> new TreeMap<>());
+            if (row.getOptionId() != null) {
+                options.put(row.getOptionId(), Boolean.TRUE.equals(row.getIsCorrect()));
+            }
+        }
+
+        int questionCount = optionsByQuestion.size();
+        long[] questionIds = new long[questionCount];
+        long[][] optionIds = new long[questionCount][];
+        long[][] correctOptionBits = new long[questionCount][];
+
+        int questionIndex = 0;
+        for (Map.Entry<Long, TreeMap<Long, Boolean>> question : optionsByQuestion.entrySet()) {
+            TreeMap<Long, Boolean> options = question.getValue();
+            long[] ids = new long[options.size()];
+            BitSet correct = new BitSet(options.size());
+
+            int optionIndex = 0;
+            for (Map.Entry<Long, Boolean> option : options.entrySet()) {
+                ids[optionIndex] = option.getKey();
+                if (option.getValue()) {
+                    correct.set(optionIndex);
+                }
+                optionIndex++;
+            }
+
+            questionIds[questionIndex] = question.getKey();
+            optionIds[questionIndex] = ids;
+            correctOptionBits[questionIndex] = correct.toLongArray();
+            questionIndex++;
+        }
+
+        String quizTitle = rows.isEmpty() ? null : rows.get(0).getQuizTitle();
+        return new QuizAnswerKey(quizId, quizTitle, questionIds, optionIds, correctOptionBits);
+    }
+
+    public long getQuizId() {
+        return quizId;
+    }
+
+    public String getQuizTitle() {
+        return quizTitle;
+    }
+
+    public int getQuestionCount() {
+        return questionIds.length;
+    }
+
+    public int grade(Map<Long, List<Long>> answersByQuestion) {
+        // Вопрос без ответа засчитывается, только если у него нет правильных вариантов
+        int correctAnswers = questionsWithoutCorrectOptions;
+
+        for (Map.Entry<Long, List<Long>> entry : answersByQuestion.entrySet()) {
+            long questionId = entry.getKey();
+            int questionIndex = Arrays.binarySearch(questionIds, questionId);
+            if (questionIndex < 0) {
+                throw new IllegalArgumentException(
+                        String.format("Question %d does not belong to quiz %d", questionId, quizId)
+                );
+            }
+
+            if (correctOptionCounts[questionIndex] == 0) {
+                correctAnswers--;
+            }
+            if (isAnsweredCorrectly(questionIndex, questionId, entry.getValue())) {
+                correctAnswers++;
+            }
+        }
+        return correctAnswers;
+    }
+
+    private boolean isAnsweredCorrectly(int questionIndex, long questionId, List<Long> selectedOptionIds) {
+        if (selectedOptionIds == null) {
+            return correctOptionCounts[questionIndex] == 0;
+        }
+
+        long[] options = optionIds[questionIndex];
+        long[] correctBits = correctOptionBits[questionIndex];
+        boolean allSelectedCorrect = true;
+        long seenLowOrdinals = 0;
+        int distinctSelected = 0;
+
+        int size = selectedOptionIds.size();
+        for (int i = 0; i < size; i++) {
+            Long selected = selectedOptionIds.get(i);
+            if (selected == null) {
+                throw new IllegalArgumentException(
+                        String.format("Option id for question %d must not be null", questionId)
+                );
+            }
+            long optionId = selected;
+            int ordinal = Arrays.binarySearch(options, optionId);
+            if (ordinal < 0) {
+                throw new IllegalArgumentException(
+                        String.format("Option %d does not belong to question %d", optionId, questionId)
+                );
+            }
+
+            if (isDuplicate(ordinal, seenLowOrdinals, options, selectedOptionIds, i)) {
+                continue;
+            }
+            if (ordinal < Long.SIZE) {
+                seenLowOrdinals |= 1L << ordinal;
+            }
+            distinctSelected++;
+
+            int word = ordinal >>> 6;
+            if (word >= correctBits.length || (correctBits[word] & (1L << ordinal)) == 0) {
+                allSelectedCorrect = false;
+            }
+        }
+
+        return allSelectedCorrect && distinctSelected == correctOptionCounts[questionIndex];
+    }
+
+    private static boolean isDuplicate(int ordinal, long seenLowOrdinals, long[] options,
+                                       List<Long> selectedOptionIds, int position) {
+        if (ordinal < Long.SIZE) {
+            return (seenLowOrdinals & (1L << ordinal)) != 0;
+        }
+        // Вопросы с более чем 64 вариантами редки - для них дубликаты ищутся перебором
+        long optionId = options[ordinal];
+        for (int i = 0; i < position; i++) {
+            if (selectedOptionIds.get(i) == optionId) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,70 @@
+package ru.mgubina.mashaschool.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+/**
+ * Кэш скомпилированных ключей ответов по id теста.
+ * Ключ загружается вне блокировки кэша и кладётся только если за время загрузки
+ * не было инвалидаций, иначе параллельная загрузка могла бы вернуть устаревший ключ.
+ * Инвалидации локальные, поэтому ключ живёт не дольше ttl: изменение теста на другом узле
+ * или в обход приложения видно здесь не позже чем через ttl.
+ */
+@Component
+public class QuizAnswerKeyCache {
+
+    private final Cache<Long, QuizAnswerKey> keys;
+    private final AtomicLong evictions = new AtomicLong();
+
+    public QuizAnswerKeyCache(@Value("${mashaschool.quiz-key-cache.max-size:10000}") long maxSize,
+                              @Value("${mashaschool.quiz-key-cache.ttl:10m}") Duration ttl) {
+        this.keys = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public QuizAnswerKey get(long quizId, LongFunction<QuizAnswerKey> loader) {
+        QuizAnswerKey cached = keys.getIfPresent(quizId);
+        if (cached != null) {
+            return cached;
+        }
+
+        long evictionsBeforeLoad = evictions.get();
+        QuizAnswerKey loaded = loader.apply(quizId);
+        if (evictions.get() == evictionsBeforeLoad) {
+            keys.asMap().putIfAbsent(quizId, loaded);
+        }
+        return loaded;
+    }
+
+    public void evict(long quizId) {
+        evictNow(quizId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(quizId);
+                }
+            });
+        }
+    }
+
+    public void evictAll(Collection<Long> quizIds) {
+        quizIds.forEach(this::evict);
+    }
+
+    private void evictNow(long quizId) {
+        evictions.incrementAndGet();
+        keys.invalidate(quizId);
+    }
+}
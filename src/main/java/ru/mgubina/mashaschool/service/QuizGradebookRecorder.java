@@ -0,0 +1,95 @@
+package ru.mgubina.mashaschool.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.mgubina.mashaschool.repository.GradebookStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Оценки попыток {@link QuizService#takeQuiz} в журнале: после коммита попытка ставится в очередь,
+ * а в gradebook_entry и gradebook_total очередь пишется пакетами по batch-size раз в flush-interval,
+ * вне потока запроса. В журнале остаётся лучшая попытка, поэтому порядок и повтор пакета на результат не влияют.
+ * Журнал отстаёт от попыток не больше чем на flush-interval; оценки, не записанные до падения узла, теряются.
+ */
+@Component
+@Slf4j
+public class QuizGradebookRecorder {
+
+    private final GradebookStore gradebookStore;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    private final Queue<GradebookStore.Grade> queue = new ConcurrentLinkedQueue<>();
+    private final Object flushLock = new Object();
+
+    public QuizGradebookRecorder(GradebookStore gradebookStore, TransactionTemplate transactionTemplate,
+                                 @Value("${mashaschool.gradebook.quiz-batch-size:500}") int batchSize) {
+        this.gradebookStore = gradebookStore;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    public void submissionTaken(long quizId, long studentId, int score) {
+        GradebookStore.Grade grade = new GradebookStore.Grade(quizId, studentId, score);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            queue.add(grade);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                queue.add(grade);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${mashaschool.gradebook.quiz-flush-interval:1s}")
+    public void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Failed to record quiz scores in the gradebook, will retry", e);
+        }
+    }
+
+    void flush() {
+        synchronized (flushLock) {
+            while (!queue.isEmpty()) {
+                List<GradebookStore.Grade> batch = new ArrayList<>(batchSize);
+                GradebookStore.Grade grade;
+                while (batch.size() < batchSize && (grade = queue.poll()) != null) {
+                    batch.add(grade);
+                }
+                write(batch);
+            }
+        }
+    }
+
+    private void write(List<GradebookStore.Grade> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> gradebookStore.recordQuizScores(batch));
+        } catch (RuntimeException e) {
+            // Пакет возвращается в очередь и повторяется на следующей выгрузке
+            queue.addAll(batch);
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        flushQuietly();
+        if (!queue.isEmpty()) {
+            log.error("{} quiz scores were not recorded in the gradebook", queue.size());
+        }
+    }
+}
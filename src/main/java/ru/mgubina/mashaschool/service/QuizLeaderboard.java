@@ -0,0 +1,161 @@
+package ru.mgubina.mashaschool.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.mgubina.mashaschool.repository.LeaderboardRow;
+import ru.mgubina.mashaschool.repository.QuizLeaderboardReader;
+import ru.mgubina.mashaschool.repository.QuizRepository;
+
+import java.time.OffsetDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Таблицы лидеров тестов: для каждого теста в памяти держатся лучшие попытки не более чем size студентов
+ * (балл по убыванию, затем более ранняя попытка). Чтение - копия массива из size элементов,
+ * сколько бы попыток ни было у теста.
+ * <p>
+ * Таблица заполняется одним запросом при первом чтении, новые попытки добавляются после коммита.
+ * Попытка, закоммиченная до появления таблицы, попадёт в запрос; пришедшая во время загрузки
+ * добавится в уже создаваемую таблицу. Порядок не важен: результат - всегда лучшие попытки по всем пришедшим.
+ */
+@Component
+public class QuizLeaderboard {
+
+    static final Comparator<LeaderboardRow> ORDER = Comparator
+            .comparingInt(LeaderboardRow::score).reversed()
+            .thenComparing(LeaderboardRow::takenAt, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparingLong(LeaderboardRow::submissionId);
+
+    private final Cache<Long, Board> boards;
+    private final QuizLeaderboardReader reader;
+    private final QuizRepository quizRepository;
+    private final int size;
+
+    public QuizLeaderboard(QuizLeaderboardReader reader, QuizRepository quizRepository,
+                           @Value("${mashaschool.leaderboard.size:100}") int size,
+                           @Value("${mashaschool.leaderboard.max-quizzes:1000}") long maxQuizzes) {
+        this.reader = reader;
+        this.quizRepository = quizRepository;
+        this.size = size;
+        this.boards = Caffeine.newBuilder()
+                .maximumSize(maxQuizzes)
+                .build();
+    }
+
+    public List<LeaderboardRow> top(long quizId, int limit) {
+        if (limit < 1 || limit > size) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + size);
+        }
+        Board board = boards.get(quizId, id -> new Board(size));
+        board.loadIfNeeded(quizId);
+        List<LeaderboardRow> entries = board.entries();
+        return entries.size() <= limit ? entries : entries.subList(0, limit);
+    }
+
+    public void submissionTaken(long quizId, long submissionId, long studentId, String studentName,
+                                int score, OffsetDateTime takenAt) {
+        LeaderboardRow row = new LeaderboardRow(submissionId, studentId, studentName, score, takenAt);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            offer(quizId, row);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                offer(quizId, row);
+            }
+        });
+    }
+
+    public void evict(long quizId) {
+        boards.invalidate(quizId);
+    }
+
+    private void offer(long quizId, LeaderboardRow row) {
+        // Таблицы ещё нет - её загрузка прочитает эту попытку из БД
+        Board board = boards.getIfPresent(quizId);
+        if (board != null) {
+            board.offer(row);
+        }
+    }
+
+    private final class Board {
+
+        private final int size;
+        private final Object loadLock = new Object();
+        private volatile boolean loaded;
+        private volatile LeaderboardRow[] entries = new LeaderboardRow[0];
+
+        Board(int size) {
+            this.size = size;
+        }
+
+        List<LeaderboardRow> entries() {
+            return List.of(entries);
+        }
+
+        void loadIfNeeded(long quizId) {
+            if (loaded) {
+                return;
+            }
+            synchronized (loadLock) {
+                if (loaded) {
+                    return;
+                }
+                List<LeaderboardRow> best = reader.findBestByQuiz(quizId, size);
+                if (best.isEmpty() && !quizRepository.existsById(quizId)) {
+                    boards.asMap().remove(quizId, this);
+                    throw new IllegalArgumentException("Quiz not found: " + quizId);
+                }
+                best.forEach(this::offer);
+                loaded = true;
+            }
+        }
+
+        /**
+         * У студента остаётся одна, лучшая попытка. Массив не меняется после публикации, читатели берут его без блокировки.
+         */
+        synchronized void offer(LeaderboardRow row) {
+            LeaderboardRow[] current = entries;
+            int previous = -1;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i].studentId() == row.studentId()) {
+                    if (ORDER.compare(current[i], row) <= 0) {
+                        return;
+                    }
+                    previous = i;
+                    break;
+                }
+            }
+            if (previous < 0 && current.length == size && ORDER.compare(current[size - 1], row) <= 0) {
+                return;
+            }
+
+            LeaderboardRow[] updated = new LeaderboardRow[Math.min(size, current.length + (previous < 0 ? 1 : 0))];
+            int target = 0;
+            boolean inserted = false;
+            for (int i = 0; i < current.length && target < updated.length; i++) {
+                if (i == previous) {
+                    continue;
+                }
+                if (!inserted && ORDER.compare(row, current[i]) < 0) {
+                    updated[target++] = row;
+                    inserted = true;
+                    if (target == updated.length) {
+                        break;
+                    }
+                }
+                updated[target++] = current[i];
+            }
+            if (!inserted && target < updated.length) {
+                updated[target] = row;
+            }
+            entries = updated;
+        }
+    }
+}
@@ -1,26 +1,40 @@
 package ru.mgubina.mashaschool.service;
 
 import lombok.RequiredArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.mgubina.mashaschool.dto.CourseTreeDto;
 import ru.mgubina.mashaschool.entity.*;
 import ru.mgubina.mashaschool.entity.Module;
 import ru.mgubina.mashaschool.repository.*;
 
 import java.time.OffsetDateTime;
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class QuizService {
 
+    // Имена внешних ключей quiz_submission из V1
+    private static final String QUIZ_SUBMISSION_QUIZ_FK = "fkmth4ldfyfpfbti7bw8aprrofb";
+    private static final String QUIZ_SUBMISSION_STUDENT_FK = "fk8xjdrjpm16l34dnoq3xt69c40";
+
     private final QuizRepository quizRepository;
     private final QuestionRepository questionRepository;
     private final AnswerOptionRepository answerOptionRepository;
     private final QuizSubmissionRepository quizSubmissionRepository;
     private final ModuleRepository moduleRepository;
     private final UserRepository userRepository;
+    private final QuizAnswerKeyCache answerKeyCache;
+    private final StudentNameCache studentNameCache;
+    private final CourseTreeCache courseTreeCache;
+    private final QuizLeaderboard quizLeaderboard;
+    private final QuizSubmissionIngestor quizSubmissionIngestor;
+    private final GradebookStore gradebookStore;
+    private final QuizGradebookRecorder quizGradebookRecorder;
 
     @Transactional
     public long createQuiz(long moduleId, String title, Integer timeLimitSeconds) {
@@ -34,6 +48,8 @@ public class QuizService {
                 .build();
 
         Quiz saved = quizRepository.save(quiz);
+        courseTreeCache.quizCreated(module.getCourse().getId(), moduleId,
+                new CourseTreeDto.QuizNode(saved.getId(), title, timeLimitSeconds));
         return saved.getId();
     }
 
@@ -49,6 +65,7 @@ public class QuizService {
                 .build();
 
         AnswerOption saved = answerOptionRepository.save(option);
+        answerKeyCache.evict(question.getQuiz().getId());
         return saved.getId();
     }
 
@@ -63,82 +80,89 @@ public class QuizService {
                 .build();
 
         Question saved = questionRepository.save(question);
+        answerKeyCache.evict(quizId);
+        // Максимум теста в журнале - число вопросов; запрос в БД должен видеть новый вопрос
+        questionRepository.flush();
+        gradebookStore.refreshQuizMaxScore(quizId);
         return saved.getId();
     }
 
+    /**
+     * Название теста и число вопросов берутся из ключа ответов, имя студента - из {@link StudentNameCache},
+     * поэтому ответ собирается без чтения теста и студента.
+     */
     @Transactional
-    public QuizSubmission takeQuiz(long studentId, long quizId, Map<Long, List<Long>> answersByQuestion) {
-        User student = userRepository.findById(studentId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found: " + studentId));
-
-        Quiz quiz = quizRepository.findById(quizId)
-                .orElseThrow(() -> new IllegalArgumentException("Quiz not found: " + quizId));
+    public TakenQuiz takeQuiz(long studentId, long quizId, Map<Long, List<Long>> answersByQuestion) {
+        QuizAnswerKey answerKey = answerKeyCache.get(quizId, this::loadAnswerKey);
+        int correctAnswers = answerKey.grade(answersByQuestion);
 
-        List<Question> questions = questionRepository.findByQuizId(quizId);
-        Set<Long> validQuestionIds = questions.stream()
-                .map(Question::getId)
-                .collect(Collectors.toSet());
+        // Существование теста проверено при загрузке ключа, студента - при чтении имени или внешним ключом;
+        // имя для ответа и таблицы лидеров обычно уже в кэше
+        String studentName = studentNameCache.get(studentId);
+        QuizSubmission submission = QuizSubmission.builder()
+                .quiz(quizRepository.getReferenceById(quizId))
+                .student(userRepository.getReferenceById(studentId))
+                .score(correctAnswers)
+                .takenAt(OffsetDateTime.now())
+                .build();
 
-        for (Long questionId : answersByQuestion.keySet()) {
-            if (!validQuestionIds.contains(questionId)) {
-                throw new IllegalArgumentException(
-                        String.format("Question %d does not belong to quiz %d", questionId, quizId)
-                );
+        QuizSubmission saved;
+        try {
+            saved = quizSubmissionRepository.saveAndFlush(submission);
+        } catch (DataIntegrityViolationException e) {
+            // Тест или студента удалили после проверки; остальные нарушения ограничений - не "не найден"
+            String constraint = e.getCause() instanceof ConstraintViolationException violation
+                    ? violation.getConstraintName() : null;
+            if (QUIZ_SUBMISSION_STUDENT_FK.equals(constraint)) {
+                throw new IllegalArgumentException("User not found: " + studentId, e);
             }
-        }
-
-        Map<Long, List<AnswerOption>> optionsByQuestion = new HashMap<>();
-        for (Question question : questions) {
-            List<AnswerOption> options = answerOptionRepository.findByQuestionId(question.getId());
-            optionsByQuestion.put(question.getId(), options);
-        }
-
-        for (Map.Entry<Long, List<Long>> entry : answersByQuestion.entrySet()) {
-            Long questionId = entry.getKey();
-            List<Long> selectedOptionIds = entry.getValue();
-
-            List<AnswerOption> validOptions = optionsByQuestion.get(questionId);
-            Set<Long> validOptionIds = validOptions.stream()
-                    .map(AnswerOption::getId)
-                    .collect(Collectors.toSet());
-
-            for (Long optionId : selectedOptionIds) {
-                if (!validOptionIds.contains(optionId)) {
-                    throw new IllegalArgumentException(
-                            String.format("Option %d does not belong to question %d", optionId, questionId)
-                    );
-                }
+            if (QUIZ_SUBMISSION_QUIZ_FK.equals(constraint)) {
+                throw new IllegalArgumentException("Quiz not found: " + quizId, e);
             }
+            throw e;
         }
+        // Журнал обновляется пакетом после коммита, в потоке запроса остаётся только вставка попытки
+        quizGradebookRecorder.submissionTaken(quizId, studentId, correctAnswers);
+        quizLeaderboard.submissionTaken(quizId, saved.getId(), studentId, studentName,
+                correctAnswers, saved.getTakenAt());
+        return new TakenQuiz(saved.getId(), studentId, studentName, quizId, answerKey.getQuizTitle(),
+                correctAnswers, answerKey.getQuestionCount(), saved.getTakenAt());
+    }
 
-        int correctAnswers = 0;
-        for (Question question : questions) {
-            Long questionId = question.getId();
-            List<AnswerOption> options = optionsByQuestion.get(questionId);
-
-            // Множество правильных вариантов для этого вопроса
-            Set<Long> correctOptionIds = options.stream()
-                    .filter(AnswerOption::getIsCorrect)
-                    .map(AnswerOption::getId)
-                    .collect(Collectors.toSet());
+    /**
+     * Приём попытки без записи в БД в потоке запроса: проверка по кэшированному ключу, квитанция с id будущей строки,
+     * запись - пакетом через {@link QuizSubmissionIngestor}. Без транзакции: до выгрузки к БД обращаются
+     * только за именем студента и, раз в 50 попыток, за блоком id.
+     */
+    public SubmissionTicket submitQuiz(long studentId, long quizId, Map<Long, List<Long>> answersByQuestion) {
+        QuizAnswerKey answerKey = answerKeyCache.get(quizId, this::loadAnswerKey);
+        int correctAnswers = answerKey.grade(answersByQuestion);
+
+        // Ошибку внешнего ключа при пакетной вставке уже не вернуть клиенту - студент проверяется сразу
+        String studentName = userRepository.findNameById(studentId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found: " + studentId));
 
-            Set<Long> selectedOptionIds = answersByQuestion.getOrDefault(questionId, List.of())
-                    .stream()
-                    .collect(Collectors.toSet());
+        OffsetDateTime takenAt = OffsetDateTime.now();
+        long submissionId = quizSubmissionIngestor.accept(quizId, studentId, studentName, correctAnswers, takenAt);
+        return new SubmissionTicket(submissionId, correctAnswers, answerKey.getQuestionCount(), takenAt);
+    }
 
-            if (correctOptionIds.equals(selectedOptionIds)) {
-                correctAnswers++;
-            }
-        }
+    // Без транзакции: таблица лидеров читается из памяти, соединение нужно только для первой загрузки
+    public List<LeaderboardRow> getLeaderboard(long quizId, int limit) {
+        return quizLeaderboard.top(quizId, limit);
+    }
 
-        QuizSubmission submission = QuizSubmission.builder()
-                .quiz(quiz)
-                .student(student)
-                .score(correctAnswers)
-                .takenAt(OffsetDateTime.now())
-                .build();
+    @Transactional(readOnly = true)
+    public QuizAnswerKey getAnswerKey(long quizId) {
+        return answerKeyCache.get(quizId, this::loadAnswerKey);
+    }
 
-        return quizSubmissionRepository.save(submission);
+    private QuizAnswerKey loadAnswerKey(long quizId) {
+        List<AnswerKeyRow> rows = quizRepository.findAnswerKeyRows(quizId);
+        if (rows.isEmpty()) {
+            throw new IllegalArgumentException("Quiz not found: " + quizId);
+        }
+        return QuizAnswerKey.fromRows(quizId, rows);
     }
 
     @Transactional(readOnly = true)
@@ -162,5 +186,11 @@ public class QuizService {
         }
         return quizSubmissionRepository.findByQuizId(quizId);
     }
-}
 
+    public record TakenQuiz(long submissionId, long studentId, String studentName, long quizId, String quizTitle,
+                            int score, int totalQuestions, OffsetDateTime takenAt) {
+    }
+
+    public record SubmissionTicket(long submissionId, int score, int totalQuestions, OffsetDateTime takenAt) {
+    }
+}
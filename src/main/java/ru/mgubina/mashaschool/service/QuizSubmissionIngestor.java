@@ -0,0 +1,332 @@
+package ru.mgubina.mashaschool.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.mgubina.mashaschool.exception.SubmissionIntakeUnavailableException;
+import ru.mgubina.mashaschool.repository.GradebookStore;
+import ru.mgubina.mashaschool.repository.QuizSubmissionBatchWriter;
+import ru.mgubina.mashaschool.repository.QuizSubmissionRecord;
+import ru.mgubina.mashaschool.repository.SequenceIdAllocator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Приём попыток прохождения тестов без синхронной записи в БД: попытка получает id из последовательности
+ * (он же номер квитанции), кладётся в ограниченный буфер и раз в flush-interval выгружается в quiz_submission
+ * JDBC-пакетами по batch-size строк. Пока в буфере и невыгруженных пакетах capacity попыток, новые отклоняются.
+ * <p>
+ * С включённым журналом (wal.enabled) попытка до подтверждения дописывается в {@link QuizSubmissionWal},
+ * а с wal.fsync - ещё и сбрасывается на диск групповым коммитом, вне блокировки приёма: один force покрывает
+ * все попытки, дописанные одновременно. Сегменты, оставшиеся после падения узла, ставятся в очередь выгрузки при старте.
+ * Без журнала принятые, но не выгруженные попытки теряются при падении узла.
+ * Пакет, который не удалось записать, повторяется на следующей выгрузке: вставка идемпотентна.
+ */
+@Component
+@Slf4j
+public class QuizSubmissionIngestor implements SmartLifecycle {
+
+    private final QuizSubmissionBatchWriter writer;
+    private final GradebookStore gradebookStore;
+    private final SequenceIdAllocator idAllocator;
+    private final QuizLeaderboard quizLeaderboard;
+    private final TransactionTemplate transactionTemplate;
+    private final int capacity;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final QuizSubmissionWal wal;
+
+    private final Object lock = new Object();
+    private List<Accepted> buffer = new ArrayList<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final Queue<Drained> unflushed = new ConcurrentLinkedQueue<>();
+    private final Object flushLock = new Object();
+
+    private final Object idLock = new Object();
+    private long[] ids = new long[0];
+    private int nextId;
+
+    private final Counter rejectedCounter;
+    private final Timer flushTimer;
+    private ScheduledExecutorService flusher;
+    private volatile boolean running;
+
+    public QuizSubmissionIngestor(QuizSubmissionBatchWriter writer, GradebookStore gradebookStore,
+                                  SequenceIdAllocator idAllocator,
+                                  QuizLeaderboard quizLeaderboard, TransactionTemplate transactionTemplate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${mashaschool.quiz-ingest.capacity:10000}") int capacity,
+                                  @Value("${mashaschool.quiz-ingest.batch-size:500}") int batchSize,
+                                  @Value("${mashaschool.quiz-ingest.flush-interval:200ms}") Duration flushInterval,
+                                  @Value("${mashaschool.quiz-ingest.wal.enabled:false}") boolean walEnabled,
+                                  @Value("${mashaschool.quiz-ingest.wal.directory:quiz-wal}") Path walDirectory,
+                                  @Value("${mashaschool.quiz-ingest.wal.fsync:true}") boolean walFsync)
+            throws IOException {
+        this.writer = writer;
+        this.gradebookStore = gradebookStore;
+        this.idAllocator = idAllocator;
+        this.quizLeaderboard = quizLeaderboard;
+        this.transactionTemplate = transactionTemplate;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.wal = walEnabled ? new QuizSubmissionWal(walDirectory, walFsync) : null;
+        this.rejectedCounter = Counter.builder("mashaschool.quiz.ingest.rejected")
+                .description("Quiz submissions rejected because the intake buffer was full")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("mashaschool.quiz.ingest.flush")
+                .description("Time spent writing one batch of accepted quiz submissions")
+                .register(meterRegistry);
+        Gauge.builder("mashaschool.quiz.ingest.pending", pending, AtomicInteger::get)
+                .description("Accepted quiz submissions not yet written to the database")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return id будущей строки quiz_submission
+     */
+    public long accept(long quizId, long studentId, String studentName, int score, OffsetDateTime takenAt) {
+        if (pending.incrementAndGet() > capacity) {
+            pending.decrementAndGet();
+            rejectedCounter.increment();
+            throw new SubmissionIntakeUnavailableException("Too many pending quiz submissions, retry later");
+        }
+        Accepted accepted;
+        long logPosition = 0;
+        try {
+            accepted = new Accepted(new QuizSubmissionRecord(nextId(), quizId, studentId, score, takenAt), studentName);
+            synchronized (lock) {
+                if (!running) {
+                    throw new SubmissionIntakeUnavailableException("Quiz submission intake is stopped");
+                }
+                if (wal != null) {
+                    logPosition = wal.append(accepted.submission());
+                }
+                buffer.add(accepted);
+            }
+        } catch (IOException e) {
+            pending.decrementAndGet();
+            throw new UncheckedIOException("Failed to write quiz submission log", e);
+        } catch (RuntimeException e) {
+            pending.decrementAndGet();
+            throw e;
+        }
+        if (wal != null) {
+            // Попытка уже в буфере и будет записана в БД; ошибка здесь значит только, что она могла не дойти до диска
+            try {
+                wal.awaitDurable(logPosition);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to sync quiz submission log", e);
+            }
+        }
+        return accepted.submission().id();
+    }
+
+    public int pendingCount() {
+        return pending.get();
+    }
+
+    private long nextId() {
+        synchronized (idLock) {
+            if (nextId == ids.length) {
+                ids = idAllocator.allocate("quiz_submission_seq", SequenceIdAllocator.ALLOCATION_SIZE);
+                nextId = 0;
+            }
+            return ids[nextId++];
+        }
+    }
+
+    void flush() {
+        synchronized (flushLock) {
+            List<Accepted> drained;
+            Path segment = null;
+            synchronized (lock) {
+                drained = buffer;
+                buffer = new ArrayList<>();
+                if (wal != null) {
+                    try {
+                        segment = wal.rotate();
+                    } catch (IOException e) {
+                        // Сегмент останется на диске и будет выгружен повторно при старте
+                        log.warn("Failed to close quiz submission log segment", e);
+                    }
+                }
+            }
+            if (!drained.isEmpty()) {
+                unflushed.add(new Drained(drained, segment));
+            }
+
+            Drained next;
+            while ((next = unflushed.peek()) != null) {
+                try {
+                    write(next);
+                } catch (RuntimeException e) {
+                    log.warn("Failed to write {} quiz submissions, will retry", next.submissions.size() - next.written, e);
+                    return;
+                }
+                unflushed.poll();
+            }
+        }
+    }
+
+    private void write(Drained drained) {
+        while (drained.written < drained.submissions.size()) {
+            List<Accepted> chunk = drained.submissions.subList(drained.written,
+                    Math.min(drained.written + batchSize, drained.submissions.size()));
+            List<QuizSubmissionRecord> records = chunk.stream().map(Accepted::submission).toList();
+            boolean[] inserted = flushTimer.record(() -> transactionTemplate.execute(status -> insert(records)));
+
+            drained.written += chunk.size();
+            pending.addAndGet(-chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                Accepted accepted = chunk.get(i);
+                // У попыток из журнала имени нет; таблица лидеров прочитает их из БД при загрузке
+                if (inserted[i] && accepted.studentName() != null) {
+                    QuizSubmissionRecord submission = accepted.submission();
+                    quizLeaderboard.submissionTaken(submission.quizId(), submission.id(), submission.studentId(),
+                            accepted.studentName(), submission.score(), submission.takenAt());
+                }
+            }
+        }
+        if (drained.segment != null) {
+            try {
+                QuizSubmissionWal.delete(drained.segment);
+            } catch (IOException e) {
+                log.warn("Failed to delete quiz submission log segment {}", drained.segment, e);
+            }
+        }
+    }
+
+    /**
+     * Вставка пакета и оценки вставленных попыток в журнал - в одной транзакции, чтобы повтор пакета не пропустил их.
+     */
+    private boolean[] insert(List<QuizSubmissionRecord> records) {
+        boolean[] inserted = writer.insert(records);
+        List<GradebookStore.Grade> grades = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            if (inserted[i]) {
+                QuizSubmissionRecord submission = records.get(i);
+                grades.add(new GradebookStore.Grade(submission.quizId(), submission.studentId(), submission.score()));
+            }
+        }
+        gradebookStore.recordQuizScores(grades);
+        return inserted;
+    }
+
+    /**
+     * Ставит в очередь выгрузки попытки из сегмента журнала, оставшегося после прошлого запуска.
+     */
+    void recover(Path segment) throws IOException {
+        List<Accepted> submissions = QuizSubmissionWal.read(segment).stream()
+                .map(submission -> new Accepted(submission, null))
+                .toList();
+        pending.addAndGet(submissions.size());
+        unflushed.add(new Drained(submissions, segment));
+        log.info("Recovered {} quiz submissions from {}", submissions.size(), segment);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Throwable e) {
+            // Исключение в периодической задаче отменило бы все следующие выгрузки
+            log.error("Quiz submission flush failed", e);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (wal != null) {
+            try {
+                for (Path segment : wal.segments()) {
+                    recover(segment);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read quiz submission log", e);
+            }
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("quiz-ingest-flusher")
+                .daemon(true)
+                .factory());
+        long intervalMillis = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, 0, intervalMillis, TimeUnit.MILLISECONDS);
+        synchronized (lock) {
+            running = true;
+        }
+    }
+
+    @Override
+    public void stop() {
+        synchronized (lock) {
+            running = false;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushQuietly();
+        int left = pending.get();
+        if (left > 0) {
+            log.error("{} accepted quiz submissions were not written to the database{}", left,
+                    wal != null ? ", they stay in the submission log" : "");
+        }
+        if (wal != null) {
+            try {
+                wal.close();
+            } catch (IOException e) {
+                log.warn("Failed to close quiz submission log", e);
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Запускается раньше веб-сервера и останавливается после него: к приёму запросов сегменты журнала уже стоят
+     * в очереди выгрузки (пишет их в БД фоновый поток, не старт), а при остановке дописываются попытки,
+     * принятые последними запросами.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private record Accepted(QuizSubmissionRecord submission, String studentName) {
+    }
+
+    private static final class Drained {
+
+        final List<Accepted> submissions;
+        final Path segment;
+        int written;
+
+        Drained(List<Accepted> submissions, Path segment) {
+            this.submissions = submissions;
+            this.segment = segment;
+        }
+    }
+}
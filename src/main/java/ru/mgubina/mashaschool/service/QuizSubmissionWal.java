@@ -0,0 +1,170 @@
+package ru.mgubina.mashaschool.service;
+
+import ru.mgubina.mashaschool.repository.QuizSubmissionRecord;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Журнал принятых, но ещё не записанных в БД попыток. Журнал разбит на сегменты: каждая выгрузка
+ * в БД закрывает текущий сегмент, и он удаляется после коммита своих строк. Сегменты, оставшиеся
+ * после падения узла, дочитываются при старте.
+ * <p>
+ * Запись - 40 байт фиксированного размера с CRC32; оборванная при падении запись в конце сегмента
+ * отбрасывается при чтении.
+ * <p>
+ * С fsync запись сбрасывается на диск групповым коммитом: {@link #append} только дописывает её и возвращает номер,
+ * а {@link #awaitDurable} вызывается уже без блокировки приёма. Первый ждущий поток делает один force
+ * на все записи, дописанные к этому моменту; потоки, чьи записи он покрыл, возвращаются без своего force.
+ */
+final class QuizSubmissionWal implements Closeable {
+
+    static final String SEGMENT_SUFFIX = ".wal";
+    private static final int RECORD_SIZE = 40;
+
+    private final Path directory;
+    private final boolean fsync;
+    private final ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32 crc = new CRC32();
+    private final Object syncLock = new Object();
+    private final AtomicLong durable = new AtomicLong();
+    private long appended;
+    private long segmentSequence = System.currentTimeMillis() * 1000;
+    private FileChannel channel;
+    private Path segment;
+
+    QuizSubmissionWal(Path directory, boolean fsync) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.fsync = fsync;
+    }
+
+    /**
+     * @return номер записи для {@link #awaitDurable}
+     */
+    synchronized long append(QuizSubmissionRecord submission) throws IOException {
+        if (channel == null) {
+            segment = directory.resolve(segmentSequence++ + SEGMENT_SUFFIX);
+            channel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+        buffer.clear();
+        buffer.putLong(submission.id())
+                .putLong(submission.quizId())
+                .putLong(submission.studentId())
+                .putInt(submission.score())
+                .putLong(ChronoUnit.MICROS.between(Instant.EPOCH, submission.takenAt().toInstant()));
+        crc.reset();
+        crc.update(buffer.array(), 0, RECORD_SIZE - Integer.BYTES);
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        return ++appended;
+    }
+
+    /**
+     * Возвращается, когда запись с номером position и все предыдущие на диске. Без fsync не ждёт.
+     */
+    void awaitDurable(long position) throws IOException {
+        if (!fsync || durable.get() >= position) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (durable.get() >= position) {
+                return;
+            }
+            FileChannel target;
+            long upTo;
+            synchronized (this) {
+                target = channel;
+                upTo = appended;
+            }
+            // Без открытого сегмента записи уже сброшены на диск его закрытием
+            if (target != null) {
+                try {
+                    target.force(false);
+                } catch (ClosedChannelException e) {
+                    // Сегмент закрыт ротацией, close() сбросил его на диск до закрытия
+                }
+            }
+            durable.accumulateAndGet(upTo, Math::max);
+        }
+    }
+
+    /**
+     * Закрывает текущий сегмент; следующая запись откроет новый.
+     *
+     * @return закрытый сегмент или null, если с прошлого вызова записей не было
+     */
+    synchronized Path rotate() throws IOException {
+        if (channel == null) {
+            return null;
+        }
+        Path closed = segment;
+        close();
+        return closed;
+    }
+
+    List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    static List<QuizSubmissionRecord> read(Path segment) throws IOException {
+        ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(segment));
+        List<QuizSubmissionRecord> submissions = new ArrayList<>(data.remaining() / RECORD_SIZE);
+        CRC32 crc = new CRC32();
+        while (data.remaining() >= RECORD_SIZE) {
+            int start = data.position();
+            crc.reset();
+            crc.update(data.array(), start, RECORD_SIZE - Integer.BYTES);
+            long id = data.getLong();
+            long quizId = data.getLong();
+            long studentId = data.getLong();
+            int score = data.getInt();
+            long takenAtMicros = data.getLong();
+            if (data.getInt() != (int) crc.getValue()) {
+                break;
+            }
+            submissions.add(new QuizSubmissionRecord(id, quizId, studentId, score,
+                    OffsetDateTime.ofInstant(Instant.EPOCH.plus(takenAtMicros, ChronoUnit.MICROS), ZoneOffset.UTC)));
+        }
+        return submissions;
+    }
+
+    static void delete(Path segment) throws IOException {
+        Files.deleteIfExists(segment);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            try {
+                channel.force(false);
+                durable.accumulateAndGet(appended, Math::max);
+                channel.close();
+            } finally {
+                channel = null;
+                segment = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package ru.mgubina.mashaschool.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.mgubina.mashaschool.repository.SearchHit;
+import ru.mgubina.mashaschool.repository.SearchReader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Поиск по названиям и текстам курсов и уроков. Все слова запроса должны встретиться,
+ * каждое слово ищется как префикс: "прог" находит "программирование".
+ */
+@Service
+@RequiredArgsConstructor
+public class SearchService {
+
+    public static final int MAX_LIMIT = 100;
+    private static final int MAX_TERMS = 10;
+    private static final Pattern TERM = Pattern.compile("[\\p{L}\\p{N}]+");
+
+    private final SearchReader searchReader;
+
+    @Transactional(readOnly = true)
+    public List<SearchHit> search(String query, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        String tsQuery = toTsQuery(query);
+        if (tsQuery.isEmpty()) {
+            return List.of();
+        }
+        return searchReader.search(tsQuery, limit);
+    }
+
+    /**
+     * Из запроса берутся только буквы и цифры, поэтому операторы to_tsquery в него не попадут.
+     */
+    static String toTsQuery(String query) {
+        List<String> terms = new ArrayList<>();
+        Matcher matcher = TERM.matcher(query == null ? "" : query);
+        while (matcher.find() && terms.size() < MAX_TERMS) {
+            terms.add(matcher.group().toLowerCase(Locale.ROOT) + ":*");
+        }
+        return String.join(" & ", terms);
+    }
+}
@@ -0,0 +1,45 @@
+package ru.mgubina.mashaschool.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.mgubina.mashaschool.repository.UserRepository;
+
+import java.time.Duration;
+
+/**
+ * Имена студентов для ответа на попытку теста и таблицы лидеров. Имя читается проекцией при первой попытке студента,
+ * дальше попытка обходится без чтения пользователя. Имена в приложении не меняются, ttl ограничивает
+ * расхождение с БД, если их поменяют в обход приложения или на другом узле.
+ */
+@Component
+public class StudentNameCache {
+
+    private final Cache<Long, String> names;
+    private final UserRepository userRepository;
+
+    public StudentNameCache(UserRepository userRepository,
+                            @Value("${mashaschool.student-name-cache.max-size:100000}") long maxSize,
+                            @Value("${mashaschool.student-name-cache.ttl:10m}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.names = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * @throws IllegalArgumentException если студента нет
+     */
+    public String get(long studentId) {
+        String cached = names.getIfPresent(studentId);
+        if (cached != null) {
+            return cached;
+        }
+        String name = userRepository.findNameById(studentId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found: " + studentId));
+        names.put(studentId, name);
+        return name;
+    }
+}
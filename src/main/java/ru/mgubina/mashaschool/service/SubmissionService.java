@@ -4,24 +4,37 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.mgubina.mashaschool.config.SqlBudget;
 import ru.mgubina.mashaschool.entity.Assignment;
 import ru.mgubina.mashaschool.entity.Submission;
 import ru.mgubina.mashaschool.entity.User;
 import ru.mgubina.mashaschool.exception.DuplicateSubmissionException;
 import ru.mgubina.mashaschool.repository.AssignmentRepository;
+import ru.mgubina.mashaschool.repository.GradebookStore;
+import ru.mgubina.mashaschool.repository.SubmissionReader;
 import ru.mgubina.mashaschool.repository.SubmissionRepository;
+import ru.mgubina.mashaschool.repository.SubmissionRow;
 import ru.mgubina.mashaschool.repository.UserRepository;
 
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
 public class SubmissionService {
 
+    public static final int MAX_PAGE_SIZE = 500;
+
     private final SubmissionRepository submissionRepository;
+    private final SubmissionReader submissionReader;
     private final AssignmentRepository assignmentRepository;
     private final UserRepository userRepository;
+    private final DuplicateGuard duplicateGuard;
+    private final GradebookStore gradebookStore;
 
     @Transactional
     public void grade(long submissionId, int score, String feedback) {
@@ -43,9 +56,12 @@ public class SubmissionService {
         submission.setFeedback(feedback);
 
         submissionRepository.save(submission);
+        gradebookStore.recordAssignmentScores(List.of(
+                new GradebookStore.Grade(submission.getAssignment().getId(), submission.getStudent().getId(), score)));
     }
 
     @Transactional(readOnly = true)
+    @SqlBudget(statements = 2)
     public List<Submission> getByStudent(long studentId) {
         if (!userRepository.existsById(studentId)) {
             throw new IllegalArgumentException("User not found: " + studentId);
@@ -67,6 +83,7 @@ public class SubmissionService {
     }
 
     @Transactional(readOnly = true)
+    @SqlBudget(statements = 2)
     public List<Submission> getByAssignment(long assignmentId) {
         if (!assignmentRepository.existsById(assignmentId)) {
             throw new IllegalArgumentException("Assignment not found: " + assignmentId);
@@ -87,6 +104,30 @@ public class SubmissionService {
                 .toList();
     }
 
+    @Transactional(readOnly = true)
+    public SubmissionPage getPageByAssignment(long assignmentId, String cursor, int limit, boolean includeContent) {
+        if (!assignmentRepository.existsById(assignmentId)) {
+            throw new IllegalArgumentException("Assignment not found: " + assignmentId);
+        }
+        return getPage(SubmissionReader.Owner.ASSIGNMENT, assignmentId, cursor, limit, includeContent);
+    }
+
+    @Transactional(readOnly = true)
+    public SubmissionPage getPageByStudent(long studentId, String cursor, int limit, boolean includeContent) {
+        if (!userRepository.existsById(studentId)) {
+            throw new IllegalArgumentException("User not found: " + studentId);
+        }
+        return getPage(SubmissionReader.Owner.STUDENT, studentId, cursor, limit, includeContent);
+    }
+
+    /**
+     * Выгрузка всех решений задания построчно. Транзакция нужна, чтобы драйвер читал курсором.
+     */
+    @Transactional(readOnly = true)
+    public void exportByAssignment(long assignmentId, boolean includeContent, Consumer<SubmissionRow> consumer) {
+        submissionReader.stream(SubmissionReader.Owner.ASSIGNMENT, assignmentId, includeContent, consumer);
+    }
+
     @Transactional
     public long submit(long studentId, long assignmentId, String content) {
         User student = userRepository.findById(studentId)
@@ -95,7 +136,9 @@ public class SubmissionService {
         Assignment assignment = assignmentRepository.findById(assignmentId)
                 .orElseThrow(() -> new IllegalArgumentException("Assignment not found: " + assignmentId));
 
-        if (submissionRepository.findByStudentIdAndAssignmentId(studentId, assignmentId).isPresent()) {
+        // Запрос нужен, только если фильтр не может исключить решение; иначе дубль отсечёт уникальное ограничение
+        if (duplicateGuard.mayHaveSubmitted(studentId, assignmentId)
+                && submissionRepository.existsByStudentIdAndAssignmentId(studentId, assignmentId)) {
             throw new DuplicateSubmissionException(
                     String.format("Student %d has already submitted assignment %d", studentId, assignmentId)
             );
@@ -109,14 +152,64 @@ public class SubmissionService {
                 .build();
 
         try {
-            Submission saved = submissionRepository.save(submission);
+            Submission saved = submissionRepository.saveAndFlush(submission);
+            duplicateGuard.submissionCommitted(studentId, assignmentId);
             return saved.getId();
         } catch (DataIntegrityViolationException e) {
+            duplicateGuard.submissionExists(studentId, assignmentId);
             throw new DuplicateSubmissionException(
                     String.format("Student %d has already submitted assignment %d", studentId, assignmentId),
                     e
             );
         }
     }
-}
 
+    private SubmissionPage getPage(SubmissionReader.Owner owner, long ownerId, String cursor, int limit,
+                                   boolean includeContent) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        Cursor after = cursor == null ? new Cursor(null, null) : Cursor.decode(cursor);
+
+        // Лишняя строка показывает, есть ли следующая страница
+        List<SubmissionRow> rows = submissionReader.findPage(owner, ownerId, after.submittedAt(), after.id(),
+                limit + 1, includeContent);
+        if (rows.size() <= limit) {
+            return new SubmissionPage(rows, null);
+        }
+
+        List<SubmissionRow> items = rows.subList(0, limit);
+        SubmissionRow last = items.get(limit - 1);
+        return new SubmissionPage(items, new Cursor(last.submittedAt(), last.id()).encode());
+    }
+
+    /**
+     * Ключ последней строки страницы: "дата|id" в base64url, пустая дата - решения без даты.
+     */
+    private record Cursor(OffsetDateTime submittedAt, Long id) {
+
+        String encode() {
+            String value = (submittedAt == null ? "" : submittedAt.toString()) + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            try {
+                String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = value.lastIndexOf('|');
+                if (separator < 0) {
+                    throw new IllegalArgumentException("Invalid cursor: " + cursor);
+                }
+                String submittedAt = value.substring(0, separator);
+                return new Cursor(submittedAt.isEmpty() ? null : OffsetDateTime.parse(submittedAt),
+                        Long.parseLong(value.substring(separator + 1)));
+            } catch (DateTimeParseException | IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+            }
+        }
+    }
+
+    public record SubmissionPage(List<SubmissionRow> items, String nextCursor) {
+    }
+}
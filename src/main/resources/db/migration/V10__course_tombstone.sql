@@ -0,0 +1,6 @@
+-- Курс, удаляемый в фоне, сначала получает отметку deleted_at и пропадает из чтения,
+-- затем его дерево удаляется порциями. Частичный индекс содержит только такие курсы.
+
+alter table course add column if not exists deleted_at timestamp(6) with time zone;
+
+create index if not exists idx_course_deleted_at on course (deleted_at) where deleted_at is not null;
@@ -0,0 +1,208 @@
+-- Базовая схема. Скрипт идемпотентен: на базе, созданной раньше через ddl-auto,
+-- он только дополняет недостающее и переводит столбцы IDENTITY на последовательности.
+
+create sequence if not exists app_user_seq start with 1 increment by 50;
+create sequence if not exists category_seq start with 1 increment by 50;
+create sequence if not exists tag_seq start with 1 increment by 50;
+create sequence if not exists course_seq start with 1 increment by 50;
+create sequence if not exists course_review_seq start with 1 increment by 50;
+create sequence if not exists enrollment_seq start with 1 increment by 50;
+create sequence if not exists module_seq start with 1 increment by 50;
+create sequence if not exists lesson_seq start with 1 increment by 50;
+create sequence if not exists assignment_seq start with 1 increment by 50;
+create sequence if not exists submission_seq start with 1 increment by 50;
+create sequence if not exists quiz_seq start with 1 increment by 50;
+create sequence if not exists question_seq start with 1 increment by 50;
+create sequence if not exists answer_option_seq start with 1 increment by 50;
+create sequence if not exists quiz_submission_seq start with 1 increment by 50;
+
+create table if not exists app_user (
+    id bigint not null,
+    email varchar(255) not null unique,
+    name varchar(255) not null,
+    role varchar(255) not null check (role in ('STUDENT', 'TEACHER', 'ADMIN')),
+    primary key (id)
+);
+
+create table if not exists profile (
+    id bigint not null,
+    avatar_url varchar(255),
+    bio text,
+    primary key (id)
+);
+
+create table if not exists category (
+    id bigint not null,
+    name varchar(255) not null unique,
+    primary key (id)
+);
+
+create table if not exists tag (
+    id bigint not null,
+    name varchar(255) not null unique,
+    primary key (id)
+);
+
+create table if not exists course (
+    id bigint not null,
+    title varchar(255) not null,
+    description text,
+    duration varchar(255),
+    start_date date,
+    category_id bigint not null,
+    teacher_id bigint not null,
+    primary key (id)
+);
+
+create table if not exists course_tag (
+    course_id bigint not null,
+    tag_id bigint not null,
+    primary key (course_id, tag_id)
+);
+
+create table if not exists course_review (
+    id bigint not null,
+    course_id bigint not null,
+    student_id bigint not null,
+    rating integer,
+    comment text,
+    created_at timestamp(6) with time zone,
+    primary key (id)
+);
+
+create table if not exists enrollment (
+    id bigint not null,
+    user_id bigint not null,
+    course_id bigint not null,
+    enroll_date date,
+    status varchar(255),
+    primary key (id),
+    unique (user_id, course_id)
+);
+
+create table if not exists module (
+    id bigint not null,
+    course_id bigint not null,
+    title varchar(255) not null,
+    description text,
+    order_index integer,
+    primary key (id)
+);
+
+create table if not exists lesson (
+    id bigint not null,
+    module_id bigint not null,
+    title varchar(255) not null,
+    content text,
+    video_url varchar(255),
+    primary key (id)
+);
+
+create table if not exists assignment (
+    id bigint not null,
+    lesson_id bigint not null,
+    title varchar(255) not null,
+    description text,
+    due_date date,
+    max_score integer,
+    primary key (id)
+);
+
+create table if not exists submission (
+    id bigint not null,
+    assignment_id bigint not null,
+    student_id bigint not null,
+    content text,
+    feedback text,
+    score integer,
+    submitted_at timestamp(6) with time zone,
+    primary key (id),
+    unique (student_id, assignment_id)
+);
+
+create table if not exists quiz (
+    id bigint not null,
+    module_id bigint not null unique,
+    title varchar(255) not null,
+    time_limit integer,
+    primary key (id)
+);
+
+create table if not exists question (
+    id bigint not null,
+    quiz_id bigint not null,
+    text text not null,
+    type varchar(255),
+    primary key (id)
+);
+
+create table if not exists answer_option (
+    id bigint not null,
+    question_id bigint not null,
+    text text not null,
+    is_correct boolean not null,
+    primary key (id)
+);
+
+create table if not exists quiz_submission (
+    id bigint not null,
+    quiz_id bigint not null,
+    student_id bigint not null,
+    score integer,
+    taken_at timestamp(6) with time zone,
+    primary key (id)
+);
+
+-- Внешние ключи с теми же именами, что генерировал Hibernate, чтобы не задвоить их на старой базе
+do $$
+declare
+    fk text[];
+begin
+    foreach fk slice 1 in array array[
+        ['profile', 'fksb7tbbxm3678a3syyi5x5i5ux', 'id', 'app_user'],
+        ['course', 'fkkyes7515s3ypoovxrput029bh', 'category_id', 'category'],
+        ['course', 'fk1d7pb07fk7fm0yhu1o5657x14', 'teacher_id', 'app_user'],
+        ['course_tag', 'fk3tta6lkm8fr0rgfyr4y3xrr3u', 'course_id', 'course'],
+        ['course_tag', 'fkj7piuv0dh0v01l3aolwwd1jwh', 'tag_id', 'tag'],
+        ['course_review', 'fksbrpx0jdl735ordw1woeyuvd1', 'course_id', 'course'],
+        ['course_review', 'fks67ainy2wco0giemkwytnl0u3', 'student_id', 'app_user'],
+        ['enrollment', 'fkbhhcqkw1px6yljqg92m0sh2gt', 'course_id', 'course'],
+        ['enrollment', 'fk8bxchtid6ujtutjb908cgvreu', 'user_id', 'app_user'],
+        ['module', 'fkfq09oddpwjoxcirvkh9vnfnsg', 'course_id', 'course'],
+        ['lesson', 'fk8ig5gt5ec58weexave6kdn2cv', 'module_id', 'module'],
+        ['assignment', 'fkitkm2jqcnrvh6i8ytlem7bsck', 'lesson_id', 'lesson'],
+        ['submission', 'fk3q8643roa73llngo64dvpvtxt', 'assignment_id', 'assignment'],
+        ['submission', 'fktkc78tper0xh5502v0ic1e22y', 'student_id', 'app_user'],
+        ['quiz', 'fkd3pi74lbnexp6xjb3595p9088', 'module_id', 'module'],
+        ['question', 'fkb0yh0c1qaxfwlcnwo9dms2txf', 'quiz_id', 'quiz'],
+        ['answer_option', 'fkfqeqisl0e28xp3yn9bmlgkhej', 'question_id', 'question'],
+        ['quiz_submission', 'fkmth4ldfyfpfbti7bw8aprrofb', 'quiz_id', 'quiz'],
+        ['quiz_submission', 'fk8xjdrjpm16l34dnoq3xt69c40', 'student_id', 'app_user']
+    ] loop
+        if not exists (select 1 from pg_constraint where conname = fk[2] and conrelid = fk[1]::regclass) then
+            execute format('alter table %I add constraint %I foreign key (%I) references %I',
+                           fk[1], fk[2], fk[3], fk[4]);
+        end if;
+    end loop;
+end $$;
+
+-- Базы со столбцами IDENTITY: последовательность продолжается после максимального id
+-- и никогда не сдвигается назад, если уже выдавала значения
+do $$
+declare
+    tbl text;
+begin
+    foreach tbl in array array[
+        'app_user', 'category', 'tag', 'course', 'course_review', 'enrollment', 'module', 'lesson',
+        'assignment', 'submission', 'quiz', 'question', 'answer_option', 'quiz_submission'
+    ] loop
+        if exists (select 1 from information_schema.columns
+                   where table_schema = current_schema() and table_name = tbl
+                     and column_name = 'id' and is_identity = 'YES') then
+            execute format('alter table %I alter column id drop identity', tbl);
+            execute format('select setval(%L, greatest(coalesce((select max(id) from %I), 0) + 1, '
+                           || '(select last_value + 50 from %I)), false)',
+                           tbl || '_seq', tbl, tbl || '_seq');
+        end if;
+    end loop;
+end $$;
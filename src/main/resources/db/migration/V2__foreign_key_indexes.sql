@@ -0,0 +1,16 @@
+-- Индексы по внешним ключам, по которым ищут репозитории.
+-- Ключи, уже покрытые уникальными ограничениями или первичным ключом, не дублируются:
+-- enrollment(user_id, ...), submission(student_id, ...), course_tag(course_id, ...), quiz(module_id).
+-- submission(assignment_id) и quiz_submission(quiz_id) покрывают составные индексы из V3 и V7.
+
+create index if not exists idx_course_category_id on course (category_id);
+create index if not exists idx_course_teacher_id on course (teacher_id);
+create index if not exists idx_course_review_course_id on course_review (course_id);
+create index if not exists idx_course_review_student_id on course_review (student_id);
+create index if not exists idx_enrollment_course_id on enrollment (course_id);
+create index if not exists idx_module_course_id on module (course_id);
+create index if not exists idx_lesson_module_id on lesson (module_id);
+create index if not exists idx_assignment_lesson_id on assignment (lesson_id);
+create index if not exists idx_question_quiz_id on question (quiz_id);
+create index if not exists idx_answer_option_question_id on answer_option (question_id);
+create index if not exists idx_quiz_submission_student_id on quiz_submission (student_id);
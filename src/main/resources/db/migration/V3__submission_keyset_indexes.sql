@@ -0,0 +1,5 @@
+-- Страницы решений по ключу (submitted_at, id) внутри задания и студента.
+-- Индекс по заданию служит и индексом внешнего ключа assignment_id.
+
+create index if not exists idx_submission_assignment_submitted on submission (assignment_id, submitted_at, id);
+create index if not exists idx_submission_student_submitted on submission (student_id, submitted_at, id);
@@ -0,0 +1,3 @@
+-- Первичный ключ course_tag (course_id, tag_id) не помогает искать курсы по тегу.
+-- Индекс в обратном порядке покрывает и выборку курсов тега, и загрузку индекса тегов в память.
+create index if not exists idx_course_tag_tag_id_course_id on course_tag (tag_id, course_id);
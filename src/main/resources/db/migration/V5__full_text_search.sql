@@ -0,0 +1,18 @@
+-- Полнотекстовый поиск по курсам и урокам. Векторы - генерируемые столбцы: PostgreSQL пересчитывает их
+-- в той же строке при каждой вставке и изменении, приложению поддерживать индекс не нужно.
+-- Заголовок весит больше текста (A и B). Текст урока ограничен: tsvector не больше 1 МБ.
+
+alter table course add column if not exists search_vector tsvector
+    generated always as (
+        setweight(to_tsvector('russian', coalesce(title, '')), 'A') ||
+        setweight(to_tsvector('russian', coalesce(description, '')), 'B')
+    ) stored;
+
+alter table lesson add column if not exists search_vector tsvector
+    generated always as (
+        setweight(to_tsvector('russian', coalesce(title, '')), 'A') ||
+        setweight(to_tsvector('russian', left(coalesce(content, ''), 200000)), 'B')
+    ) stored;
+
+create index if not exists idx_course_search_vector on course using gin (search_vector);
+create index if not exists idx_lesson_search_vector on lesson using gin (search_vector);
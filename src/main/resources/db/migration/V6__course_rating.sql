@@ -0,0 +1,24 @@
+-- Сводка оценок курса: число отзывов, сумма оценок и число оценок каждого значения 1-5.
+-- Меняется в той же транзакции, что и отзыв; полностью пересчитывается из course_review для починки.
+
+create table if not exists course_rating (
+    course_id bigint not null,
+    review_count integer not null default 0,
+    rating_sum bigint not null default 0,
+    rating_1 integer not null default 0,
+    rating_2 integer not null default 0,
+    rating_3 integer not null default 0,
+    rating_4 integer not null default 0,
+    rating_5 integer not null default 0,
+    primary key (course_id),
+    constraint fk_course_rating_course foreign key (course_id) references course (id) on delete cascade
+);
+
+insert into course_rating (course_id, review_count, rating_sum, rating_1, rating_2, rating_3, rating_4, rating_5)
+select course_id, count(*), sum(rating),
+       count(*) filter (where rating = 1), count(*) filter (where rating = 2), count(*) filter (where rating = 3),
+       count(*) filter (where rating = 4), count(*) filter (where rating = 5)
+from course_review
+where rating between 1 and 5
+group by course_id
+on conflict (course_id) do nothing;
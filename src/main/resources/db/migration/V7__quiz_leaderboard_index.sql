@@ -0,0 +1,4 @@
+-- Лучшие попытки теста читаются по индексу в порядке таблицы лидеров: балл по убыванию, затем время.
+-- Он же служит индексом внешнего ключа quiz_id.
+
+create index if not exists idx_quiz_submission_leaderboard on quiz_submission (quiz_id, score desc, taken_at, id);
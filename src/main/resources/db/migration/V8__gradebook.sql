@@ -0,0 +1,69 @@
+-- Журнал оценок курса: одна строка на (курс, студент, оцениваемый элемент) и сводка по студенту в курсе.
+-- Задание - последняя выставленная оценка решения, тест - лучшая попытка. Баллы и максимум в сводке
+-- считаются по элементам с известным максимумом (у задания max_score может быть не задан).
+-- Обновляются в транзакции оценки; строки элементов без внешнего ключа удаляются вместе с элементом сервисами.
+
+create table if not exists gradebook_entry (
+    course_id bigint not null,
+    student_id bigint not null,
+    item_type varchar(16) not null check (item_type in ('ASSIGNMENT', 'QUIZ')),
+    item_id bigint not null,
+    score integer not null,
+    max_score integer,
+    updated_at timestamp(6) with time zone not null default now(),
+    primary key (course_id, student_id, item_type, item_id),
+    constraint fk_gradebook_entry_course foreign key (course_id) references course (id) on delete cascade,
+    constraint fk_gradebook_entry_student foreign key (student_id) references app_user (id) on delete cascade
+);
+
+create index if not exists idx_gradebook_entry_item on gradebook_entry (item_type, item_id);
+create index if not exists idx_gradebook_entry_student on gradebook_entry (student_id);
+
+create table if not exists gradebook_total (
+    course_id bigint not null,
+    student_id bigint not null,
+    assignment_count integer not null default 0,
+    assignment_score bigint not null default 0,
+    assignment_max_score bigint not null default 0,
+    quiz_count integer not null default 0,
+    quiz_score bigint not null default 0,
+    quiz_max_score bigint not null default 0,
+    primary key (course_id, student_id),
+    constraint fk_gradebook_total_course foreign key (course_id) references course (id) on delete cascade,
+    constraint fk_gradebook_total_student foreign key (student_id) references app_user (id) on delete cascade
+);
+
+create index if not exists idx_gradebook_total_student on gradebook_total (student_id);
+
+insert into gradebook_entry (course_id, student_id, item_type, item_id, score, max_score)
+select m.course_id, s.student_id, 'ASSIGNMENT', a.id, s.score, a.max_score
+from submission s
+join assignment a on a.id = s.assignment_id
+join lesson l on l.id = a.lesson_id
+join module m on m.id = l.module_id
+where s.score is not null
+on conflict do nothing;
+
+insert into gradebook_entry (course_id, student_id, item_type, item_id, score, max_score)
+select m.course_id, best.student_id, 'QUIZ', q.id, best.score,
+       (select count(*) from question where question.quiz_id = q.id)
+from (select quiz_id, student_id, max(score) as score
+      from quiz_submission
+      where score is not null
+      group by quiz_id, student_id) best
+join quiz q on q.id = best.quiz_id
+join module m on m.id = q.module_id
+on conflict do nothing;
+
+insert into gradebook_total (course_id, student_id, assignment_count, assignment_score, assignment_max_score,
+                             quiz_count, quiz_score, quiz_max_score)
+select course_id, student_id,
+       count(*) filter (where item_type = 'ASSIGNMENT'),
+       coalesce(sum(score) filter (where item_type = 'ASSIGNMENT' and max_score is not null), 0),
+       coalesce(sum(max_score) filter (where item_type = 'ASSIGNMENT'), 0),
+       count(*) filter (where item_type = 'QUIZ'),
+       coalesce(sum(score) filter (where item_type = 'QUIZ' and max_score is not null), 0),
+       coalesce(sum(max_score) filter (where item_type = 'QUIZ'), 0)
+from gradebook_entry
+group by course_id, student_id
+on conflict do nothing;
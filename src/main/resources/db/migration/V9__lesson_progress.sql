@@ -0,0 +1,26 @@
+-- Прогресс студентов по урокам: битовая строка в записи на курс, бит с номером progress_ordinal урока - урок пройден.
+-- Номер выдаётся уроку один раз из счётчика курса и не меняется: новые уроки получают следующие номера,
+-- номера удалённых уроков не переиспользуются. Порядок уроков в курсе задают модули и id, а не номера.
+
+alter table course add column if not exists next_lesson_ordinal integer not null default 0;
+alter table lesson add column if not exists progress_ordinal integer;
+alter table enrollment add column if not exists completed_lessons bit varying not null default B'';
+
+with numbered as (
+    select l.id, row_number() over (partition by m.course_id order by m.order_index, m.id, l.id) - 1 as ordinal
+    from lesson l
+    join module m on m.id = l.module_id
+    where l.progress_ordinal is null
+)
+update lesson l
+set progress_ordinal = numbered.ordinal
+from numbered
+where l.id = numbered.id;
+
+update course c
+set next_lesson_ordinal = counts.lesson_count
+from (select m.course_id, count(*) as lesson_count
+      from lesson l
+      join module m on m.id = l.module_id
+      group by m.course_id) counts
+where c.id = counts.course_id;
@@ -0,0 +1,144 @@
+package ru.mgubina.mashaschool.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.threads.virtual.enabled=true",
+        "mashaschool.admission.permits=2",
+        "mashaschool.admission.timeout=200ms"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Testcontainers
+class AdmissionControlFilterTest {
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private BlockingController blockingController;
+
+    @Test
+    void testApiRequestsPassAdmissionAndReleasePermits() throws Exception {
+        long admittedBefore = admittedCount();
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(get("/api/courses/99999"))
+                    .andExpect(status().isBadRequest());
+        }
+
+        assertThat(admittedCount() - admittedBefore).isEqualTo(5);
+        assertThat(meterRegistry.get("mashaschool.admission.available").gauge().value()).isEqualTo(2);
+    }
+
+    @Test
+    void testConnectionAcquireMetricIsExposed() throws Exception {
+        mockMvc.perform(get("/api/courses/99999"));
+
+        assertThat(meterRegistry.find("hikaricp.connections.acquire").timer()).isNotNull();
+    }
+
+    @Test
+    void testRequestOverLimitIsRejectedUntilPermitsAreReleased() throws Exception {
+        blockingController.reset(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // Оба допуска заняты запросами, которые ждут, пока тест их отпустит
+            List<Future<Integer>> blocked = new ArrayList<>();
+            for (int i = 0; i < 2; i++) {
+                blocked.add(executor.submit(() -> mockMvc.perform(get("/api/test/blocking"))
+                        .andReturn().getResponse().getStatus()));
+            }
+            assertThat(blockingController.entered.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(meterRegistry.get("mashaschool.admission.available").gauge().value()).isZero();
+
+            mockMvc.perform(get("/api/courses/99999"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"));
+
+            blockingController.release.countDown();
+            for (Future<Integer> status : blocked) {
+                assertThat(status.get(10, TimeUnit.SECONDS)).isEqualTo(200);
+            }
+        } finally {
+            blockingController.release.countDown();
+            executor.shutdown();
+        }
+
+        assertThat(meterRegistry.get("mashaschool.admission.available").gauge().value()).isEqualTo(2);
+        mockMvc.perform(get("/api/courses/99999"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private long admittedCount() {
+        return meterRegistry.get("mashaschool.admission.wait").tag("outcome", "admitted").timer().count();
+    }
+
+    @TestConfiguration
+    static class BlockingEndpointConfig {
+
+        @Bean
+        BlockingController blockingController() {
+            return new BlockingController();
+        }
+    }
+
+    @RestController
+    static class BlockingController {
+
+        private volatile CountDownLatch entered = new CountDownLatch(0);
+        private volatile CountDownLatch release = new CountDownLatch(0);
+
+        void reset(int requests) {
+            entered = new CountDownLatch(requests);
+            release = new CountDownLatch(1);
+        }
+
+        @GetMapping("/api/test/blocking")
+        void block() throws InterruptedException {
+            entered.countDown();
+            release.await(10, TimeUnit.SECONDS);
+        }
+    }
+}
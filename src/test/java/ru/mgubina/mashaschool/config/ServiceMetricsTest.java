@@ -0,0 +1,75 @@
+package ru.mgubina.mashaschool.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+@Testcontainers
+class ServiceMetricsTest {
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void testServiceCallsAreTimedAndErrorsCounted() throws Exception {
+        mockMvc.perform(get("/api/courses/99999"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/search").param("q", "java"))
+                .andExpect(status().isOk());
+
+        assertThat(meterRegistry.get("mashaschool.service.calls")
+                .tags("class", "CourseService", "method", "getCourseSummary", "outcome", "error")
+                .timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("mashaschool.service.errors")
+                .tags("class", "CourseService", "method", "getCourseSummary",
+                        "exception", "IllegalArgumentException")
+                .counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("mashaschool.service.calls")
+                .tags("class", "SearchService", "method", "search", "outcome", "success")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testPrometheusEndpointExposesServicePoolAndHibernateMetrics() throws Exception {
+        mockMvc.perform(get("/api/courses/99999"));
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("mashaschool_service_calls_seconds_bucket")))
+                .andExpect(content().string(containsString("hikaricp_connections_active")))
+                .andExpect(content().string(containsString("hibernate_statements")));
+    }
+}
@@ -0,0 +1,130 @@
+package ru.mgubina.mashaschool.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.mgubina.mashaschool.entity.Category;
+import ru.mgubina.mashaschool.entity.Course;
+import ru.mgubina.mashaschool.entity.Role;
+import ru.mgubina.mashaschool.entity.User;
+import ru.mgubina.mashaschool.repository.CategoryRepository;
+import ru.mgubina.mashaschool.repository.CourseRepository;
+import ru.mgubina.mashaschool.repository.EnrollmentRepository;
+import ru.mgubina.mashaschool.repository.UserRepository;
+import ru.mgubina.mashaschool.service.CourseService;
+import ru.mgubina.mashaschool.service.EnrollmentService;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static ru.mgubina.mashaschool.support.QueryBudget.assertMaxStatements;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Testcontainers
+class SqlStatisticsTest {
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    private Long categoryId;
+    private Long teacherId;
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository.deleteAll();
+        courseRepository.deleteAll();
+        userRepository.deleteAll();
+        categoryRepository.deleteAll();
+
+        categoryId = categoryRepository.save(Category.builder().name("Programming").build()).getId();
+        teacherId = userRepository.save(
+                User.builder().name("Teacher").email("teacher@test.com").role(Role.TEACHER).build()
+        ).getId();
+    }
+
+    @Test
+    void testResponseCarriesSqlStatisticsHeaders() throws Exception {
+        Course course = courseService.createCourse("Java", "Basics", categoryId, teacherId, "4 weeks", LocalDate.now());
+
+        // Карточка курса и его теги
+        mockMvc.perform(get("/api/courses/" + course.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(SqlStatistics.STATEMENTS_HEADER, "2"))
+                .andExpect(header().string(SqlStatistics.ROWS_HEADER, "1"))
+                .andExpect(header().string(SqlStatistics.ENTITY_LOADS_HEADER, "0"));
+
+        assertThat(meterRegistry.get("mashaschool.sql.statements")
+                .tag("scope", "request")
+                .tag("name", "GET /api/courses/{id}")
+                .summary().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("mashaschool.sql.statements")
+                .tag("scope", "method")
+                .tag("name", "CourseService.getCourseSummary")
+                .summary().totalAmount()).isEqualTo(2);
+    }
+
+    @Test
+    void testCoursesForStudentFitQueryBudget() {
+        User student = userRepository.save(
+                User.builder().name("Student").email("student@test.com").role(Role.STUDENT).build()
+        );
+        for (int i = 1; i <= 3; i++) {
+            Course course = courseService.createCourse("Course " + i, "Description", categoryId, teacherId,
+                    "4 weeks", LocalDate.now());
+            enrollmentService.enrollStudent(course.getId(), student.getId());
+        }
+
+        // Проверка студента и одна выборка записей с курсами, без запроса на каждый курс
+        List<Course> courses = assertMaxStatements(2, () -> enrollmentService.getCoursesForStudent(student.getId()));
+
+        assertThat(courses).extracting(Course::getTitle)
+                .containsExactlyInAnyOrder("Course 1", "Course 2", "Course 3");
+    }
+}
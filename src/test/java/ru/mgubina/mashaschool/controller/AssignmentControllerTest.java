@@ -11,6 +11,7 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
@@ -21,10 +22,14 @@ import ru.mgubina.mashaschool.entity.*;
 import ru.mgubina.mashaschool.entity.Module;
 import ru.mgubina.mashaschool.repository.*;
 
+import java.time.OffsetDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
-import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -267,5 +272,89 @@ class AssignmentControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.message").value(containsString("exceeds max score")));
     }
-}
 
+    @Test
+    void testGetSubmissionsByKeysetPages() throws Exception {
+        Long assignmentId = createAssignmentWithSubmissions();
+
+        String firstPage = mockMvc.perform(get("/api/assignments/" + assignmentId + "/submissions")
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].studentName").value("Student 1"))
+                .andExpect(jsonPath("$.items[1].studentName").value("Student 2"))
+                .andExpect(jsonPath("$.items[0].content").doesNotExist())
+                .andExpect(jsonPath("$.nextCursor").isString())
+                .andReturn().getResponse().getContentAsString();
+        String cursor = objectMapper.readTree(firstPage).get("nextCursor").asText();
+
+        // Решение без даты идёт последним
+        mockMvc.perform(get("/api/assignments/" + assignmentId + "/submissions")
+                        .param("limit", "2")
+                        .param("cursor", cursor)
+                        .param("includeContent", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].studentName").value("Student 3"))
+                .andExpect(jsonPath("$.items[0].content").value("Solution 3"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void testExportSubmissionsAsNdjson() throws Exception {
+        Long assignmentId = createAssignmentWithSubmissions();
+
+        MvcResult result = mockMvc.perform(get("/api/assignments/" + assignmentId + "/submissions/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(objectMapper.readTree(lines[0]).get("studentName").asText()).isEqualTo("Student 1");
+        assertThat(objectMapper.readTree(lines[0]).get("content").isNull()).isTrue();
+    }
+
+    @Test
+    void testGetSubmissionsWithInvalidCursor() throws Exception {
+        Long assignmentId = createAssignmentWithSubmissions();
+
+        mockMvc.perform(get("/api/assignments/" + assignmentId + "/submissions")
+                        .param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(containsString("Invalid cursor")));
+    }
+
+    private Long createAssignmentWithSubmissions() {
+        Assignment assignment = assignmentRepository.save(
+                Assignment.builder()
+                        .title("Assignment")
+                        .lesson(lessonRepository.findById(lessonId).orElseThrow())
+                        .build()
+        );
+
+        OffsetDateTime submittedAt = OffsetDateTime.parse("2025-03-01T10:00:00Z");
+        for (int i = 1; i <= 3; i++) {
+            User student = userRepository.save(
+                    User.builder()
+                            .name("Student " + i)
+                            .email("student" + i + "@test.com")
+                            .role(Role.STUDENT)
+                            .build()
+            );
+            submissionRepository.save(
+                    Submission.builder()
+                            .student(student)
+                            .assignment(assignment)
+                            .content("Solution " + i)
+                            .submittedAt(i == 3 ? null : submittedAt.plusMinutes(i))
+                            .build()
+            );
+        }
+        return assignment.getId();
+    }
+}
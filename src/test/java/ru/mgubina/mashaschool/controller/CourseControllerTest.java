@@ -7,6 +7,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
@@ -14,20 +15,32 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.mgubina.mashaschool.dto.BulkEnrollmentCreateDto;
+import ru.mgubina.mashaschool.dto.CourseCloneDto;
 import ru.mgubina.mashaschool.dto.CourseCreateDto;
 import ru.mgubina.mashaschool.dto.ModuleCreateDto;
 import ru.mgubina.mashaschool.entity.*;
 import ru.mgubina.mashaschool.entity.Category;
+import ru.mgubina.mashaschool.entity.Module;
 import ru.mgubina.mashaschool.entity.Role;
 import ru.mgubina.mashaschool.entity.Tag;
 import ru.mgubina.mashaschool.entity.User;
 import ru.mgubina.mashaschool.repository.*;
-
+import ru.mgubina.mashaschool.service.AssignmentService;
+import ru.mgubina.mashaschool.service.CourseService;
+import ru.mgubina.mashaschool.service.CourseSubtreePurger;
+import ru.mgubina.mashaschool.service.CourseTagIndex;
+import ru.mgubina.mashaschool.service.ModuleService;
+import ru.mgubina.mashaschool.service.QuizService;
+
+import java.util.List;
 import java.util.Set;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static ru.mgubina.mashaschool.support.QueryBudget.assertStatements;
 
 @SpringBootTest
 @AutoConfigureMockMvc
@@ -69,6 +82,30 @@ class CourseControllerTest {
     @Autowired
     private EnrollmentRepository enrollmentRepository;
 
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private ModuleService moduleService;
+
+    @Autowired
+    private AssignmentService assignmentService;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private CourseSubtreePurger courseSubtreePurger;
+
+    @Autowired
+    private CourseTagIndex courseTagIndex;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private Long teacherId;
     private Long categoryId;
     private Long tagId;
@@ -155,6 +192,74 @@ class CourseControllerTest {
                 .andExpect(status().isNoContent());
     }
 
+    @Test
+    void testCloneCourseCopiesStructureWithNewTeacher() throws Exception {
+        Course source = courseService.createCourse("Spring 2026", "Description", categoryId, teacherId,
+                null, null, Set.of(tagId));
+        long moduleId = courseService.addModule(source.getId(), "Module", null, 1);
+        long lessonId = moduleService.addLesson(moduleId, "Lesson", "Content", null);
+        assignmentService.createAssignment(lessonId, "Assignment", "Description", 10);
+        long quizId = quizService.createQuiz(moduleId, "Quiz", 600);
+        long questionId = quizService.addQuestion(quizId, "Question");
+        quizService.addAnswerOption(questionId, "Right", true);
+        quizService.addAnswerOption(questionId, "Wrong", false);
+        User newTeacher = userRepository.save(
+                User.builder().name("New Teacher").email("new@test.com").role(Role.TEACHER).build()
+        );
+
+        CourseCloneDto dto = CourseCloneDto.builder()
+                .title("Autumn 2026")
+                .teacherId(newTeacher.getId())
+                .keepTags(false)
+                .build();
+
+        String response = mockMvc.perform(post("/api/courses/" + source.getId() + "/clone")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.title").value("Autumn 2026"))
+                .andExpect(jsonPath("$.description").value("Description"))
+                .andExpect(jsonPath("$.teacherName").value("New Teacher"))
+                .andExpect(jsonPath("$.tagNames", empty()))
+                .andReturn().getResponse().getContentAsString();
+        long cloneId = objectMapper.readTree(response).get("id").asLong();
+
+        mockMvc.perform(get("/api/courses/" + cloneId + "/tree"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.modules[0].title").value("Module"))
+                .andExpect(jsonPath("$.modules[0].id").value(not((int) moduleId)))
+                .andExpect(jsonPath("$.modules[0].lessons[0].title").value("Lesson"))
+                .andExpect(jsonPath("$.modules[0].lessons[0].assignments[0].maxScore").value(10))
+                .andExpect(jsonPath("$.modules[0].quiz.timeLimit").value(600));
+
+        long clonedQuizId = quizRepository.findIdsByCourseId(cloneId).get(0);
+        assertThat(clonedQuizId).isNotEqualTo(quizId);
+        assertThat(quizService.getAnswerKey(clonedQuizId).getQuestionCount()).isEqualTo(1);
+        // Исходный курс не изменился
+        assertThat(quizRepository.findIdsByCourseId(source.getId())).containsExactly(quizId);
+    }
+
+    @Test
+    void testCloneCourseKeepsTagsByDefault() throws Exception {
+        Course source = courseService.createCourse("Spring 2026", "Description", categoryId, teacherId,
+                null, null, Set.of(tagId));
+
+        mockMvc.perform(post("/api/courses/" + source.getId() + "/clone")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id").value(not(source.getId().intValue())))
+                .andExpect(jsonPath("$.title").value("Spring 2026"))
+                .andExpect(jsonPath("$.teacherName").value("Test Teacher"))
+                .andExpect(jsonPath("$.tagNames", contains("Test Tag")));
+
+        mockMvc.perform(post("/api/courses/99999/clone")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(containsString("Course not found")));
+    }
+
     @Test
     void testCreateCourseValidationFails() throws Exception {
         CourseCreateDto dto = CourseCreateDto.builder()
@@ -171,6 +276,33 @@ class CourseControllerTest {
                 .andExpect(jsonPath("$.message").value("Validation failed"));
     }
 
+    @Test
+    void testGetCourseReadsOnlyCourseCard() throws Exception {
+        User teacher = userRepository.findById(teacherId).orElseThrow();
+        Category category = categoryRepository.findById(categoryId).orElseThrow();
+        Course course = Course.builder()
+                .title("Test Course")
+                .category(category)
+                .teacher(teacher)
+                .build();
+        course.getTags().add(tagRepository.findById(tagId).orElseThrow());
+        Course saved = courseRepository.save(course);
+
+        for (int i = 0; i < 3; i++) {
+            Module module = Module.builder().title("Module " + i).orderIndex(i).course(saved).build();
+            module.getLessons().add(Lesson.builder().title("Lesson " + i).module(module).build());
+            moduleRepository.save(module);
+        }
+
+        // Карточка и теги, модули и уроки не читаются
+        assertStatements(2, () -> mockMvc.perform(get("/api/courses/" + saved.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.title").value("Test Course"))
+                .andExpect(jsonPath("$.categoryName").value("Test Category"))
+                .andExpect(jsonPath("$.teacherName").value("Test Teacher"))
+                .andExpect(jsonPath("$.tagNames[0]").value("Test Tag")));
+    }
+
     @Test
     void testGetCourseNotFound() throws Exception {
         mockMvc.perform(get("/api/courses/99999"))
@@ -272,6 +404,164 @@ class CourseControllerTest {
                 .andExpect(jsonPath("$.message").value(containsString("already enrolled")));
     }
 
+    @Test
+    void testEnrollStudentsInBulk() throws Exception {
+        User teacher = userRepository.findById(teacherId).orElseThrow();
+        Category category = categoryRepository.findById(categoryId).orElseThrow();
 
-}
+        Course course = courseRepository.save(
+                Course.builder()
+                        .title("Test Course")
+                        .category(category)
+                        .teacher(teacher)
+                        .build()
+        );
+
+        User enrolledStudent = userRepository.save(
+                User.builder()
+                        .name("Enrolled Student")
+                        .email("enrolled@test.com")
+                        .role(Role.STUDENT)
+                        .build()
+        );
+        User newStudent = userRepository.save(
+                User.builder()
+                        .name("New Student")
+                        .email("new@test.com")
+                        .role(Role.STUDENT)
+                        .build()
+        );
+
+        mockMvc.perform(post("/api/courses/" + course.getId() + "/enroll")
+                        .param("userId", enrolledStudent.getId().toString()))
+                .andExpect(status().isCreated());
+
+        BulkEnrollmentCreateDto dto = BulkEnrollmentCreateDto.builder()
+                .userIds(List.of(enrolledStudent.getId(), newStudent.getId(), newStudent.getId(), 99999L))
+                .build();
 
+        mockMvc.perform(post("/api/courses/" + course.getId() + "/enroll/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.courseId").value(course.getId()))
+                .andExpect(jsonPath("$.enrolledUserIds", contains(newStudent.getId().intValue())))
+                .andExpect(jsonPath("$.alreadyEnrolledUserIds", contains(enrolledStudent.getId().intValue())))
+                .andExpect(jsonPath("$.unknownUserIds", contains(99999)));
+
+        assertThat(enrollmentRepository.findByCourseId(course.getId())).hasSize(2);
+    }
+
+    @Test
+    void testCreateCourseWithUnknownTag() throws Exception {
+        CourseCreateDto dto = CourseCreateDto.builder()
+                .title("Test Course")
+                .categoryId(categoryId)
+                .teacherId(teacherId)
+                .tagIds(Set.of(tagId, 99999L))
+                .build();
+
+        mockMvc.perform(post("/api/courses")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(containsString("Tag not found: 99999")));
+    }
+
+    @Test
+    void testSearchCoursesByTags() throws Exception {
+        Long otherTagId = tagRepository.save(Tag.builder().name("Other Tag").build()).getId();
+        Long both = createCourse("Both Tags", Set.of(tagId, otherTagId));
+        Long first = createCourse("First Tag", Set.of(tagId));
+        Long other = createCourse("Other Tag", Set.of(otherTagId));
+
+        mockMvc.perform(get("/api/courses/search")
+                        .param("tagIds", tagId.toString(), otherTagId.toString())
+                        .param("match", "ALL"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].id", contains(both.intValue())))
+                .andExpect(jsonPath("$.items[0].tagNames", contains("Other Tag", "Test Tag")))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        String nextCursor = objectMapper.readTree(mockMvc.perform(get("/api/courses/search")
+                        .param("tagIds", tagId.toString(), otherTagId.toString())
+                        .param("categoryId", categoryId.toString())
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].id", contains(both.intValue(), first.intValue())))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+                .andReturn().getResponse().getContentAsString()).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/courses/search")
+                        .param("tagIds", tagId.toString(), otherTagId.toString())
+                        .param("cursor", nextCursor)
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].id", contains(other.intValue())))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        mockMvc.perform(get("/api/courses/search")
+                        .param("teacherId", teacherId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(3)));
+    }
+
+    @Test
+    void testSearchByTagsSeesDatabaseChangesAfterIndexRebuild() throws Exception {
+        Long otherTagId = tagRepository.save(Tag.builder().name("Other Tag").build()).getId();
+        Long courseId = createCourse("Tagged Elsewhere", Set.of(tagId));
+
+        mockMvc.perform(get("/api/courses/search").param("tagIds", otherTagId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(0)));
+
+        // Тег добавлен в обход приложения, как сделал бы другой узел
+        jdbcTemplate.update("insert into course_tag (course_id, tag_id) values (?, ?)", courseId, otherTagId);
+        courseTagIndex.rebuild();
+
+        mockMvc.perform(get("/api/courses/search").param("tagIds", otherTagId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].id", contains(courseId.intValue())));
+    }
+
+    @Test
+    void testDeleteCourseInBackground() throws Exception {
+        Long kept = createCourse("Kept", Set.of(tagId));
+        Long deleted = createCourse("Deleted", Set.of(tagId));
+
+        mockMvc.perform(delete("/api/courses/" + deleted).param("background", "true"))
+                .andExpect(status().isAccepted());
+
+        // До фонового прохода курс уже не виден ни по id, ни в каталоге
+        mockMvc.perform(get("/api/courses/" + deleted))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/courses/search").param("tagIds", tagId.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].id", contains(kept.intValue())));
+        mockMvc.perform(delete("/api/courses/" + deleted))
+                .andExpect(status().isBadRequest());
+
+        courseSubtreePurger.purgeDeletedCourses();
+        assertThat(courseRepository.count()).isEqualTo(1);
+
+        mockMvc.perform(delete("/api/courses/" + kept))
+                .andExpect(status().isNoContent());
+        assertThat(courseRepository.count()).isZero();
+    }
+
+    private Long createCourse(String title, Set<Long> tagIds) throws Exception {
+        CourseCreateDto dto = CourseCreateDto.builder()
+                .title(title)
+                .categoryId(categoryId)
+                .teacherId(teacherId)
+                .tagIds(tagIds)
+                .build();
+
+        String response = mockMvc.perform(post("/api/courses")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("id").asLong();
+    }
+}
@@ -0,0 +1,167 @@
+package ru.mgubina.mashaschool.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.mgubina.mashaschool.dto.CourseReviewCreateDto;
+import ru.mgubina.mashaschool.dto.CourseReviewUpdateDto;
+import ru.mgubina.mashaschool.entity.Category;
+import ru.mgubina.mashaschool.entity.Role;
+import ru.mgubina.mashaschool.entity.User;
+import ru.mgubina.mashaschool.repository.CategoryRepository;
+import ru.mgubina.mashaschool.repository.CourseRepository;
+import ru.mgubina.mashaschool.repository.CourseReviewRepository;
+import ru.mgubina.mashaschool.repository.UserRepository;
+import ru.mgubina.mashaschool.service.CourseReviewService;
+import ru.mgubina.mashaschool.service.CourseService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Testcontainers
+class CourseReviewControllerTest {
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private CourseReviewService courseReviewService;
+
+    @Autowired
+    private CourseReviewRepository courseReviewRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long courseId;
+    private Long studentId;
+
+    @BeforeEach
+    void setUp() {
+        courseReviewRepository.deleteAll();
+        courseRepository.deleteAll();
+        userRepository.deleteAll();
+        categoryRepository.deleteAll();
+
+        Category category = categoryRepository.save(Category.builder().name("Programming").build());
+        User teacher = userRepository.save(
+                User.builder().name("Teacher").email("teacher@test.com").role(Role.TEACHER).build()
+        );
+        studentId = userRepository.save(
+                User.builder().name("Student").email("student@test.com").role(Role.STUDENT).build()
+        ).getId();
+        courseId = courseService.createCourse("Java", null, category.getId(), teacher.getId(), null, null).getId();
+    }
+
+    @Test
+    void testRatingFollowsReviewChanges() throws Exception {
+        mockMvc.perform(get("/api/courses/" + courseId + "/rating"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reviewCount").value(0))
+                .andExpect(jsonPath("$.averageRating").doesNotExist());
+
+        long first = addReview(5);
+        long second = addReview(3);
+        addReview(4);
+
+        mockMvc.perform(put("/api/courses/" + courseId + "/reviews/" + second)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(CourseReviewUpdateDto.builder().rating(1).build())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.rating").value(1));
+
+        mockMvc.perform(delete("/api/courses/" + courseId + "/reviews/" + first))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/courses/" + courseId + "/rating"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reviewCount").value(2))
+                .andExpect(jsonPath("$.averageRating").value(2.5))
+                .andExpect(jsonPath("$.histogram.1").value(1))
+                .andExpect(jsonPath("$.histogram.3").value(0))
+                .andExpect(jsonPath("$.histogram.4").value(1))
+                .andExpect(jsonPath("$.histogram.5").value(0));
+    }
+
+    @Test
+    void testAddReviewRejectsRatingOutOfRange() throws Exception {
+        mockMvc.perform(post("/api/courses/" + courseId + "/reviews")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                CourseReviewCreateDto.builder().studentId(studentId).rating(6).build())))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testRecomputeRepairsRatings() throws Exception {
+        addReview(2);
+        addReview(4);
+        jdbcTemplate.update("update course_rating set review_count = 100, rating_sum = 7, rating_2 = 0 where course_id = ?",
+                courseId);
+
+        assertThat(courseReviewService.recomputeRatings()).isEqualTo(1);
+
+        mockMvc.perform(get("/api/courses/" + courseId + "/rating"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reviewCount").value(2))
+                .andExpect(jsonPath("$.averageRating").value(3.0))
+                .andExpect(jsonPath("$.histogram.2").value(1));
+    }
+
+    private long addReview(int rating) throws Exception {
+        CourseReviewCreateDto dto = CourseReviewCreateDto.builder()
+                .studentId(studentId)
+                .rating(rating)
+                .comment("Comment " + rating)
+                .build();
+
+        String response = mockMvc.perform(post("/api/courses/" + courseId + "/reviews")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.rating").value(rating))
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(response).get("id").asLong();
+    }
+}
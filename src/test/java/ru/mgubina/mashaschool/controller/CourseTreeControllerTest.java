@@ -0,0 +1,183 @@
+package ru.mgubina.mashaschool.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.mgubina.mashaschool.dto.CourseTreeDto;
+import ru.mgubina.mashaschool.entity.Category;
+import ru.mgubina.mashaschool.entity.Role;
+import ru.mgubina.mashaschool.entity.User;
+import ru.mgubina.mashaschool.repository.CategoryRepository;
+import ru.mgubina.mashaschool.repository.CourseRepository;
+import ru.mgubina.mashaschool.repository.UserRepository;
+import ru.mgubina.mashaschool.service.AssignmentService;
+import ru.mgubina.mashaschool.service.CourseService;
+import ru.mgubina.mashaschool.service.CourseTreeCache;
+import ru.mgubina.mashaschool.service.LessonService;
+import ru.mgubina.mashaschool.service.ModuleService;
+import ru.mgubina.mashaschool.service.QuizService;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static ru.mgubina.mashaschool.support.QueryBudget.assertStatements;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Testcontainers
+class CourseTreeControllerTest {
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private ModuleService moduleService;
+
+    @Autowired
+    private LessonService lessonService;
+
+    @Autowired
+    private AssignmentService assignmentService;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private CourseTreeCache courseTreeCache;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Long courseId;
+
+    @BeforeEach
+    void setUp() {
+        courseRepository.deleteAll();
+        userRepository.deleteAll();
+        categoryRepository.deleteAll();
+
+        Category category = categoryRepository.save(Category.builder().name("Programming").build());
+        User teacher = userRepository.save(
+                User.builder()
+                        .name("Teacher")
+                        .email("teacher@test.com")
+                        .role(Role.TEACHER)
+                        .build()
+        );
+        courseId = courseService.createCourse("Java", null, category.getId(), teacher.getId(), null, null).getId();
+    }
+
+    @Test
+    void testGetCourseTree() throws Exception {
+        Long secondModuleId = courseService.addModule(courseId, "Module 2", null, 2);
+        Long firstModuleId = courseService.addModule(courseId, "Module 1", null, 1);
+        Long lessonId = moduleService.addLesson(firstModuleId, "Lesson 1.1", "Content", null);
+        assignmentService.createAssignment(lessonId, "Homework", null, 100);
+        quizService.createQuiz(secondModuleId, "Quiz 2", 600);
+
+        mockMvc.perform(get("/api/courses/" + courseId + "/tree"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.title").value("Java"))
+                .andExpect(jsonPath("$.modules", hasSize(2)))
+                .andExpect(jsonPath("$.modules[0].title").value("Module 1"))
+                .andExpect(jsonPath("$.modules[0].lessons[0].title").value("Lesson 1.1"))
+                .andExpect(jsonPath("$.modules[0].lessons[0].assignments[0].title").value("Homework"))
+                .andExpect(jsonPath("$.modules[1].quiz.title").value("Quiz 2"))
+                .andExpect(jsonPath("$.modules[1].lessons", hasSize(0)));
+    }
+
+    @Test
+    void testCourseTreeIsServedFromSnapshotAndPatchedOnAdd() throws Exception {
+        Long moduleId = courseService.addModule(courseId, "Module 1", null, 1);
+        String etag = mockMvc.perform(get("/api/courses/" + courseId + "/tree"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertStatements(0, () -> mockMvc.perform(get("/api/courses/" + courseId + "/tree")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified()));
+
+        moduleService.addLesson(moduleId, "Lesson 1.1", "Content", null);
+
+        // Урок дописан в снимок после коммита, повторной загрузки из БД нет
+        String newEtag = assertStatements(0, () -> mockMvc.perform(get("/api/courses/" + courseId + "/tree")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.modules[0].lessons[0].title").value("Lesson 1.1"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG));
+        assertThat(newEtag).isNotEqualTo(etag);
+    }
+
+    @Test
+    void testLatePatchDoesNotDuplicateNodesOfLoadedSnapshot() throws Exception {
+        Long moduleId = courseService.addModule(courseId, "Module 1", null, 1);
+        Long lessonId = moduleService.addLesson(moduleId, "Lesson 1.1", "Content", null);
+        mockMvc.perform(get("/api/courses/" + courseId + "/tree"))
+                .andExpect(jsonPath("$.modules[0].lessons", hasSize(1)));
+
+        // Снимок загружен уже с новыми узлами, а дописывание после коммита пришло позже
+        courseTreeCache.moduleAdded(courseId, new CourseTreeDto.ModuleNode(moduleId, "Module 1", null, 1, null, List.of()));
+        courseTreeCache.lessonAdded(courseId, moduleId, new CourseTreeDto.LessonNode(lessonId, "Lesson 1.1", null, List.of()));
+
+        mockMvc.perform(get("/api/courses/" + courseId + "/tree"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.modules", hasSize(1)))
+                .andExpect(jsonPath("$.modules[0].lessons", hasSize(1)));
+    }
+
+    @Test
+    void testCourseTreeReloadedAfterLessonUpdate() throws Exception {
+        Long moduleId = courseService.addModule(courseId, "Module 1", null, 1);
+        Long lessonId = moduleService.addLesson(moduleId, "Lesson 1.1", "Content", null);
+        mockMvc.perform(get("/api/courses/" + courseId + "/tree"))
+                .andExpect(jsonPath("$.modules[0].lessons[0].title").value("Lesson 1.1"));
+
+        lessonService.updateLesson(lessonId, "Renamed lesson", null, null);
+
+        mockMvc.perform(get("/api/courses/" + courseId + "/tree"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.modules[0].lessons[0].title").value("Renamed lesson"));
+    }
+
+    @Test
+    void testGetCourseTreeNotFound() throws Exception {
+        mockMvc.perform(get("/api/courses/99999/tree"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(containsString("Course not found")));
+    }
+}
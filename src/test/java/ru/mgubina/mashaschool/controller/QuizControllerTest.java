@@ -21,11 +21,16 @@ import ru.mgubina.mashaschool.dto.TakeQuizDto;
 import ru.mgubina.mashaschool.entity.*;
 import ru.mgubina.mashaschool.entity.Module;
 import ru.mgubina.mashaschool.repository.*;
+import ru.mgubina.mashaschool.service.QuizService;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Map;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
@@ -76,6 +81,9 @@ class QuizControllerTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private QuizService quizService;
+
     private Long moduleId;
     private Long studentId;
 
@@ -199,6 +207,19 @@ class QuizControllerTest {
                 .andExpect(jsonPath("$.message").value(containsString("does not belong to quiz")));
     }
 
+    @Test
+    void testTakeQuizWithNullOptionId() throws Exception {
+        long quizId = quizService.createQuiz(moduleId, "Test Quiz", null);
+        long questionId = quizService.addQuestion(quizId, "What is ORM?");
+        quizService.addAnswerOption(questionId, "Object-Relational Mapping", true);
+
+        mockMvc.perform(post("/api/quizzes/" + quizId + "/take")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"studentId\": " + studentId + ", \"answersByQuestion\": {\"" + questionId + "\": [null]}}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(containsString("must not be null")));
+    }
+
     @Test
     void testTakeQuiz() throws Exception {
         Quiz quiz = quizRepository.save(
@@ -235,9 +256,174 @@ class QuizControllerTest {
                 .andExpect(jsonPath("$.id").isNumber())
                 .andExpect(jsonPath("$.studentName").value("Student"))
                 .andExpect(jsonPath("$.quizId").value(quiz.getId()))
+                .andExpect(jsonPath("$.quizTitle").value("Test Quiz"))
                 .andExpect(jsonPath("$.score").value(1))
                 .andExpect(jsonPath("$.totalQuestions").value(1))
                 .andExpect(jsonPath("$.takenAt").isNotEmpty());
     }
-}
 
+    @Test
+    void testLeaderboardKeepsBestAttemptPerStudent() throws Exception {
+        Quiz quiz = quizRepository.save(
+                Quiz.builder()
+                        .title("Exam")
+                        .module(moduleRepository.findById(moduleId).orElseThrow())
+                        .build()
+        );
+        Question first = questionRepository.save(Question.builder().text("Q1").quiz(quiz).build());
+        Question second = questionRepository.save(Question.builder().text("Q2").quiz(quiz).build());
+        Long firstCorrect = answerOptionRepository.save(
+                AnswerOption.builder().text("A1").isCorrect(true).question(first).build()).getId();
+        Long secondCorrect = answerOptionRepository.save(
+                AnswerOption.builder().text("A2").isCorrect(true).question(second).build()).getId();
+
+        User early = userRepository.save(
+                User.builder().name("Early").email("early@test.com").role(Role.STUDENT).build());
+        User late = userRepository.save(
+                User.builder().name("Late").email("late@test.com").role(Role.STUDENT).build());
+
+        // Попытка до первого чтения попадает в таблицу из БД
+        quizSubmissionRepository.save(QuizSubmission.builder()
+                .quiz(quiz)
+                .student(early)
+                .score(1)
+                .takenAt(OffsetDateTime.now().minusDays(1))
+                .build());
+
+        takeQuiz(quiz.getId(), studentId, Map.of(first.getId(), List.of(firstCorrect),
+                second.getId(), List.of(secondCorrect)));
+        takeQuiz(quiz.getId(), late.getId(), Map.of(first.getId(), List.of(firstCorrect)));
+
+        mockMvc.perform(get("/api/quizzes/" + quiz.getId() + "/leaderboard"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].studentName", contains("Student", "Early", "Late")))
+                .andExpect(jsonPath("$[*].score", contains(2, 1, 1)))
+                .andExpect(jsonPath("$[*].rank", contains(1, 2, 3)));
+
+        // Худшая попытка не вытесняет лучшую, новая лучшая поднимает студента
+        takeQuiz(quiz.getId(), studentId, Map.of());
+        takeQuiz(quiz.getId(), late.getId(), Map.of(first.getId(), List.of(firstCorrect),
+                second.getId(), List.of(secondCorrect)));
+
+        mockMvc.perform(get("/api/quizzes/" + quiz.getId() + "/leaderboard").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].studentName", contains("Student", "Late")))
+                .andExpect(jsonPath("$[*].score", contains(2, 2)));
+
+        mockMvc.perform(get("/api/quizzes/99999/leaderboard"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testImportQuestionsJsonSkipsInvalidRows() throws Exception {
+        Quiz quiz = quizRepository.save(
+                Quiz.builder()
+                        .title("Test Quiz")
+                        .module(moduleRepository.findById(moduleId).orElseThrow())
+                        .build()
+        );
+
+        String bank = """
+                [
+                  {"text": "2 + 2?", "type": "SINGLE_CHOICE",
+                   "options": [{"text": "4", "correct": true}, {"text": "5", "correct": false}]},
+                  {"text": "No correct answer", "options": [{"text": "a", "correct": false}, {"text": "b", "correct": false}]},
+                  {"text": "", "options": []},
+                  "not an object",
+                  {"text": "Primes", "type": "MULTIPLE_CHOICE",
+                   "options": [{"text": "2", "correct": true}, {"text": "3", "correct": true}, {"text": "4", "correct": false}]}
+                ]
+                """;
+
+        mockMvc.perform(post("/api/quizzes/" + quiz.getId() + "/questions/import")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(bank))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importedCount").value(2))
+                .andExpect(jsonPath("$.failedCount").value(3))
+                .andExpect(jsonPath("$.completed").value(true))
+                .andExpect(jsonPath("$.errors[*].row", contains(2, 3, 4)))
+                .andExpect(jsonPath("$.errors[0].message").value("At least one option must be correct"));
+
+        assertThat(questionRepository.findAll()).hasSize(2);
+        assertThat(answerOptionRepository.findAll()).hasSize(5);
+        assertThat(quizService.getAnswerKey(quiz.getId()).getQuestionCount()).isEqualTo(2);
+    }
+
+    @Test
+    void testImportQuestionsCsvStopsAtMalformedRecord() throws Exception {
+        Quiz quiz = quizRepository.save(
+                Quiz.builder()
+                        .title("Test Quiz")
+                        .module(moduleRepository.findById(moduleId).orElseThrow())
+                        .build()
+        );
+
+        String bank = "text,type,option,correct,option,correct\r\n"
+                + "\"Which is \"\"ORM\"\"?\nPick one\",SINGLE_CHOICE,\"Object, Relational\",true,Other,false\r\n"
+                + "Broken flag,,yes,maybe,no,false\r\n"
+                + "\"Unterminated,,a,true,b,false\n";
+
+        mockMvc.perform(post("/api/quizzes/" + quiz.getId() + "/questions/import")
+                        .contentType("text/csv")
+                        .content(bank))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importedCount").value(1))
+                .andExpect(jsonPath("$.failedCount").value(2))
+                .andExpect(jsonPath("$.completed").value(false))
+                .andExpect(jsonPath("$.errors[*].row", contains(2, 3)));
+
+        assertThat(questionRepository.findAll()).extracting(Question::getText)
+                .containsExactly("Which is \"ORM\"?\nPick one");
+        assertThat(answerOptionRepository.findAll()).extracting(AnswerOption::getText)
+                .containsExactlyInAnyOrder("Object, Relational", "Other");
+    }
+
+    @Test
+    void testImportQuestionsJsonStopsAtOversizedElement() throws Exception {
+        Quiz quiz = quizRepository.save(
+                Quiz.builder()
+                        .title("Test Quiz")
+                        .module(moduleRepository.findById(moduleId).orElseThrow())
+                        .build()
+        );
+
+        // Каждая строка короткая, но элемент целиком больше мегабайта
+        String options = "{\"text\": \"option\", \"correct\": false},".repeat(40_000);
+        String bank = "[{\"text\": \"2 + 2?\", \"options\": "
+                + "[{\"text\": \"4\", \"correct\": true}, {\"text\": \"5\", \"correct\": false}]},"
+                + "{\"text\": \"Huge\", \"options\": [" + options + "{\"text\": \"a\", \"correct\": true}]}]";
+
+        mockMvc.perform(post("/api/quizzes/" + quiz.getId() + "/questions/import")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(bank))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.importedCount").value(1))
+                .andExpect(jsonPath("$.completed").value(false))
+                .andExpect(jsonPath("$.errors[*].row", contains(2)))
+                .andExpect(jsonPath("$.errors[0].message").value(containsString("longer than")));
+
+        assertThat(questionRepository.findAll()).extracting(Question::getText).containsExactly("2 + 2?");
+    }
+
+    @Test
+    void testImportQuestionsIntoNonExistentQuiz() throws Exception {
+        mockMvc.perform(post("/api/quizzes/99999/questions/import")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value(containsString("Quiz not found")));
+    }
+
+    private void takeQuiz(Long quizId, Long studentId, Map<Long, List<Long>> answers) throws Exception {
+        TakeQuizDto dto = TakeQuizDto.builder()
+                .studentId(studentId)
+                .answersByQuestion(answers)
+                .build();
+
+        mockMvc.perform(post("/api/quizzes/" + quizId + "/take")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(dto)))
+                .andExpect(status().isCreated());
+    }
+}
@@ -0,0 +1,121 @@
+package ru.mgubina.mashaschool.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.mgubina.mashaschool.entity.Category;
+import ru.mgubina.mashaschool.entity.Role;
+import ru.mgubina.mashaschool.entity.User;
+import ru.mgubina.mashaschool.repository.CategoryRepository;
+import ru.mgubina.mashaschool.repository.CourseRepository;
+import ru.mgubina.mashaschool.repository.UserRepository;
+import ru.mgubina.mashaschool.service.CourseService;
+import ru.mgubina.mashaschool.service.ModuleService;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Testcontainers
+class SearchControllerTest {
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private ModuleService moduleService;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Long categoryId;
+    private Long teacherId;
+
+    @BeforeEach
+    void setUp() {
+        courseRepository.deleteAll();
+        userRepository.deleteAll();
+        categoryRepository.deleteAll();
+
+        categoryId = categoryRepository.save(Category.builder().name("Programming").build()).getId();
+        teacherId = userRepository.save(
+                User.builder()
+                        .name("Teacher")
+                        .email("teacher@test.com")
+                        .role(Role.TEACHER)
+                        .build()
+        ).getId();
+    }
+
+    @Test
+    void testSearchRanksTitlesAboveTextAndMatchesPrefixes() throws Exception {
+        Long javaCourseId = courseService.createCourse("Java Persistence", "Hibernate and JPA",
+                categoryId, teacherId, null, null).getId();
+        Long sqlCourseId = courseService.createCourse("Databases", "Relational modelling and persistence",
+                categoryId, teacherId, null, null).getId();
+        Long moduleId = courseService.addModule(sqlCourseId, "Basics", null, 1);
+        Long lessonId = moduleService.addLesson(moduleId, "Indexes", "GIN indexes speed up persistence queries", null);
+
+        mockMvc.perform(get("/api/search").param("q", "persist"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].type").value("COURSE"))
+                .andExpect(jsonPath("$[0].id").value(javaCourseId));
+
+        mockMvc.perform(get("/api/search").param("q", "index persistence"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(lessonId.intValue())))
+                .andExpect(jsonPath("$[0].type").value("LESSON"))
+                .andExpect(jsonPath("$[0].courseId").value(sqlCourseId));
+    }
+
+    @Test
+    void testSearchSeesUpdatedCourse() throws Exception {
+        Long courseId = courseService.createCourse("Draft", null, categoryId, teacherId, null, null).getId();
+        courseService.updateCourse(courseId, "Kafka Streams in Practice", null, null, null);
+
+        mockMvc.perform(get("/api/search").param("q", "kafk"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(courseId.intValue())));
+
+        mockMvc.perform(get("/api/search").param("q", "draft"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+
+        mockMvc.perform(get("/api/search").param("q", "&|!:*"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+}
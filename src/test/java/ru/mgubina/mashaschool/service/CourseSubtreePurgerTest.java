@@ -0,0 +1,226 @@
+package ru.mgubina.mashaschool.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.mgubina.mashaschool.entity.*;
+import ru.mgubina.mashaschool.entity.Module;
+import ru.mgubina.mashaschool.repository.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+class CourseSubtreePurgerTest {
+
+    private static final List<String> TABLES = List.of(
+            "course", "module", "lesson", "assignment", "submission", "quiz", "question", "answer_option",
+            "quiz_submission", "enrollment", "gradebook_entry", "gradebook_total"
+    );
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private CourseService courseService;
+
+    @Autowired
+    private ModuleService moduleService;
+
+    @Autowired
+    private CourseSubtreePurger courseSubtreePurger;
+
+    @Autowired
+    private QuizGradebookRecorder quizGradebookRecorder;
+
+    @Autowired
+    private GradebookService gradebookService;
+
+    @Autowired
+    private SubmissionService submissionService;
+
+    @Autowired
+    private AssignmentService assignmentService;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private QuizSubmissionRepository quizSubmissionRepository;
+
+    @Autowired
+    private SubmissionRepository submissionRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private ModuleRepository moduleRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Category category;
+    private User teacher;
+    private List<User> students;
+
+    @BeforeEach
+    void setUp() {
+        quizSubmissionRepository.deleteAll();
+        submissionRepository.deleteAll();
+        enrollmentRepository.deleteAll();
+        courseRepository.deleteAll();
+        userRepository.deleteAll();
+        categoryRepository.deleteAll();
+
+        category = categoryRepository.save(Category.builder().name("Category").build());
+        teacher = userRepository.save(
+                User.builder().name("Teacher").email("teacher@test.com").role(Role.TEACHER).build()
+        );
+        students = List.of(createStudent("First", "first@test.com"), createStudent("Second", "second@test.com"),
+                createStudent("Third", "third@test.com"));
+    }
+
+    @Test
+    void testDeleteCourseRemovesStudentWork() {
+        createCourse("Kept", 1);
+        Map<String, Integer> before = countRows();
+        long courseId = createCourse("Deleted", 2).courseId;
+
+        courseService.deleteCourse(courseId, false);
+
+        assertThat(countRows()).isEqualTo(before);
+        assertThatThrownBy(() -> courseService.deleteCourse(courseId, false))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Course not found");
+    }
+
+    @Test
+    void testBackgroundDeleteHidesCourseUntilPurged() {
+        createCourse("Kept", 1);
+        Map<String, Integer> before = countRows();
+        long courseId = createCourse("Deleted", 2).courseId;
+
+        courseService.deleteCourse(courseId, true);
+
+        assertThat(courseRepository.findById(courseId)).isEmpty();
+        assertThatThrownBy(() -> gradebookService.getGradebook(courseId))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Course not found");
+        assertThat(jdbcTemplate.queryForObject("select count(*) from course where id = ?", Integer.class, courseId))
+                .isEqualTo(1);
+
+        courseSubtreePurger.purgeDeletedCourses();
+
+        assertThat(countRows()).isEqualTo(before);
+    }
+
+    @Test
+    void testDeleteModuleKeepsRestOfCourse() {
+        CourseStructure course = createCourse("Course", 2);
+        long deletedModuleId = course.moduleIds.get(0);
+
+        moduleService.deleteModule(deletedModuleId);
+
+        assertThat(moduleRepository.findById(deletedModuleId)).isEmpty();
+        assertThat(moduleRepository.findByCourseId(course.courseId)).extracting(Module::getId)
+                .containsExactly(course.moduleIds.get(1));
+        // В журнале остались оценки за задание и тест второго модуля
+        GradebookService.Gradebook gradebook = gradebookService.getGradebook(course.courseId);
+        assertThat(gradebook.students()).allSatisfy(grades -> {
+            assertThat(grades.total().assignmentCount()).isEqualTo(1);
+            assertThat(grades.total().quizCount()).isEqualTo(1);
+        });
+        assertThatThrownBy(() -> moduleService.deleteModule(deletedModuleId))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Module not found");
+    }
+
+    /**
+     * Курс, в каждом модуле которого урок с заданием и тест с вопросом на три варианта;
+     * все студенты записаны, сдали задания и прошли тесты, оценки тестов уже в журнале.
+     */
+    private CourseStructure createCourse(String title, int modules) {
+        Course course = courseRepository.save(
+                Course.builder().title(title).description("Description").category(category).teacher(teacher).build()
+        );
+        students.forEach(student -> enrollmentService.enrollStudent(course.getId(), student.getId()));
+
+        List<Long> moduleIds = new ArrayList<>();
+        for (int i = 1; i <= modules; i++) {
+            Module module = moduleRepository.save(
+                    Module.builder().title("Module " + i).course(course).orderIndex(i).build()
+            );
+            moduleIds.add(module.getId());
+            Lesson lesson = lessonRepository.save(
+                    Lesson.builder().title("Lesson " + i).content("Content").module(module).build()
+            );
+            long assignmentId = assignmentService.createAssignment(lesson.getId(), "Assignment", "Description", 10);
+            long quizId = quizService.createQuiz(module.getId(), "Quiz", null);
+            long questionId = quizService.addQuestion(quizId, "Question");
+            long correctOptionId = quizService.addAnswerOption(questionId, "Right", true);
+            quizService.addAnswerOption(questionId, "Wrong", false);
+            quizService.addAnswerOption(questionId, "Also wrong", false);
+
+            for (User student : students) {
+                long submissionId = submissionService.submit(student.getId(), assignmentId, "Solution");
+                submissionService.grade(submissionId, 7, "Good");
+                quizService.takeQuiz(student.getId(), quizId, Map.of(questionId, List.of(correctOptionId)));
+            }
+        }
+        quizGradebookRecorder.flush();
+        return new CourseStructure(course.getId(), moduleIds);
+    }
+
+    private Map<String, Integer> countRows() {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (String table : TABLES) {
+            counts.put(table, jdbcTemplate.queryForObject("select count(*) from " + table, Integer.class));
+        }
+        return counts;
+    }
+
+    private User createStudent(String name, String email) {
+        return userRepository.save(User.builder().name(name).email(email).role(Role.STUDENT).build());
+    }
+
+    private record CourseStructure(long courseId, List<Long> moduleIds) {
+    }
+}
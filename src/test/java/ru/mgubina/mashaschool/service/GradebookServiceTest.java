@@ -0,0 +1,180 @@
+package ru.mgubina.mashaschool.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.mgubina.mashaschool.entity.*;
+import ru.mgubina.mashaschool.entity.Module;
+import ru.mgubina.mashaschool.repository.*;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+class GradebookServiceTest {
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private GradebookService gradebookService;
+
+    @Autowired
+    private QuizGradebookRecorder quizGradebookRecorder;
+
+    @Autowired
+    private SubmissionService submissionService;
+
+    @Autowired
+    private AssignmentService assignmentService;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private QuizSubmissionRepository quizSubmissionRepository;
+
+    @Autowired
+    private SubmissionRepository submissionRepository;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private ModuleRepository moduleRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @BeforeEach
+    void setUp() {
+        // Строки журнала удаляются каскадом вместе с курсами и пользователями
+        quizSubmissionRepository.deleteAll();
+        submissionRepository.deleteAll();
+        enrollmentRepository.deleteAll();
+        courseRepository.deleteAll();
+        userRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
+    @Test
+    void testGradesAndQuizAttemptsUpdateTotals() {
+        CourseStructure course = createCourse();
+        User student = createStudent("Student", "student@test.com");
+        User idle = createStudent("Idle", "idle@test.com");
+        enrollmentService.enrollStudent(course.courseId, student.getId());
+        enrollmentService.enrollStudent(course.courseId, idle.getId());
+
+        long submissionId = submissionService.submit(student.getId(), course.assignmentId, "Solution");
+        submissionService.grade(submissionId, 4, "Try again");
+        // Повторная проверка заменяет оценку
+        submissionService.grade(submissionId, 8, "Good");
+        quizService.takeQuiz(student.getId(), course.quizId, Map.of(course.questionId, List.of(course.correctOptionId)));
+        // Худшая попытка не заменяет лучшую
+        quizService.takeQuiz(student.getId(), course.quizId, Map.of());
+        quizGradebookRecorder.flush();
+
+        GradebookService.Gradebook gradebook = gradebookService.getGradebook(course.courseId);
+
+        assertThat(gradebook.students()).extracting(row -> row.total().studentName())
+                .containsExactly("Idle", "Student");
+        GradebookService.StudentGrades idleGrades = gradebook.students().get(0);
+        assertThat(idleGrades.entries()).isEmpty();
+        assertThat(idleGrades.finalPercent()).isNull();
+
+        GradebookService.StudentGrades grades = gradebook.students().get(1);
+        GradebookTotalRow total = grades.total();
+        assertThat(total.assignmentCount()).isEqualTo(1);
+        assertThat(total.assignmentScore()).isEqualTo(8);
+        assertThat(total.assignmentMaxScore()).isEqualTo(10);
+        assertThat(total.quizCount()).isEqualTo(1);
+        assertThat(total.quizScore()).isEqualTo(1);
+        assertThat(total.quizMaxScore()).isEqualTo(1);
+        // 0.6 * 80% + 0.4 * 100%
+        assertThat(grades.finalPercent()).isCloseTo(88.0, offset(1e-9));
+        assertThat(grades.entries()).extracting(GradebookEntryRow::itemType, GradebookEntryRow::score)
+                .containsExactly(
+                        tuple(GradebookItemType.ASSIGNMENT, 8),
+                        tuple(GradebookItemType.QUIZ, 1));
+
+        // Новый вопрос меняет максимум теста, удалённое задание уходит из сводки
+        quizService.addQuestion(course.quizId, "Second question");
+        assignmentService.delete(course.assignmentId);
+
+        total = gradebookService.getGradebook(course.courseId).students().get(1).total();
+        assertThat(total.assignmentCount()).isZero();
+        assertThat(total.assignmentMaxScore()).isZero();
+        assertThat(total.quizMaxScore()).isEqualTo(2);
+    }
+
+    @Test
+    void testGradebookOfNonExistentCourseThrowsException() {
+        assertThatThrownBy(() -> gradebookService.getGradebook(99999L))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Course not found");
+    }
+
+    private CourseStructure createCourse() {
+        Category category = categoryRepository.save(Category.builder().name("Category").build());
+        User teacher = userRepository.save(
+                User.builder().name("Teacher").email("teacher@test.com").role(Role.TEACHER).build()
+        );
+        Course course = courseRepository.save(
+                Course.builder().title("Course").description("Description").category(category).teacher(teacher).build()
+        );
+        Module module = moduleRepository.save(
+                Module.builder().title("Module").course(course).orderIndex(1).build()
+        );
+        Lesson lesson = lessonRepository.save(
+                Lesson.builder().title("Lesson").content("Content").module(module).build()
+        );
+
+        long assignmentId = assignmentService.createAssignment(lesson.getId(), "Assignment", "Description", 10);
+        long quizId = quizService.createQuiz(module.getId(), "Quiz", null);
+        long questionId = quizService.addQuestion(quizId, "Question");
+        long correctOptionId = quizService.addAnswerOption(questionId, "Right", true);
+        quizService.addAnswerOption(questionId, "Wrong", false);
+        return new CourseStructure(course.getId(), assignmentId, quizId, questionId, correctOptionId);
+    }
+
+    private User createStudent(String name, String email) {
+        return userRepository.save(User.builder().name(name).email(email).role(Role.STUDENT).build());
+    }
+
+    private record CourseStructure(long courseId, long assignmentId, long quizId, long questionId,
+                                   long correctOptionId) {
+    }
+}
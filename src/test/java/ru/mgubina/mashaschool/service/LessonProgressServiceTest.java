@@ -0,0 +1,152 @@
+package ru.mgubina.mashaschool.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.mgubina.mashaschool.entity.*;
+import ru.mgubina.mashaschool.entity.Module;
+import ru.mgubina.mashaschool.repository.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+class LessonProgressServiceTest {
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private LessonProgressService lessonProgressService;
+
+    @Autowired
+    private ModuleService moduleService;
+
+    @Autowired
+    private EnrollmentService enrollmentService;
+
+    @Autowired
+    private EnrollmentRepository enrollmentRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private ModuleRepository moduleRepository;
+
+    @Autowired
+    private LessonRepository lessonRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @BeforeEach
+    void setUp() {
+        enrollmentRepository.deleteAll();
+        lessonRepository.deleteAll();
+        moduleRepository.deleteAll();
+        courseRepository.deleteAll();
+        userRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
+    @Test
+    void testProgressSurvivesLessonsInsertedBeforeCompletedOnes() {
+        Course course = createCourse();
+        Module second = createModule(course, "Second", 2);
+        Module first = createModule(course, "First", 1);
+        long intro = moduleService.addLesson(first.getId(), "Intro", "Content", null);
+        long advanced = moduleService.addLesson(second.getId(), "Advanced", "Content", null);
+        User student = createStudent("Student", "student@test.com");
+        User newcomer = createStudent("Newcomer", "newcomer@test.com");
+        enrollmentService.enrollStudent(course.getId(), student.getId());
+        enrollmentService.enrollStudent(course.getId(), newcomer.getId());
+
+        lessonProgressService.markCompleted(intro, student.getId());
+        lessonProgressService.markCompleted(advanced, student.getId());
+        lessonProgressService.markCompleted(advanced, student.getId());
+
+        LessonProgressService.CourseProgress progress = lessonProgressService.getCourseProgress(course.getId());
+        assertThat(progress.lessonCount()).isEqualTo(2);
+        assertThat(progress.students()).extracting(LessonProgressService.StudentProgress::studentName)
+                .containsExactly("Newcomer", "Student");
+        assertThat(progress.students().get(0).nextLessonId()).isEqualTo(intro);
+        assertThat(progress.students().get(1).percentComplete()).isEqualTo(100.0);
+        assertThat(progress.students().get(1).nextLessonId()).isNull();
+
+        // Урок, добавленный перед пройденным, получает новый бит; пройденные уроки остаются пройденными
+        long basics = moduleService.addLesson(first.getId(), "Basics", "Content", null);
+        lessonProgressService.markIncomplete(intro, student.getId());
+
+        LessonProgressService.StudentProgress studentProgress =
+                lessonProgressService.getCourseProgress(course.getId()).students().get(1);
+        assertThat(studentProgress.completedLessons()).isEqualTo(1);
+        assertThat(studentProgress.percentComplete()).isCloseTo(33.3, offset(0.1));
+        assertThat(studentProgress.nextLessonId()).isEqualTo(intro);
+
+        lessonProgressService.markCompleted(intro, student.getId());
+        assertThat(lessonProgressService.getCourseProgress(course.getId()).students().get(1).nextLessonId())
+                .isEqualTo(basics);
+    }
+
+    @Test
+    void testLessonSavedOutsideServiceGetsOrdinalOnFirstCompletion() {
+        Course course = createCourse();
+        Module module = createModule(course, "Module", 1);
+        Lesson lesson = lessonRepository.save(
+                Lesson.builder().title("Imported").content("Content").module(module).build()
+        );
+        User student = createStudent("Student", "student@test.com");
+        User stranger = createStudent("Stranger", "stranger@test.com");
+        enrollmentService.enrollStudent(course.getId(), student.getId());
+
+        lessonProgressService.markCompleted(lesson.getId(), student.getId());
+
+        assertThat(lessonProgressService.getCourseProgress(course.getId()).students().get(0).completedLessons())
+                .isEqualTo(1);
+        assertThatThrownBy(() -> lessonProgressService.markCompleted(lesson.getId(), stranger.getId()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("is not enrolled");
+        assertThatThrownBy(() -> lessonProgressService.markCompleted(99999L, student.getId()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Lesson not found");
+    }
+
+    private Course createCourse() {
+        Category category = categoryRepository.save(Category.builder().name("Category").build());
+        User teacher = userRepository.save(
+                User.builder().name("Teacher").email("teacher@test.com").role(Role.TEACHER).build()
+        );
+        return courseRepository.save(
+                Course.builder().title("Course").description("Description").category(category).teacher(teacher).build()
+        );
+    }
+
+    private Module createModule(Course course, String title, int orderIndex) {
+        return moduleRepository.save(Module.builder().title(title).course(course).orderIndex(orderIndex).build());
+    }
+
+    private User createStudent(String name, String email) {
+        return userRepository.save(User.builder().name(name).email(email).role(Role.STUDENT).build());
+    }
+}
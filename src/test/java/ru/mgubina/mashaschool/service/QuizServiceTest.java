@@ -19,6 +19,7 @@ import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static ru.mgubina.mashaschool.support.QueryBudget.assertMaxStatements;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -88,6 +89,98 @@ class QuizServiceTest {
                 .hasMessageContaining("does not belong to question");
     }
 
+    @Test
+    void testTakeQuizScoresOnlyExactlyMatchingAnswers() {
+        QuizStructure structure = createQuizWithTwoQuestions();
+        User student = createTestStudent("Student", "student@test.com");
+
+        Map<Long, List<Long>> answers = Map.of(
+                structure.question1Id, List.of(structure.option1_1),
+                structure.question2Id, List.of(structure.option2_1)  // Выбран только один из двух правильных
+        );
+
+        QuizService.TakenQuiz submission = quizService.takeQuiz(student.getId(), structure.quizId, answers);
+
+        assertThat(submission.score()).isEqualTo(1);
+        assertThat(quizSubmissionRepository.findByQuizId(structure.quizId)).hasSize(1);
+    }
+
+    @Test
+    void testTakeQuizIgnoresDuplicateOptionsAndScoresUnansweredQuestionAsWrong() {
+        QuizStructure structure = createQuizWithTwoQuestions();
+        User student = createTestStudent("Student", "student@test.com");
+
+        Map<Long, List<Long>> answers = Map.of(
+                structure.question1Id, List.of(structure.option1_1, structure.option1_1)
+        );
+
+        QuizService.TakenQuiz submission = quizService.takeQuiz(student.getId(), structure.quizId, answers);
+
+        assertThat(submission.score()).isEqualTo(1);
+    }
+
+    @Test
+    void testTakeQuizWithCachedAnswerKeyOnlyInsertsSubmission() {
+        QuizStructure structure = createQuizWithTwoQuestions();
+        User student = createTestStudent("Student", "student@test.com");
+        Map<Long, List<Long>> answers = Map.of(
+                structure.question1Id, List.of(structure.option1_1),
+                structure.question2Id, List.of(structure.option2_1, structure.option2_3)
+        );
+
+        quizService.takeQuiz(student.getId(), structure.quizId, answers);
+
+        // Ключ ответов и имя студента уже в кэшах, журнал оценок пишется после коммита вне запроса:
+        // остаются вставка и, на границе блока, запрос следующего блока id из последовательности
+        QuizService.TakenQuiz submission = assertMaxStatements(2,
+                () -> quizService.takeQuiz(student.getId(), structure.quizId, answers));
+
+        assertThat(submission.score()).isEqualTo(2);
+    }
+
+    @Test
+    void testAddQuestionEvictsCachedAnswerKey() {
+        QuizStructure structure = createQuizWithTwoQuestions();
+        User student = createTestStudent("Student", "student@test.com");
+        Map<Long, List<Long>> answers = Map.of(
+                structure.question1Id, List.of(structure.option1_1),
+                structure.question2Id, List.of(structure.option2_1, structure.option2_3)
+        );
+
+        assertThat(quizService.takeQuiz(student.getId(), structure.quizId, answers).score()).isEqualTo(2);
+
+        long question3Id = quizService.addQuestion(structure.quizId, "What is a session?");
+        long option3_1 = quizService.addAnswerOption(question3Id, "Unit of work", true);
+
+        assertThat(quizService.takeQuiz(student.getId(), structure.quizId, answers).score()).isEqualTo(2);
+        assertThat(quizService.getAnswerKey(structure.quizId).getQuestionCount()).isEqualTo(3);
+
+        Map<Long, List<Long>> allAnswers = Map.of(
+                structure.question1Id, List.of(structure.option1_1),
+                structure.question2Id, List.of(structure.option2_1, structure.option2_3),
+                question3Id, List.of(option3_1)
+        );
+        assertThat(quizService.takeQuiz(student.getId(), structure.quizId, allAnswers).score()).isEqualTo(3);
+    }
+
+    @Test
+    void testTakeQuizForUnknownStudent() {
+        QuizStructure structure = createQuizWithTwoQuestions();
+
+        assertThatThrownBy(() -> quizService.takeQuiz(99999L, structure.quizId, Map.of()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("User not found");
+    }
+
+    @Test
+    void testTakeQuizForUnknownQuiz() {
+        User student = createTestStudent("Student", "student@test.com");
+
+        assertThatThrownBy(() -> quizService.takeQuiz(student.getId(), 99999L, Map.of()))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Quiz not found");
+    }
+
     @Test
     void testCreateQuizAndStructure() {
         Long moduleId = createTestModule();
@@ -0,0 +1,187 @@
+package ru.mgubina.mashaschool.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.mgubina.mashaschool.dto.TakeQuizDto;
+import ru.mgubina.mashaschool.entity.*;
+import ru.mgubina.mashaschool.entity.Module;
+import ru.mgubina.mashaschool.repository.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Приём попыток с журналом и fsync при заполненном буфере. Фоновая выгрузка отложена на час,
+ * буфер выгружает сам тест.
+ */
+@SpringBootTest(properties = {
+        "mashaschool.quiz-ingest.capacity=3",
+        "mashaschool.quiz-ingest.flush-interval=1h",
+        "mashaschool.quiz-ingest.wal.enabled=true",
+        "mashaschool.quiz-ingest.wal.fsync=true"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Testcontainers
+class QuizSubmissionBackpressureTest {
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final Path WAL_DIRECTORY = createTempDirectory();
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("mashaschool.quiz-ingest.wal.directory", WAL_DIRECTORY::toString);
+    }
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private QuizSubmissionIngestor quizSubmissionIngestor;
+
+    @Autowired
+    private QuizSubmissionRepository quizSubmissionRepository;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private ModuleRepository moduleRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    private long quizId;
+    private long questionId;
+    private long correctOptionId;
+    private List<Long> studentIds;
+
+    @BeforeEach
+    void setUp() {
+        quizSubmissionRepository.deleteAll();
+        quizRepository.deleteAll();
+        moduleRepository.deleteAll();
+        courseRepository.deleteAll();
+        userRepository.deleteAll();
+        categoryRepository.deleteAll();
+
+        User teacher = userRepository.save(
+                User.builder().name("Teacher").email("teacher@test.com").role(Role.TEACHER).build()
+        );
+        Category category = categoryRepository.save(Category.builder().name("Category").build());
+        Course course = courseRepository.save(
+                Course.builder().title("Course").category(category).teacher(teacher).build()
+        );
+        Module module = moduleRepository.save(
+                Module.builder().title("Module").course(course).orderIndex(1).build()
+        );
+        quizId = quizService.createQuiz(module.getId(), "Quiz", 600);
+        questionId = quizService.addQuestion(quizId, "2 + 2 = ?");
+        correctOptionId = quizService.addAnswerOption(questionId, "4", true);
+
+        studentIds = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            studentIds.add(userRepository.save(
+                    User.builder().name("Student " + i).email("student" + i + "@test.com").role(Role.STUDENT).build()
+            ).getId());
+        }
+    }
+
+    @Test
+    void testFullBufferAnswersServiceUnavailable() throws Exception {
+        // Одновременные попытки ждут общего сброса журнала на диск
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<Integer>> statuses = new ArrayList<>();
+            for (Long studentId : studentIds.subList(0, 3)) {
+                statuses.add(executor.submit(() -> submit(studentId)));
+            }
+            for (Future<Integer> status : statuses) {
+                assertThat(status.get()).isEqualTo(202);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        mockMvc.perform(post("/api/quizzes/" + quizId + "/submissions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body(studentIds.get(3))))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(jsonPath("$.status").value(503));
+
+        quizSubmissionIngestor.flush();
+
+        assertThat(quizSubmissionIngestor.pendingCount()).isZero();
+        assertThat(quizSubmissionRepository.count()).isEqualTo(3);
+        assertThat(submit(studentIds.get(3))).isEqualTo(202);
+        quizSubmissionIngestor.flush();
+        assertThat(quizSubmissionRepository.count()).isEqualTo(4);
+    }
+
+    private int submit(long studentId) throws Exception {
+        return mockMvc.perform(post("/api/quizzes/" + quizId + "/submissions")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body(studentId)))
+                .andReturn().getResponse().getStatus();
+    }
+
+    private String body(long studentId) throws Exception {
+        return objectMapper.writeValueAsString(TakeQuizDto.builder()
+                .studentId(studentId)
+                .answersByQuestion(Map.of(questionId, List.of(correctOptionId)))
+                .build());
+    }
+
+    private static Path createTempDirectory() {
+        try {
+            return Files.createTempDirectory("quiz-wal-backpressure");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package ru.mgubina.mashaschool.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.mgubina.mashaschool.entity.*;
+import ru.mgubina.mashaschool.entity.Module;
+import ru.mgubina.mashaschool.repository.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@SpringBootTest(properties = {
+        "mashaschool.quiz-ingest.flush-interval=50ms",
+        "mashaschool.quiz-ingest.batch-size=2",
+        "mashaschool.quiz-ingest.wal.enabled=true",
+        "mashaschool.quiz-ingest.wal.fsync=false"
+})
+@ActiveProfiles("test")
+@Testcontainers
+class QuizSubmissionIngestorTest {
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final Path WAL_DIRECTORY = createTempDirectory();
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+        registry.add("mashaschool.quiz-ingest.wal.directory", WAL_DIRECTORY::toString);
+    }
+
+    @Autowired
+    private QuizService quizService;
+
+    @Autowired
+    private QuizSubmissionIngestor quizSubmissionIngestor;
+
+    @Autowired
+    private SequenceIdAllocator idAllocator;
+
+    @Autowired
+    private QuizSubmissionRepository quizSubmissionRepository;
+
+    @Autowired
+    private QuizRepository quizRepository;
+
+    @Autowired
+    private ModuleRepository moduleRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    private long quizId;
+    private long questionId;
+    private long correctOptionId;
+    private long wrongOptionId;
+
+    @BeforeEach
+    void setUp() {
+        quizSubmissionRepository.deleteAll();
+        quizRepository.deleteAll();
+        moduleRepository.deleteAll();
+        courseRepository.deleteAll();
+        userRepository.deleteAll();
+        categoryRepository.deleteAll();
+
+        User teacher = userRepository.save(
+                User.builder().name("Teacher").email("teacher@test.com").role(Role.TEACHER).build()
+        );
+        Category category = categoryRepository.save(Category.builder().name("Category").build());
+        Course course = courseRepository.save(
+                Course.builder().title("Course").category(category).teacher(teacher).build()
+        );
+        Module module = moduleRepository.save(
+                Module.builder().title("Module").course(course).orderIndex(1).build()
+        );
+
+        quizId = quizService.createQuiz(module.getId(), "Final quiz", 600);
+        questionId = quizService.addQuestion(quizId, "2 + 2 = ?");
+        correctOptionId = quizService.addAnswerOption(questionId, "4", true);
+        wrongOptionId = quizService.addAnswerOption(questionId, "5", false);
+    }
+
+    @Test
+    void testAcceptedSubmissionsAreWrittenInBatches() {
+        List<Long> tickets = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            User student = userRepository.save(
+                    User.builder().name("Student " + i).email("student" + i + "@test.com").role(Role.STUDENT).build()
+            );
+            long answer = i == 3 ? correctOptionId : wrongOptionId;
+            QuizService.SubmissionTicket ticket = quizService.submitQuiz(student.getId(), quizId,
+                    Map.of(questionId, List.of(answer)));
+            assertThat(ticket.score()).isEqualTo(i == 3 ? 1 : 0);
+            tickets.add(ticket.submissionId());
+        }
+
+        await().atMost(Duration.ofSeconds(10))
+                .until(() -> quizSubmissionRepository.count() == 5 && quizSubmissionIngestor.pendingCount() == 0);
+
+        assertThat(quizSubmissionRepository.findAll()).extracting(QuizSubmission::getId)
+                .containsExactlyInAnyOrderElementsOf(tickets);
+        assertThat(quizService.getLeaderboard(quizId, 1)).extracting(LeaderboardRow::studentName)
+                .containsExactly("Student 3");
+        // Выгруженные сегменты журнала удалены
+        await().atMost(Duration.ofSeconds(10)).until(() -> segments(WAL_DIRECTORY).isEmpty());
+    }
+
+    @Test
+    void testSubmissionsFromLeftoverLogAreWritten() throws IOException {
+        User student = userRepository.save(
+                User.builder().name("Student").email("student@test.com").role(Role.STUDENT).build()
+        );
+        long[] ids = idAllocator.allocate("quiz_submission_seq", 2);
+        OffsetDateTime takenAt = OffsetDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.MICROS);
+
+        // Журнал, оставшийся после падения узла, с оборванной последней записью
+        Path directory = Files.createTempDirectory("quiz-wal-recovery");
+        try (QuizSubmissionWal wal = new QuizSubmissionWal(directory, false)) {
+            wal.append(new QuizSubmissionRecord(ids[0], quizId, student.getId(), 1, takenAt));
+            wal.append(new QuizSubmissionRecord(ids[1], quizId, student.getId(), 0, takenAt));
+        }
+        Path segment = segments(directory).getFirst();
+        Files.write(segment, Arrays.copyOf(Files.readAllBytes(segment), 60));
+
+        quizSubmissionIngestor.recover(segment);
+
+        await().atMost(Duration.ofSeconds(10)).until(() -> !Files.exists(segment));
+        List<QuizSubmission> submissions = quizSubmissionRepository.findAll();
+        assertThat(submissions).extracting(QuizSubmission::getId).containsExactly(ids[0]);
+        assertThat(submissions.getFirst().getTakenAt().toInstant()).isEqualTo(takenAt.toInstant());
+    }
+
+    private static List<Path> segments(Path directory) throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(QuizSubmissionWal.SEGMENT_SUFFIX)).toList();
+        }
+    }
+
+    private static Path createTempDirectory() {
+        try {
+            return Files.createTempDirectory("quiz-wal");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
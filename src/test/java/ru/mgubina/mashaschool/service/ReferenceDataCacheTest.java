@@ -0,0 +1,98 @@
+package ru.mgubina.mashaschool.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.mgubina.mashaschool.entity.Category;
+import ru.mgubina.mashaschool.entity.Role;
+import ru.mgubina.mashaschool.entity.Tag;
+import ru.mgubina.mashaschool.entity.User;
+import ru.mgubina.mashaschool.repository.CategoryRepository;
+import ru.mgubina.mashaschool.repository.CourseRepository;
+import ru.mgubina.mashaschool.repository.TagRepository;
+import ru.mgubina.mashaschool.repository.UserRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static ru.mgubina.mashaschool.support.QueryBudget.assertStatements;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Testcontainers
+class ReferenceDataCacheTest {
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void configureProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", POSTGRES::getJdbcUrl);
+        registry.add("spring.datasource.username", POSTGRES::getUsername);
+        registry.add("spring.datasource.password", POSTGRES::getPassword);
+    }
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private TagRepository tagRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CourseRepository courseRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        courseRepository.deleteAll();
+        tagRepository.deleteAll();
+        userRepository.deleteAll();
+        categoryRepository.deleteAll();
+    }
+
+    @Test
+    void testReferenceDataIsReadFromSecondLevelCache() {
+        Long categoryId = categoryRepository.save(Category.builder().name("Programming").build()).getId();
+        Long tagId = tagRepository.save(Tag.builder().name("Java").build()).getId();
+        Long userId = userRepository.save(
+                User.builder().name("Teacher").email("teacher@test.com").role(Role.TEACHER).build()
+        ).getId();
+
+        // Категории и теги (NONSTRICT_READ_WRITE) попадают в кэш при первом чтении, а не при вставке
+        assertStatements(2, () -> {
+            categoryRepository.findById(categoryId);
+            return tagRepository.findById(tagId);
+        });
+        assertStatements(0, () -> {
+            assertThat(categoryRepository.findById(categoryId)).get().extracting(Category::getName).isEqualTo("Programming");
+            return assertThat(tagRepository.findById(tagId)).get().extracting(Tag::getName).isEqualTo("Java");
+        });
+
+        // Строка app_user берётся из кэша, остаётся только поиск профиля по user_id (обратная сторона one-to-one)
+        User teacher = assertStatements(1, () -> userRepository.findById(userId).orElseThrow());
+        assertThat(teacher.getRole()).isEqualTo(Role.TEACHER);
+    }
+
+    @Test
+    void testCacheStatisticsArePublishedAsMetrics() {
+        Long categoryId = categoryRepository.save(Category.builder().name("Design").build()).getId();
+        categoryRepository.findById(categoryId);
+        categoryRepository.findById(categoryId);
+
+        assertThat(meterRegistry.get("hibernate.second.level.cache.requests")
+                .tag("region", "category")
+                .tag("result", "hit")
+                .functionCounter().count()).isPositive();
+    }
+}
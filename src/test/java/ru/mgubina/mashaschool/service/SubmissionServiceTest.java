@@ -19,6 +19,7 @@ import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static ru.mgubina.mashaschool.support.QueryBudget.assertStatements;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -62,6 +63,9 @@ class SubmissionServiceTest {
     @Autowired
     private CategoryRepository categoryRepository;
 
+    @Autowired
+    private DuplicateGuard duplicateGuard;
+
     @BeforeEach
     void setUp() {
         // Очищаем данные перед каждым тестом
@@ -107,6 +111,44 @@ class SubmissionServiceTest {
                 .hasMessageContaining("Submission not found");
     }
 
+    @Test
+    void testGetByAssignmentLoadsStudentsWithoutExtraQueries() {
+        Long assignmentId = createTestAssignment();
+        for (int i = 1; i <= 3; i++) {
+            User student = createTestStudent("Student " + i, "student" + i + "@test.com");
+            submissionService.submit(student.getId(), assignmentId, "Solution " + i);
+        }
+
+        // Проверка задания и одна выборка решений со студентами
+        assertStatements(2, () -> assertThat(submissionService.getByAssignment(assignmentId))
+                .extracting(submission -> submission.getStudent().getName())
+                .containsExactlyInAnyOrder("Student 1", "Student 2", "Student 3"));
+    }
+
+    @Test
+    void testDuplicateUnknownToGuardIsRejectedByConstraint() {
+        Long assignmentId = createTestAssignment();
+        User student = createTestStudent("Student", "student@test.com");
+        User other = createTestStudent("Other", "other@test.com");
+        submissionService.submit(other.getId(), assignmentId, "Other solution");
+
+        // Решение, записанное в обход сервиса после загрузки фильтра: фильтр о нём не знает
+        submissionRepository.save(Submission.builder()
+                .student(student)
+                .assignment(assignmentRepository.findById(assignmentId).orElseThrow())
+                .content("Imported solution")
+                .build());
+        assertThat(duplicateGuard.mayHaveSubmitted(student.getId(), assignmentId)).isFalse();
+
+        assertThatThrownBy(() -> submissionService.submit(student.getId(), assignmentId, "Second submission"))
+                .isInstanceOf(DuplicateSubmissionException.class);
+        // После отказа ограничения пара запомнена, следующий дубль отсекается проверкой без вставки
+        assertThat(duplicateGuard.mayHaveSubmitted(student.getId(), assignmentId)).isTrue();
+        assertThatThrownBy(() -> submissionService.submit(student.getId(), assignmentId, "Third submission"))
+                .isInstanceOf(DuplicateSubmissionException.class);
+        assertThat(submissionRepository.findByStudentId(student.getId())).hasSize(1);
+    }
+
    @Test
     void testCascadeDeleteOnAssignment() {
         Long assignmentId = createTestAssignment();
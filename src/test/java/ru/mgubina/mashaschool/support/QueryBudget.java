@@ -0,0 +1,37 @@
+package ru.mgubina.mashaschool.support;
+
+import org.springframework.util.function.ThrowingSupplier;
+import ru.mgubina.mashaschool.config.SqlStatistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Проверка числа SQL-запросов в тестах. Считает все запросы через DataSource, включая JdbcTemplate,
+ * поэтому работает только с mashaschool.sql-stats.enabled=true (включено в профиле test).
+ * Проверяемое действие может бросать проверяемые исключения (например, MockMvc.perform).
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    public static <T> T assertMaxStatements(long maxStatements, ThrowingSupplier<T> action) {
+        SqlStatistics.Snapshot start = SqlStatistics.snapshot();
+        T result = action.get();
+        long statements = SqlStatistics.snapshot().since(start).statements();
+        assertThat(statements)
+                .as("SQL statements executed, budget is %d", maxStatements)
+                .isLessThanOrEqualTo(maxStatements);
+        return result;
+    }
+
+    public static <T> T assertStatements(long expectedStatements, ThrowingSupplier<T> action) {
+        SqlStatistics.Snapshot start = SqlStatistics.snapshot();
+        T result = action.get();
+        long statements = SqlStatistics.snapshot().since(start).statements();
+        assertThat(statements)
+                .as("SQL statements executed")
+                .isEqualTo(expectedStatements);
+        return result;
+    }
+}